@@ -0,0 +1,57 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.symmetric.SymmetricEncryption;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.security.Key;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+// Thông lượng ChaCha20-Poly1305, tách riêng vì thuật toán này không có mode/padding
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AeadBenchmark {
+    @Param({ "16", "1024", "65536", "1048576", "67108864" })
+    public int size;
+
+    private EncryptionAlgorithm encryption;
+    private Key key;
+    private byte[] plain;
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        // KeyGenerator ChaCha20-Poly1305 đến từ Bouncy Castle, giống khi chạy trong MainFrame
+        Security.addProvider(new BouncyCastleProvider());
+        encryption = EncryptionAlgorithmFactory.createAlgorithm("chacha20-poly1305");
+        key = ((SymmetricEncryption) encryption).generateKey();
+        plain = Payloads.randomBytes(size);
+        encrypted = encryption.encrypt(plain, key);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return encryption.encrypt(plain, key);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return encryption.decrypt(encrypted, key);
+    }
+}
@@ -0,0 +1,24 @@
+package com.atbm.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Chạy JMH với kết quả xuất ra JSON (target/jmh-result.json) nếu không chỉ định -rf/-rff,
+// các tham số khác được chuyển nguyên cho JMH, ví dụ: BenchmarkRunner SymmetricBenchmark -p size=1024
+public class BenchmarkRunner {
+    private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add(DEFAULT_RESULT_FILE);
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
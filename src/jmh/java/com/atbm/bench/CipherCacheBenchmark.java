@@ -0,0 +1,80 @@
+package com.atbm.bench;
+
+import com.atbm.utils.CipherCache;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+// Số lượt mã hóa + giải mã/giây cho payload nhỏ: Cipher và SecureRandom lấy từ CipherCache (như
+// SymmetricEncryption) so với tạo mới mỗi lần gọi (cách làm trước khi có CipherCache).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CipherCacheBenchmark {
+    // Camellia lấy từ Bouncy Castle, AES từ provider mặc định
+    @Param({ "AES", "Camellia" })
+    public String algorithm;
+
+    @Param({ "64" })
+    public int size;
+
+    private String transformation;
+    private String provider;
+    private SecretKey key;
+    private byte[] plain;
+
+    @Setup
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        transformation = algorithm + "/CBC/PKCS5Padding";
+        provider = algorithm.equals("AES") ? null : "BC";
+        KeyGenerator keyGen = provider == null ? KeyGenerator.getInstance(algorithm)
+                : KeyGenerator.getInstance(algorithm, provider);
+        keyGen.init(256);
+        key = keyGen.generateKey();
+        plain = Payloads.randomBytes(size);
+    }
+
+    @Benchmark
+    public byte[] cached() throws Exception {
+        Cipher cipher = CipherCache.getCipher(transformation, provider);
+        byte[] iv = new byte[cipher.getBlockSize()];
+        CipherCache.secureRandom().nextBytes(iv);
+        return roundTrip(cipher, iv);
+    }
+
+    @Benchmark
+    public byte[] uncached() throws Exception {
+        Cipher cipher = provider == null ? Cipher.getInstance(transformation)
+                : Cipher.getInstance(transformation, provider);
+        byte[] iv = new byte[cipher.getBlockSize()];
+        new SecureRandom().nextBytes(iv);
+        return roundTrip(cipher, iv);
+    }
+
+    private byte[] roundTrip(Cipher cipher, byte[] iv) throws Exception {
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        byte[] encrypted = cipher.doFinal(plain);
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+        return cipher.doFinal(encrypted);
+    }
+}
@@ -0,0 +1,64 @@
+package com.atbm.bench;
+
+import com.atbm.core.cryptanalysis.ClassicalCryptanalysis;
+import com.atbm.core.cryptanalysis.QuadgramModel;
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.traditional.TraditionalEncryption;
+import com.atbm.utils.KeyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Phá mã một bản mã tiếng Anh dài length ký tự (cắt từ văn bản mẫu của QuadgramModel) với key ngẫu nhiên.
+// threads = 0 dùng mọi nhân. Số key thử mỗi lần phá cố định với Caesar (26) và Affine (312), còn Vigenere và
+// Monoalphabetic tùy bản mã nên xem thêm getCandidatesPerSecond() qua lệnh crack của CLI.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptanalysisBenchmark {
+
+    @Param({ "Caesar", "Affine", "Vigenere", "Monoalphabetic" })
+    public String algorithm;
+
+    @Param({ "1000" })
+    public int length;
+
+    @Param({ "1", "0" })
+    public int threads;
+
+    private QuadgramModel model;
+    private String cipherText;
+
+    @Setup
+    public void setup() throws Exception {
+        model = QuadgramModel.english();
+        String corpus;
+        try (InputStream in = QuadgramModel.class.getResourceAsStream("/cryptanalysis/english.txt")) {
+            corpus = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        TraditionalEncryption cipher = (TraditionalEncryption) EncryptionAlgorithmFactory.createAlgorithm(algorithm);
+        // Bỏ tiền tố "Khóa X: " của key sinh ra
+        String key = KeyUtils.generateTraditionalKey(algorithm);
+        cipherText = cipher.encrypt(corpus.substring(0, length), key.substring(key.indexOf(':') + 1).trim());
+    }
+
+    @Benchmark
+    public ClassicalCryptanalysis.Result crack() throws InterruptedException {
+        return ClassicalCryptanalysis.crack(algorithm, cipherText, model, threads,
+                ClassicalCryptanalysis.DEFAULT_RESTARTS);
+    }
+}
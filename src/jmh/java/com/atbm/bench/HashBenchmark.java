@@ -0,0 +1,44 @@
+package com.atbm.bench;
+
+import com.atbm.core.hash.HashAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+// Thông lượng HashAlgorithm.hash trên dữ liệu trong bộ nhớ (không tính I/O đĩa)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+    @Param({ "MD5", "SHA-1", "SHA-256", "SHA-384", "SHA-512" })
+    public String algorithm;
+
+    @Param({ "16", "1024", "65536", "1048576", "67108864" })
+    public int size;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        data = Payloads.randomBytes(size);
+    }
+
+    @Benchmark
+    public String hash() throws Exception {
+        return HashAlgorithm.hash(Channels.newChannel(new ByteArrayInputStream(data)), algorithm);
+    }
+}
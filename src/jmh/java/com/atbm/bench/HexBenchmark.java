@@ -0,0 +1,65 @@
+package com.atbm.bench;
+
+import com.atbm.utils.HexUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+// Số digest + chuyển hex mỗi giây với dữ liệu nhỏ (như khi lập manifest cho rất nhiều file nhỏ).
+// formatHex là cách cũ dùng String.format("%02x") cho mỗi byte, giữ lại để so sánh.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexBenchmark {
+    @Param({ "MD5", "SHA-256", "SHA-512" })
+    public String algorithm;
+
+    @Param({ "16", "256" })
+    public int size;
+
+    private MessageDigest digest;
+    private byte[] data;
+    private byte[] line;
+
+    @Setup
+    public void setup() throws Exception {
+        digest = MessageDigest.getInstance(algorithm);
+        data = Payloads.randomBytes(size);
+        line = new byte[digest.getDigestLength() * 2];
+    }
+
+    @Benchmark
+    public String formatHex() {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest(data)) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String lookupHex() {
+        return HexUtils.encode(digest.digest(data));
+    }
+
+    // Ghi hex vào buffer có sẵn, không tạo String
+    @Benchmark
+    public byte[] lookupHexIntoBuffer() {
+        byte[] hash = digest.digest(data);
+        HexUtils.encode(hash, 0, hash.length, line, 0);
+        return line;
+    }
+}
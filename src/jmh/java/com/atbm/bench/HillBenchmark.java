@@ -0,0 +1,65 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.traditional.HillCipher;
+import com.atbm.core.encryption.traditional.HillKey;
+import com.atbm.core.encryption.traditional.TextStreamCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+// Hill theo luồng với các kích thước ma trận: mỗi lần đo mã hóa cả corpus qua chunk 1 MB vào buffer có sẵn.
+// compileKey đo riêng chi phí parse + nghịch đảo ma trận (Gauss mod 2 và mod 13).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx1g" })
+public class HillBenchmark {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    @Param({ "2", "4", "8", "16" })
+    public int keySize;
+
+    @Param({ "67108864" })
+    public int size;
+
+    private HillCipher cipher;
+    private String key;
+    private byte[] text;
+    private byte[] output;
+
+    @Setup
+    public void setup() {
+        cipher = new HillCipher();
+        key = HillKey.generate(keySize, new SecureRandom()).toString();
+        text = Payloads.randomText(size).getBytes(StandardCharsets.US_ASCII);
+        output = new byte[CHUNK_SIZE + 1024];
+    }
+
+    @Benchmark
+    public int encryptStream() {
+        TextStreamCipher stream = cipher.newEncryptor(key);
+        int total = 0;
+        for (int offset = 0; offset < text.length; offset += CHUNK_SIZE) {
+            total += stream.update(text, offset, Math.min(CHUNK_SIZE, text.length - offset), output, 0);
+        }
+        return total + stream.doFinal(output, 0);
+    }
+
+    @Benchmark
+    public HillKey compileKey() {
+        return HillKey.parse(key);
+    }
+}
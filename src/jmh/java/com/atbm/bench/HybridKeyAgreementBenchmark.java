@@ -0,0 +1,62 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.asymmetric.AsymmetricEncryption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+// Số thao tác/giây của hybrid RSA (bọc khóa AES bằng RSA) so với ECIES (ECDH + HKDF) với payload nhỏ,
+// nơi chi phí phép toán khóa công khai chiếm gần hết thời gian
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HybridKeyAgreementBenchmark {
+    @Param({ "RSA-2048", "RSA-4096", "ECIES-X25519", "ECIES-P256" })
+    public String scheme;
+
+    @Param({ "1024" })
+    public int size;
+
+    private EncryptionAlgorithm algorithm;
+    private KeyPair keyPair;
+    private byte[] plain;
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        if (scheme.startsWith("RSA-")) {
+            algorithm = EncryptionAlgorithmFactory.createAlgorithmForKeyGen("rsa",
+                    Integer.parseInt(scheme.substring(4)));
+        } else {
+            algorithm = EncryptionAlgorithmFactory.createAlgorithm(scheme);
+        }
+        keyPair = ((AsymmetricEncryption) algorithm).generateKeyPair();
+        plain = Payloads.randomBytes(size);
+        encrypted = algorithm.encrypt(plain, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return algorithm.encrypt(plain, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return algorithm.decrypt(encrypted, keyPair.getPrivate());
+    }
+}
@@ -0,0 +1,54 @@
+package com.atbm.bench;
+
+import com.atbm.core.hash.MacAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+// Số message/giây khi tính MAC cho các message nhỏ: Mac lấy từ pool theo thread (pooled)
+// so với Mac.getInstance cho mỗi message (newInstance)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MacBenchmark {
+    @Param({ "HmacSHA256", "HmacSHA512", "Poly1305", "KMAC128", "KMAC256" })
+    public String algorithm;
+
+    @Param({ "64", "1024" })
+    public int size;
+
+    private SecretKey key;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws Exception {
+        key = MacAlgorithm.generateKey(algorithm);
+        data = Payloads.randomBytes(size);
+    }
+
+    @Benchmark
+    public byte[] pooled() throws Exception {
+        return MacAlgorithm.mac(algorithm, key, data);
+    }
+
+    @Benchmark
+    public byte[] newInstance() throws Exception {
+        Mac mac = Mac.getInstance(algorithm);
+        mac.init(key);
+        return mac.doFinal(data);
+    }
+}
@@ -0,0 +1,28 @@
+package com.atbm.bench;
+
+import java.util.Random;
+
+// Dữ liệu đầu vào cố định cho các benchmark, sinh từ seed để các lần chạy so sánh được với nhau
+final class Payloads {
+    private static final long SEED = 42;
+
+    private Payloads() {
+    }
+
+    static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(SEED).nextBytes(data);
+        return data;
+    }
+
+    // Văn bản chữ cái và khoảng trắng cho các thuật toán cổ điển
+    static String randomText(int size) {
+        Random random = new Random(SEED);
+        char[] text = new char[size];
+        for (int i = 0; i < size; i++) {
+            int r = random.nextInt(27);
+            text[i] = r == 26 ? ' ' : (char) ('A' + r);
+        }
+        return new String(text);
+    }
+}
@@ -0,0 +1,69 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.asymmetric.AsymmetricEncryption;
+import com.atbm.core.encryption.asymmetric.RSAHybridEncryption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+// RSAEncryption (tự chuyển sang hybrid khi dữ liệu vượt ngưỡng RSA) và RSAHybridEncryption trực tiếp
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RsaBenchmark {
+    @Param({ "1024", "2048", "4096" })
+    public int keySize;
+
+    @Param({ "16", "1024", "65536", "1048576", "67108864" })
+    public int size;
+
+    private EncryptionAlgorithm rsa;
+    private KeyPair keyPair;
+    private byte[] plain;
+    private byte[] encrypted;
+    private byte[] hybridEncrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        rsa = EncryptionAlgorithmFactory.createAlgorithmForKeyGen("rsa", keySize);
+        keyPair = ((AsymmetricEncryption) rsa).generateKeyPair();
+        plain = Payloads.randomBytes(size);
+        encrypted = rsa.encrypt(plain, keyPair.getPublic());
+        hybridEncrypted = RSAHybridEncryption.encrypt(plain, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] rsaEncrypt() throws Exception {
+        return rsa.encrypt(plain, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] rsaDecrypt() throws Exception {
+        return rsa.decrypt(encrypted, keyPair.getPrivate());
+    }
+
+    @Benchmark
+    public byte[] hybridEncrypt() throws Exception {
+        return RSAHybridEncryption.encrypt(plain, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] hybridDecrypt() throws Exception {
+        return RSAHybridEncryption.decrypt(hybridEncrypted, keyPair.getPrivate());
+    }
+}
@@ -0,0 +1,63 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.asymmetric.RSAEncryption;
+import com.atbm.core.encryption.asymmetric.RSAHybridEncryption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.crypto.Cipher;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+// Độ trễ giải mã bản mã hybrid qua RSAEncryption: chọn đường bằng magic number (hiện tại)
+// so với cách cũ thử RSA trực tiếp trước rồi mới dùng hybrid khi có exception
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RsaDispatchBenchmark {
+    @Param({ "2048", "4096" })
+    public int keySize;
+
+    @Param({ "1024", "65536" })
+    public int size;
+
+    private RSAEncryption rsa;
+    private KeyPair keyPair;
+    private byte[] hybridEncrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        rsa = (RSAEncryption) EncryptionAlgorithmFactory.createAlgorithmForKeyGen("rsa", keySize);
+        keyPair = rsa.generateKeyPair();
+        hybridEncrypted = rsa.encrypt(Payloads.randomBytes(size), keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] dispatchDecrypt() throws Exception {
+        return rsa.decrypt(hybridEncrypted, keyPair.getPrivate());
+    }
+
+    // Cách làm trước đây của decryptWithPrivateKey
+    @Benchmark
+    public byte[] trialDecrypt() throws Exception {
+        try {
+            Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+            cipher.init(Cipher.DECRYPT_MODE, keyPair.getPrivate());
+            return cipher.doFinal(hybridEncrypted);
+        } catch (Exception e) {
+            return RSAHybridEncryption.decrypt(hybridEncrypted, keyPair.getPrivate());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.atbm.bench;
+
+import com.atbm.core.signature.DigitalSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+// Số lần ký/xác minh mỗi giây của từng scheme với dữ liệu nhỏ (chi phí khóa công khai)
+// và 1MB (chi phí băm dữ liệu)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+    @Param({ "RSA-PSS", "ECDSA", "Ed25519" })
+    public String scheme;
+
+    @Param({ "1024", "1048576" })
+    public int size;
+
+    private KeyPair keyPair;
+    private byte[] data;
+    private byte[] signature;
+
+    @Setup
+    public void setup() throws Exception {
+        keyPair = DigitalSignature.generateKeyPair(scheme);
+        data = Payloads.randomBytes(size);
+        signature = DigitalSignature.sign(data, keyPair.getPrivate());
+    }
+
+    @Benchmark
+    public byte[] sign() throws Exception {
+        return DigitalSignature.sign(data, keyPair.getPrivate());
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return DigitalSignature.verify(data, signature, keyPair.getPublic());
+    }
+}
@@ -0,0 +1,83 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.symmetric.SymmetricEncryption;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.security.Key;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+// Thông lượng encrypt/decrypt của các thuật toán block qua EncryptionAlgorithm (đường code của giao diện).
+// Số byte/giây = ops/s * size.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymmetricBenchmark {
+    @Param({ "AES", "DES", "DESede", "Blowfish", "Twofish", "Camellia", "CAST5", "RC5" })
+    public String algorithm;
+
+    @Param({ "ECB", "CBC" })
+    public String mode;
+
+    @Param({ "PKCS5Padding", "NoPadding" })
+    public String padding;
+
+    @Param({ "16", "1024", "65536", "1048576", "67108864" })
+    public int size;
+
+    private EncryptionAlgorithm encryption;
+    private Key key;
+    private byte[] plain;
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        encryption = EncryptionAlgorithmFactory.createAlgorithmForOperation(algorithm, mode, padding,
+                defaultKeySize(algorithm));
+        key = ((SymmetricEncryption) encryption).generateKey();
+        plain = Payloads.randomBytes(size);
+        encrypted = encryption.encrypt(plain, key);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return encryption.encrypt(plain, key);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return encryption.decrypt(encrypted, key);
+    }
+
+    // Kích thước key mặc định giống EncryptionAlgorithmFactory.createAlgorithm
+    private static int defaultKeySize(String algorithm) {
+        switch (algorithm) {
+            case "DES":
+                return 56;
+            case "DESede":
+                return 168;
+            case "CAST5":
+            case "RC5":
+            case "Blowfish":
+                return 128;
+            default:
+                return 256;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.traditional.TraditionalEncryption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+// Thông lượng các thuật toán cổ điển qua API văn bản (đường code của TextEncryptionPanel)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraditionalBenchmark {
+    @Param({ "Caesar", "Vigenere", "Monoalphabetic", "Affine", "Hill" })
+    public String algorithm;
+
+    @Param({ "16", "1024", "65536", "1048576", "67108864" })
+    public int size;
+
+    private TraditionalEncryption encryption;
+    private String key;
+    private String plain;
+    private String encrypted;
+
+    @Setup
+    public void setup() {
+        encryption = (TraditionalEncryption) EncryptionAlgorithmFactory.createAlgorithm(algorithm);
+        key = keyFor(algorithm);
+        plain = Payloads.randomText(size);
+        encrypted = encryption.encrypt(plain, key);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryption.encrypt(plain, key);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryption.decrypt(encrypted, key);
+    }
+
+    // Key cố định theo định dạng của KeyUtils.generateTraditionalKey
+    private static String keyFor(String algorithm) {
+        switch (algorithm) {
+            case "Caesar":
+                return "3";
+            case "Vigenere":
+                return "LEMON";
+            case "Monoalphabetic":
+                return "QWERTYUIOPASDFGHJKLZXCVBNM";
+            case "Affine":
+                return "5,8";
+            default:
+                return "3,3,2,5";
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.atbm.bench;
+
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.traditional.SubstitutionCipher;
+import com.atbm.core.encryption.traditional.TranslationTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Thời gian xử lý một corpus văn bản 100 MB bằng bảng thay thế đã biên dịch, ghi vào buffer có sẵn
+// (không cấp phát trong vòng đo). So với TraditionalBenchmark để thấy chi phí của API String.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class TranslationTableBenchmark {
+    @Param({ "Caesar", "Vigenere", "Monoalphabetic", "Affine" })
+    public String algorithm;
+
+    @Param({ "104857600" })
+    public int size;
+
+    private TranslationTable table;
+    private byte[] bytes;
+    private byte[] bytesOut;
+    private char[] chars;
+    private char[] charsOut;
+
+    @Setup
+    public void setup() {
+        SubstitutionCipher cipher = (SubstitutionCipher) EncryptionAlgorithmFactory.createAlgorithm(algorithm);
+        table = cipher.getEncryptTable(keyFor(algorithm));
+        String corpus = Payloads.randomText(size);
+        bytes = corpus.getBytes(StandardCharsets.US_ASCII);
+        bytesOut = new byte[size];
+        chars = corpus.toCharArray();
+        charsOut = new char[size];
+    }
+
+    @Benchmark
+    public byte[] translateBytes() {
+        table.apply(bytes, 0, bytes.length, bytesOut, 0, 0);
+        return bytesOut;
+    }
+
+    @Benchmark
+    public char[] translateChars() {
+        table.apply(chars, 0, chars.length, charsOut, 0, 0);
+        return charsOut;
+    }
+
+    private static String keyFor(String algorithm) {
+        switch (algorithm) {
+            case "Caesar":
+                return "3";
+            case "Vigenere":
+                return "LEMON";
+            case "Monoalphabetic":
+                return "QWERTYUIOPASDFGHJKLZXCVBNM";
+            default:
+                return "5,8";
+        }
+    }
+}
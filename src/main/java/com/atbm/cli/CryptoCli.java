@@ -0,0 +1,934 @@
+package com.atbm.cli;
+
+import com.atbm.core.cryptanalysis.ClassicalCryptanalysis;
+import com.atbm.core.cryptanalysis.QuadgramModel;
+import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.asymmetric.AsymmetricEncryption;
+import com.atbm.core.encryption.asymmetric.ECIESEncryption;
+import com.atbm.core.encryption.asymmetric.ECIESHybridEncryption;
+import com.atbm.core.encryption.asymmetric.RSAHybridEncryption;
+import com.atbm.core.encryption.symmetric.SegmentedFileEncryption;
+import com.atbm.core.encryption.symmetric.SymmetricEncryption;
+import com.atbm.core.encryption.traditional.HillCipher;
+import com.atbm.core.encryption.traditional.TraditionalEncryption;
+import com.atbm.core.hash.HashAlgorithm;
+import com.atbm.core.hash.HashManifest;
+import com.atbm.core.hash.MacAlgorithm;
+import com.atbm.core.hash.TreeHash;
+import com.atbm.core.key.KeyManager;
+import com.atbm.core.key.KeyPairPool;
+import com.atbm.core.signature.BatchVerifier;
+import com.atbm.core.signature.DigitalSignature;
+import com.atbm.utils.BatchFileProcessor;
+import com.atbm.utils.CipherCache;
+import com.atbm.utils.FileUtils;
+import com.atbm.utils.HexUtils;
+import com.atbm.utils.KeyUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Giao diện dòng lệnh không dùng Swing/AWT, chạy được trong cron job và pipeline shell:
+//   java -cp ATBM_Tool-1.0-SNAPSHOT-jar-with-dependencies.jar com.atbm.cli.CryptoCli <lệnh> [tùy chọn]
+// File mã hóa có cùng định dạng với FileEncryptionPanel nên giải mã được ở cả hai phía.
+public class CryptoCli {
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_FAILURE = 1;
+    private static final int EXIT_USAGE = 2;
+
+    // "-" hoặc bỏ trống -i/-o nghĩa là stdin/stdout
+    private static final String STDIO = "-";
+
+    private static final String USAGE = String.join("\n",
+            "Cách dùng: CryptoCli <lệnh> [tùy chọn]",
+            "",
+            "Lệnh:",
+            "  encrypt  -a <thuật toán> -k <file key> [-i <vào>] [-o <ra>] [-m <mode>] [-p <padding>] [--segmented]",
+            "  decrypt  -a <thuật toán> -k <file key> [-i <vào>] [-o <ra>] [-m <mode>] [-p <padding>] [--segmented]",
+            "  hash     [-a <thuật toán>[,<thuật toán>...]] [--tree] [file|thư mục ...]",
+            "  manifest [-a <thuật toán>] -o <file manifest> [--incremental] [-j <số thread>] <thư mục>",
+            "  check    -i <file manifest> [--incremental] [-j <số thread>] <thư mục>",
+            "  mac      -a <thuật toán MAC> -k <file key> [file ...]",
+            "  keygen   -a <thuật toán> -o <đường dẫn> [-s <kích thước key>] [-n <số cặp key RSA>]",
+            "  sign     -a <chữ ký> -k <file .pri> [-o <file .sig>] <file ...>",
+            "  verify   -a <chữ ký> -k <file .pub> <file|thư mục ...>",
+            "  crack    -a <cổ điển> [-i <bản mã>] [-o <bản rõ>] [-j <số thread>] [-n <số lần leo đồi>] [-c <văn bản mẫu>]",
+            "",
+            "Tùy chọn:",
+            "  -k, --key        file key; mã hóa RSA cho nhiều người nhận: a.pub,b.pub,... (payload AES-GCM)",
+            "                   sign: nếu có file .pub cùng tên thì ghi key id của nó vào file .sig",
+            "  -i, --in         file hoặc thư mục đầu vào, '-' là stdin (mặc định)",
+            "  -o, --out        file hoặc thư mục đầu ra, '-' là stdout (mặc định);",
+            "                   sign: file chữ ký khi ký một file (mặc định <file>.sig)",
+            "  -m, --mode       ECB, CBC, CTR hoặc GCM (CTR/GCM với AES, Camellia, Twofish; với ECIES là",
+            "                   AES-GCM (mặc định) hoặc ChaCha20-Poly1305; với RSA là",
+            "                   mode của payload AES: CBC hoặc GCM; mặc định CBC)",
+            "  -p, --padding    PKCS5Padding hoặc NoPadding (mặc định PKCS5Padding)",
+            "  -j, --threads    số file xử lý song song khi đầu vào là thư mục hoặc khi verify",
+            "  -n, --count      keygen RSA: tạo n cặp key song song vào thư mục -o (RSA_<kích thước>_<i>.pub/.pri);",
+            "                   crack Monoalphabetic: số lần leo đồi từ key ngẫu nhiên (mặc định 32)",
+            "  -c, --corpus     crack: văn bản mẫu cùng ngôn ngữ với bản rõ để học bảng quadgram",
+            "                   (mặc định là văn bản tiếng Anh có sẵn)",
+            "  --segmented      mã hóa theo segment GCM, song song với file (GCM và ChaCha20-Poly1305 luôn",
+            "                   dùng segment)",
+            "  --tree           tree hash song song (SHA-256, SHA-512, BLAKE3-256)",
+            "  --incremental    manifest/check: bỏ qua file có kích thước và thời điểm sửa không đổi",
+            "                   so với lần tạo manifest trước (ghi trong <manifest>.meta)",
+            "  -q, --quiet      không in thống kê ra stderr",
+            "",
+            "Thuật toán: AES, DES, DESede, Blowfish, ChaCha20-Poly1305, Twofish, Camellia, CAST5, RC5, RSA,",
+            "            ECIES (khóa X25519 hoặc P-256; keygen: ECIES-X25519, ECIES-P256)",
+            "Cổ điển:    Caesar, Vigenere, Monoalphabetic, Affine, Hill (key là file văn bản; chỉ đổi chữ cái",
+            "            ASCII của văn bản, xử lý theo luồng nên file lớn không cần vừa bộ nhớ;",
+            "            keygen Hill: -s là kích thước ma trận n×n, mặc định 2;",
+            "            crack: Caesar, Affine, Vigenere, Monoalphabetic; bản rõ ra stdout, key ra stderr)",
+            "Chữ ký:     RSA-PSS, ECDSA (P-256), Ed25519 (keygen -a <chữ ký> tạo cặp key tương ứng)",
+            "MAC:        HmacSHA256, HmacSHA512, Poly1305 (key chỉ dùng cho một message), KMAC128, KMAC256");
+
+    private static final Set<String> FLAGS = Set.of("--segmented", "--tree", "--incremental", "-q", "--quiet");
+    private static final Map<String, String> ALIASES = Map.ofEntries(
+            Map.entry("--algorithm", "-a"), Map.entry("--key", "-k"), Map.entry("--in", "-i"),
+            Map.entry("--out", "-o"), Map.entry("--mode", "-m"), Map.entry("--padding", "-p"),
+            Map.entry("--size", "-s"), Map.entry("--threads", "-j"), Map.entry("--quiet", "-q"),
+            Map.entry("--count", "-n"), Map.entry("--corpus", "-c"));
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    // Chạy một lệnh và trả về exit code, không gọi System.exit để có thể dùng lại từ code khác
+    public static int run(String[] args) {
+        if (args.length == 0 || args[0].equals("-h") || args[0].equals("--help")) {
+            System.err.println(USAGE);
+            return args.length == 0 ? EXIT_USAGE : EXIT_OK;
+        }
+        try {
+            Options options = Options.parse(args);
+            switch (args[0].toLowerCase()) {
+                case "encrypt":
+                    return crypt(options, true);
+                case "decrypt":
+                    return crypt(options, false);
+                case "hash":
+                    return hash(options);
+                case "manifest":
+                    return manifest(options);
+                case "check":
+                    return check(options);
+                case "mac":
+                    return mac(options);
+                case "keygen":
+                    return keygen(options);
+                case "sign":
+                    return sign(options);
+                case "verify":
+                    return verify(options);
+                case "crack":
+                    return crack(options);
+                default:
+                    throw new IllegalArgumentException("Lệnh không hợp lệ: " + args[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Lỗi: " + e.getMessage());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (Exception e) {
+            System.err.println("Lỗi: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    // Tham số của một lần mã hóa/giải mã
+    private static class CryptJob {
+        final boolean encrypt;
+        final String algorithm;
+        final String mode;
+        final String padding;
+        final boolean segmented;
+        final Key key;
+        // Khóa công khai của mọi người nhận khi mã hóa RSA cho nhiều người, rỗng nếu chỉ có một
+        final List<PublicKey> recipients;
+
+        CryptJob(boolean encrypt, String algorithm, String mode, String padding, boolean segmented, Key key,
+                List<PublicKey> recipients) {
+            this.encrypt = encrypt;
+            this.algorithm = algorithm;
+            this.mode = mode;
+            this.padding = padding;
+            this.segmented = segmented;
+            this.key = key;
+            this.recipients = recipients;
+        }
+
+        boolean isRsa() {
+            return algorithm.equals("RSA");
+        }
+
+        boolean isEcies() {
+            return algorithm.equals("ECIES");
+        }
+
+        boolean isChaCha() {
+            return algorithm.equals("ChaCha20-Poly1305");
+        }
+
+        // GCM và ChaCha20-Poly1305 được mã hóa theo segment để bộ nhớ không tăng theo kích thước dữ liệu
+        boolean usesSegments() {
+            return segmented || isChaCha() || mode.equals("GCM");
+        }
+    }
+
+    private static int crypt(Options options, boolean encrypt) throws Exception {
+        EncryptionAlgorithm algorithm = EncryptionAlgorithmFactory.createAlgorithm(options.require("-a"));
+        if (algorithm instanceof TraditionalEncryption) {
+            return cryptTraditional((TraditionalEncryption) algorithm, options, encrypt);
+        }
+        if (!(algorithm instanceof SymmetricEncryption) && !(algorithm instanceof AsymmetricEncryption)) {
+            throw new IllegalArgumentException("Thuật toán " + algorithm.getName()
+                    + " chỉ hỗ trợ mã hóa văn bản trong giao diện đồ họa");
+        }
+        String name = algorithm.getName();
+        boolean ecies = algorithm instanceof ECIESEncryption;
+        String mode = options.get("-m", ecies ? ECIESHybridEncryption.PAYLOAD_AES_GCM : "CBC").toUpperCase();
+        if (algorithm instanceof SymmetricEncryption && !name.equals("ChaCha20-Poly1305")
+                && !Arrays.asList(algorithm.getSupportedModes()).contains(mode)) {
+            throw new IllegalArgumentException("Mode không hợp lệ cho " + name + ": " + mode);
+        }
+        if (ecies && !mode.equals("GCM") && Arrays.stream(algorithm.getSupportedModes())
+                .noneMatch(payload -> payload.equalsIgnoreCase(mode))) {
+            throw new IllegalArgumentException("Payload ECIES chỉ hỗ trợ AES-GCM hoặc ChaCha20-Poly1305: " + mode);
+        }
+        if (algorithm instanceof AsymmetricEncryption && !ecies && !mode.equals("CBC") && !mode.equals("GCM")) {
+            throw new IllegalArgumentException("Payload RSA hybrid chỉ hỗ trợ mode CBC hoặc GCM: " + mode);
+        }
+        String padding = options.get("-p", "PKCS5Padding");
+        boolean segmented = options.has("--segmented");
+        if (segmented && !SegmentedFileEncryption.isSupported(name)) {
+            throw new IllegalArgumentException("--segmented chỉ hỗ trợ AES, Camellia, Twofish và ChaCha20-Poly1305");
+        }
+        String[] keyPaths = options.require("-k").split(",");
+        List<PublicKey> recipients = new ArrayList<>();
+        if (keyPaths.length > 1) {
+            if (!encrypt || !name.equals("RSA")) {
+                throw new IllegalArgumentException("Nhiều file key chỉ dùng khi mã hóa RSA cho nhiều người nhận");
+            }
+            for (String keyPath : keyPaths) {
+                recipients.add((PublicKey) KeyManager.loadKeyForOperation(keyPath, name, true));
+            }
+        }
+        Key key = KeyManager.loadKeyForOperation(keyPaths[0], name, encrypt);
+        CryptJob job = new CryptJob(encrypt, name, mode, padding, segmented, key, recipients);
+
+        String in = options.get("-i", STDIO);
+        String out = options.get("-o", STDIO);
+        if (!in.equals(STDIO) && new File(in).isDirectory()) {
+            if (out.equals(STDIO)) {
+                throw new IllegalArgumentException("Đầu vào là thư mục thì cần -o là thư mục đầu ra");
+            }
+            return cryptDirectory(job, new File(in), new File(out), options);
+        }
+        if (!in.equals(STDIO) && !out.equals(STDIO)) {
+            cryptFile(job, new File(in), new File(out), null);
+            return EXIT_OK;
+        }
+        try (InputStream input = new BufferedInputStream(
+                in.equals(STDIO) ? new FileInputStream(FileDescriptor.in) : new FileInputStream(in));
+                OutputStream output = out.equals(STDIO) ? new FileOutputStream(FileDescriptor.out)
+                        : new FileOutputStream(out)) {
+            cryptStream(job, input, output);
+        }
+        return EXIT_OK;
+    }
+
+    // Thuật toán cổ điển: key là file văn bản, dữ liệu xử lý theo luồng nên file lớn không cần đọc hết
+    private static int cryptTraditional(TraditionalEncryption algorithm, Options options, boolean encrypt)
+            throws Exception {
+        String key = KeyUtils.readTraditionalKey(new File(options.require("-k")));
+        // Kiểm tra key trước khi mở file đầu ra
+        algorithm.newEncryptor(key);
+        String in = options.get("-i", STDIO);
+        String out = options.get("-o", STDIO);
+        if (!in.equals(STDIO) && new File(in).isDirectory()) {
+            if (out.equals(STDIO)) {
+                throw new IllegalArgumentException("Đầu vào là thư mục thì cần -o là thư mục đầu ra");
+            }
+            int threads = options.getInt("-j", Runtime.getRuntime().availableProcessors());
+            BatchFileProcessor.BatchResult result = BatchFileProcessor.processDirectory(new File(in),
+                    new File(out), (input, output, progress) -> cryptTraditionalFile(algorithm, key, encrypt, input,
+                            output, progress),
+                    threads, null);
+            for (Map.Entry<File, Exception> failure : result.getFailures().entrySet()) {
+                System.err.println("Lỗi: " + failure.getKey().getPath() + ": " + failure.getValue().getMessage());
+            }
+            if (!options.has("-q")) {
+                System.err.printf("%d/%d file, %s, %d ms, %.1f MB/s%n", result.getSucceededFiles(),
+                        result.getTotalFiles(), FileUtils.formatFileSize(result.getProcessedBytes()),
+                        result.getElapsedNanos() / 1_000_000, result.getThroughputMBps());
+            }
+            return result.getFailures().isEmpty() ? EXIT_OK : EXIT_FAILURE;
+        }
+        if (!in.equals(STDIO) && !out.equals(STDIO)) {
+            cryptTraditionalFile(algorithm, key, encrypt, new File(in), new File(out), null);
+            return EXIT_OK;
+        }
+        try (InputStream input = in.equals(STDIO) ? new FileInputStream(FileDescriptor.in) : new FileInputStream(in);
+                OutputStream output = out.equals(STDIO) ? new FileOutputStream(FileDescriptor.out)
+                        : new FileOutputStream(out)) {
+            ReadableByteChannel inChannel = Channels.newChannel(input);
+            WritableByteChannel outChannel = Channels.newChannel(output);
+            if (encrypt) {
+                algorithm.encrypt(inChannel, outChannel, key);
+            } else {
+                algorithm.decrypt(inChannel, outChannel, key);
+            }
+        }
+        return EXIT_OK;
+    }
+
+    private static void cryptTraditionalFile(TraditionalEncryption algorithm, String key, boolean encrypt,
+            File input, File output, Consumer<Double> progress) throws IOException {
+        if (!input.isFile()) {
+            throw new FileNotFoundException("File đầu vào không tồn tại: " + input.getPath());
+        }
+        if (encrypt) {
+            algorithm.encryptFile(input, output, key, progress);
+        } else {
+            algorithm.decryptFile(input, output, key, progress);
+        }
+    }
+
+    private static int cryptDirectory(CryptJob job, File inputDir, File outputDir, Options options)
+            throws Exception {
+        int threads = options.getInt("-j", Runtime.getRuntime().availableProcessors());
+        BatchFileProcessor.BatchResult result = BatchFileProcessor.processDirectory(inputDir, outputDir,
+                (input, output, progress) -> cryptFile(job, input, output, progress), threads, null);
+        for (Map.Entry<File, Exception> failure : result.getFailures().entrySet()) {
+            System.err.println("Lỗi: " + failure.getKey().getPath() + ": " + failure.getValue().getMessage());
+        }
+        if (!options.has("-q")) {
+            System.err.printf("%d/%d file, %s, %d ms, %.1f MB/s%n", result.getSucceededFiles(),
+                    result.getTotalFiles(), FileUtils.formatFileSize(result.getProcessedBytes()),
+                    result.getElapsedNanos() / 1_000_000, result.getThroughputMBps());
+        }
+        return result.getFailures().isEmpty() ? EXIT_OK : EXIT_FAILURE;
+    }
+
+    // File -> file: dùng đường memory-mapped/segment giống FileEncryptionPanel
+    private static void cryptFile(CryptJob job, File input, File output, Consumer<Double> progress)
+            throws Exception {
+        if (!input.isFile()) {
+            throw new FileNotFoundException("File đầu vào không tồn tại: " + input.getPath());
+        }
+        if (job.isRsa()) {
+            if (job.encrypt && !job.recipients.isEmpty()) {
+                RSAHybridEncryption.encryptFileForRecipients(input, output, job.recipients);
+            } else if (job.encrypt) {
+                RSAHybridEncryption.encryptFile(input, output, (PublicKey) job.key, job.mode.equals("GCM"),
+                        RSAHybridEncryption.DEFAULT_BUFFER_SIZE);
+            } else {
+                RSAHybridEncryption.decryptFile(input, output, (PrivateKey) job.key);
+            }
+            return;
+        }
+        if (job.isEcies()) {
+            if (job.encrypt) {
+                ECIESHybridEncryption.encryptFile(input, output, (PublicKey) job.key, job.mode);
+            } else {
+                ECIESHybridEncryption.decryptFile(input, output, (PrivateKey) job.key);
+            }
+            return;
+        }
+        // File AEAD một lượt cũ (không có header segment) vẫn giải mã theo đường bên dưới
+        if (job.usesSegments() && (job.encrypt || SegmentedFileEncryption.isSegmented(input))) {
+            if (job.encrypt) {
+                SegmentedFileEncryption.encryptFile(input, output, (SecretKey) job.key, job.algorithm, progress);
+            } else {
+                SegmentedFileEncryption.decryptFile(input, output, (SecretKey) job.key, progress);
+            }
+            return;
+        }
+        Cipher cipher = Cipher.getInstance(getTransformation(job));
+        if (job.encrypt) {
+            initCipher(cipher, job, generateIv(cipher, job));
+            FileUtils.encryptFileMapped(input.getPath(), output.getPath(), cipher, job.isChaCha(), progress,
+                    job.mode);
+        } else {
+            byte[] iv = null;
+            int ivLength = getIvLength(cipher, job);
+            if (ivLength > 0) {
+                try (FileChannel channel = FileUtils.openInputChannel(input.getPath())) {
+                    iv = readIv(channel, ivLength);
+                }
+            }
+            initCipher(cipher, job, iv);
+            FileUtils.decryptFileMapped(input.getPath(), output.getPath(), cipher, job.isChaCha(), progress,
+                    job.mode);
+        }
+    }
+
+    // Stream (stdin/stdout, pipe): IV/nonce đi trước dữ liệu như trong file.
+    // input phải hỗ trợ mark/reset để nhận ra dữ liệu mã hóa phân đoạn.
+    private static void cryptStream(CryptJob job, InputStream input, OutputStream output) throws Exception {
+        if (job.isRsa()) {
+            if (job.encrypt && !job.recipients.isEmpty()) {
+                RSAHybridEncryption.encryptForRecipients(input, output, job.recipients,
+                        RSAHybridEncryption.DEFAULT_BUFFER_SIZE);
+            } else if (job.encrypt) {
+                RSAHybridEncryption.encrypt(input, output, (PublicKey) job.key, job.mode.equals("GCM"),
+                        RSAHybridEncryption.DEFAULT_BUFFER_SIZE);
+            } else {
+                RSAHybridEncryption.decrypt(input, output, (PrivateKey) job.key);
+            }
+            return;
+        }
+        if (job.isEcies()) {
+            if (job.encrypt) {
+                ECIESHybridEncryption.encrypt(input, output, (PublicKey) job.key, job.mode,
+                        RSAHybridEncryption.DEFAULT_BUFFER_SIZE);
+            } else {
+                ECIESHybridEncryption.decrypt(input, output, (PrivateKey) job.key);
+            }
+            return;
+        }
+        ReadableByteChannel in = Channels.newChannel(input);
+        WritableByteChannel out = Channels.newChannel(output);
+        if (job.usesSegments() && (job.encrypt || SegmentedFileEncryption.isSegmented(input))) {
+            if (job.encrypt) {
+                SegmentedFileEncryption.encrypt(in, out, (SecretKey) job.key, job.algorithm);
+            } else {
+                SegmentedFileEncryption.decrypt(in, out, (SecretKey) job.key);
+            }
+            return;
+        }
+        Cipher cipher = Cipher.getInstance(getTransformation(job));
+        if (job.encrypt) {
+            byte[] iv = generateIv(cipher, job);
+            initCipher(cipher, job, iv);
+            if (iv != null) {
+                FileUtils.writeFully(out, ByteBuffer.wrap(iv));
+            }
+        } else {
+            int ivLength = getIvLength(cipher, job);
+            initCipher(cipher, job, ivLength > 0 ? readIv(in, ivLength) : null);
+        }
+        FileUtils.transform(in, out, cipher, 0, null);
+    }
+
+    private static String getTransformation(CryptJob job) {
+        if (job.isChaCha()) {
+            return job.algorithm;
+        }
+        // CTR và GCM không dùng padding
+        String padding = job.mode.equals("CTR") || job.mode.equals("GCM") ? "NoPadding" : job.padding;
+        return job.algorithm + "/" + job.mode + "/" + padding;
+    }
+
+    // Độ dài IV/nonce ở đầu dữ liệu mã hóa, 0 với ECB
+    private static int getIvLength(Cipher cipher, CryptJob job) {
+        if (job.isChaCha()) {
+            return 12;
+        }
+        if (job.mode.equals("GCM")) {
+            return SymmetricEncryption.GCM_IV_LENGTH;
+        }
+        return job.mode.equals("CBC") || job.mode.equals("CTR") ? cipher.getBlockSize() : 0;
+    }
+
+    private static byte[] generateIv(Cipher cipher, CryptJob job) {
+        int ivLength = getIvLength(cipher, job);
+        if (ivLength == 0) {
+            return null;
+        }
+        byte[] iv = new byte[ivLength];
+        CipherCache.secureRandom().nextBytes(iv);
+        return iv;
+    }
+
+    private static void initCipher(Cipher cipher, CryptJob job, byte[] iv) throws Exception {
+        int opmode = job.encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE;
+        if (iv == null) {
+            cipher.init(opmode, job.key);
+        } else if (job.mode.equals("GCM") && !job.isChaCha()) {
+            cipher.init(opmode, job.key, new GCMParameterSpec(SymmetricEncryption.GCM_TAG_BITS, iv));
+        } else {
+            cipher.init(opmode, job.key, new IvParameterSpec(iv));
+        }
+    }
+
+    private static byte[] readIv(ReadableByteChannel channel, int ivLength) throws IOException {
+        ByteBuffer iv = ByteBuffer.allocate(ivLength);
+        if (FileUtils.readFully(channel, iv) != ivLength) {
+            throw new IOException("Dữ liệu không hợp lệ: không thể đọc IV");
+        }
+        return iv.array();
+    }
+
+    private static int hash(Options options) throws Exception {
+        String[] algorithms = options.get("-a", "SHA-256").split(",");
+        boolean tree = options.has("--tree");
+        if (tree && algorithms.length != 1) {
+            throw new IllegalArgumentException("--tree chỉ nhận một thuật toán");
+        }
+        List<String> inputs = new ArrayList<>(options.positional);
+        if (options.has("-i")) {
+            inputs.add(options.get("-i", STDIO));
+        }
+        if (inputs.isEmpty()) {
+            inputs.add(STDIO);
+        }
+
+        PrintStream out = System.out;
+        int exitCode = EXIT_OK;
+        for (String input : inputs) {
+            List<Path> files = new ArrayList<>();
+            if (input.equals(STDIO)) {
+                if (tree) {
+                    throw new IllegalArgumentException("--tree cần đầu vào là file");
+                }
+                printHashes(out, algorithms, HashAlgorithm.hashAll(
+                        Channels.newChannel(new FileInputStream(FileDescriptor.in)), algorithms), STDIO);
+                continue;
+            } else if (new File(input).isDirectory()) {
+                try (Stream<Path> walk = Files.walk(new File(input).toPath())) {
+                    files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+            } else {
+                files.add(new File(input).toPath());
+            }
+            for (Path path : files) {
+                try {
+                    if (tree) {
+                        TreeHash.Result result = TreeHash.hashFile(path.toFile(), algorithms[0], null);
+                        out.println(result + "  " + path);
+                        if (!options.has("-q")) {
+                            System.err.printf("%s: %.1f MB/s%n", path, result.getThroughputMBps());
+                        }
+                    } else {
+                        printHashes(out, algorithms, HashAlgorithm.hashFile(path.toFile(), algorithms),
+                                path.toString());
+                    }
+                } catch (Exception e) {
+                    System.err.println("Lỗi: " + path + ": " + e.getMessage());
+                    exitCode = EXIT_FAILURE;
+                }
+            }
+        }
+        out.flush();
+        return exitCode;
+    }
+
+    // Tạo manifest kiểu sha256sum cho cả thư mục, đường dẫn trong manifest tương đối với thư mục đó
+    private static int manifest(Options options) throws Exception {
+        File directory = requireDirectory(options);
+        File manifest = new File(options.require("-o"));
+        HashManifest.ManifestResult result = HashManifest.create(directory, manifest,
+                options.get("-a", HashManifest.DEFAULT_ALGORITHM), options.has("--incremental"),
+                options.getInt("-j", Runtime.getRuntime().availableProcessors()), null);
+        for (Map.Entry<String, Exception> failure : result.getFailures().entrySet()) {
+            System.err.println("Lỗi: " + failure.getKey() + ": " + failure.getValue().getMessage());
+        }
+        if (!options.has("-q")) {
+            System.err.printf("%s: %d file (%d hash, %d không đổi), %s trong %.2f s; %.1f MB/s, %.0f file/s%n",
+                    manifest, result.getTotalFiles(), result.getHashedFiles(), result.getReusedFiles(),
+                    FileUtils.formatFileSize(result.getTotalBytes()), result.getElapsedNanos() / 1e9,
+                    result.getThroughputMBps(), result.getFilesPerSecond());
+        }
+        return result.getFailures().isEmpty() ? EXIT_OK : EXIT_FAILURE;
+    }
+
+    // Kiểm tra thư mục theo manifest, in "đường dẫn: FAILED" như sha256sum -c (chỉ in file có vấn đề)
+    private static int check(Options options) throws Exception {
+        File directory = requireDirectory(options);
+        HashManifest.VerifyResult result = HashManifest.verify(directory, new File(options.require("-i")),
+                options.has("--incremental"), options.getInt("-j", Runtime.getRuntime().availableProcessors()),
+                null);
+        PrintStream out = System.out;
+        for (String path : result.getFailed()) {
+            out.println(path + ": FAILED");
+        }
+        for (String path : result.getMissing()) {
+            out.println(path + ": MISSING");
+        }
+        for (Map.Entry<String, Exception> error : result.getErrors().entrySet()) {
+            out.println(error.getKey() + ": ERROR (" + error.getValue().getMessage() + ")");
+        }
+        for (String path : result.getAdded()) {
+            out.println(path + ": NEW");
+        }
+        out.flush();
+        if (!options.has("-q")) {
+            System.err.printf("%d file: %d khớp, %d không đổi, %d sai, %d thiếu, %d lỗi, %d file mới; "
+                    + "%.2f s, %.1f MB/s, %.0f file/s%n", result.getTotalFiles(), result.getOkFiles(),
+                    result.getUnchangedFiles(), result.getFailed().size(), result.getMissing().size(),
+                    result.getErrors().size(), result.getAdded().size(), result.getElapsedNanos() / 1e9,
+                    result.getThroughputMBps(), result.getFilesPerSecond());
+        }
+        return result.isAllValid() ? EXIT_OK : EXIT_FAILURE;
+    }
+
+    private static File requireDirectory(Options options) {
+        if (options.positional.size() != 1) {
+            throw new IllegalArgumentException("Cần đúng một thư mục");
+        }
+        File directory = new File(options.positional.get(0));
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("Không phải thư mục: " + directory);
+        }
+        return directory;
+    }
+
+    // MAC từng file (hoặc stdin), in "mac  đường dẫn" như lệnh hash
+    private static int mac(Options options) throws Exception {
+        String name = options.require("-a");
+        String algorithm = MacAlgorithm.findAlgorithm(name);
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Thuật toán MAC không hợp lệ: " + name
+                    + ". Hỗ trợ: HmacSHA256, HmacSHA512, Poly1305, KMAC128, KMAC256.");
+        }
+        List<String> inputs = new ArrayList<>(options.positional);
+        if (options.has("-i")) {
+            inputs.add(options.get("-i", STDIO));
+        }
+        if (inputs.isEmpty()) {
+            inputs.add(STDIO);
+        }
+        // Hai message cùng key Poly1305 cho phép giả mạo tag, nên một lệnh chỉ được MAC một đầu vào
+        if (algorithm.equals(MacAlgorithm.POLY1305) && inputs.size() > 1) {
+            throw new IllegalArgumentException("Key Poly1305 chỉ dùng cho một message, không thể MAC "
+                    + inputs.size() + " đầu vào bằng cùng một key");
+        }
+        SecretKey key = KeyManager.loadSecretKey(options.require("-k"), algorithm);
+        PrintStream out = System.out;
+        int exitCode = EXIT_OK;
+        for (String input : inputs) {
+            try {
+                byte[] mac = input.equals(STDIO)
+                        ? MacAlgorithm.mac(algorithm, key, Channels.newChannel(new FileInputStream(FileDescriptor.in)))
+                        : MacAlgorithm.macFile(new File(input), algorithm, key);
+                out.println(HexUtils.encode(mac) + "  " + input);
+            } catch (Exception e) {
+                System.err.println("Lỗi: " + input + ": " + e.getMessage());
+                exitCode = EXIT_FAILURE;
+            }
+        }
+        out.flush();
+        return exitCode;
+    }
+
+    // Một thuật toán: "hash  đường dẫn" như sha256sum; nhiều thuật toán: "ALGO (đường dẫn) = hash"
+    private static void printHashes(PrintStream out, String[] algorithms, Map<String, String> hashes,
+            String path) {
+        if (algorithms.length == 1) {
+            out.println(hashes.get(algorithms[0]) + "  " + path);
+            return;
+        }
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            out.println(entry.getKey() + " (" + path + ") = " + entry.getValue());
+        }
+    }
+
+    private static int keygen(Options options) throws Exception {
+        String algorithmName = options.require("-a");
+        String output = options.require("-o");
+        String macAlgorithm = MacAlgorithm.findAlgorithm(algorithmName);
+        if (macAlgorithm != null) {
+            String keyPath = output.toLowerCase().endsWith(".key") ? output : output + ".key";
+            KeyManager.saveKey(MacAlgorithm.generateKey(macAlgorithm), keyPath);
+            System.err.println("Đã lưu key " + macAlgorithm + ": " + keyPath);
+            return EXIT_OK;
+        }
+        String signatureScheme = findSignatureScheme(algorithmName);
+        if (signatureScheme != null) {
+            KeyPair keyPair = DigitalSignature.generateKeyPair(signatureScheme);
+            KeyManager.saveKeyPair(keyPair, output + ".pub", output + ".pri");
+            System.err.println("Đã lưu cặp key " + signatureScheme + ": " + output + ".pub, " + output + ".pri");
+            return EXIT_OK;
+        }
+        EncryptionAlgorithm algorithm = options.has("-s")
+                ? EncryptionAlgorithmFactory.createAlgorithmForKeyGen(algorithmName, options.getInt("-s", 0))
+                : EncryptionAlgorithmFactory.createAlgorithm(algorithmName);
+
+        if (algorithm instanceof SymmetricEncryption) {
+            String keyPath = output.toLowerCase().endsWith(".key") ? output : output + ".key";
+            SecretKey key = ((SymmetricEncryption) algorithm).generateKey();
+            KeyManager.saveKey(key, keyPath);
+            System.err.println("Đã lưu key: " + keyPath);
+        } else if (algorithm instanceof AsymmetricEncryption && options.has("-n")) {
+            if (!algorithm.getName().equals("RSA")) {
+                throw new IllegalArgumentException("-n chỉ hỗ trợ tạo hàng loạt cặp key RSA");
+            }
+            int keySize = options.getInt("-s", 2048);
+            int count = options.getInt("-n", 1);
+            long start = System.nanoTime();
+            List<File> publicFiles = KeyPairPool.generateToDirectory(new File(output),
+                    algorithm.getName() + "_" + keySize, keySize, count, null);
+            if (!options.has("-q")) {
+                System.err.printf("Đã tạo %d cặp key %s %d bit trong %s (%.2f s)%n", publicFiles.size(),
+                        algorithm.getName(), keySize, output, (System.nanoTime() - start) / 1e9);
+            }
+        } else if (algorithm instanceof TraditionalEncryption) {
+            // Cùng định dạng với file key văn bản của KeyGenPanel
+            String keyPath = output.toLowerCase().endsWith(".key") ? output : output + ".key";
+            // Hill: -s là kích thước ma trận n (mặc định 2×2)
+            String key = algorithm instanceof HillCipher ? KeyUtils.generateHillKey(options.getInt("-s", 2))
+                    : KeyUtils.generateTraditionalKey(algorithm.getName());
+            Files.write(Path.of(keyPath), key.getBytes(StandardCharsets.UTF_8));
+            System.err.println("Đã lưu key: " + keyPath);
+        } else if (algorithm instanceof AsymmetricEncryption) {
+            KeyPair keyPair = ((AsymmetricEncryption) algorithm).generateKeyPair();
+            KeyManager.saveKeyPair(keyPair, output + ".pub", output + ".pri");
+            System.err.println("Đã lưu cặp key: " + output + ".pub, " + output + ".pri");
+        } else {
+            throw new IllegalArgumentException("Không hỗ trợ tạo file key cho thuật toán " + algorithm.getName());
+        }
+        return EXIT_OK;
+    }
+
+    // Ký từng file, chữ ký tách rời ghi vào <file>.sig (hoặc -o khi chỉ ký một file)
+    private static int sign(Options options) throws Exception {
+        String scheme = requireSignatureScheme(options);
+        String keyPath = options.require("-k");
+        List<String> inputs = new ArrayList<>(options.positional);
+        if (options.has("-i")) {
+            inputs.add(options.get("-i", STDIO));
+        }
+        if (inputs.isEmpty() || inputs.contains(STDIO)) {
+            throw new IllegalArgumentException("sign cần đầu vào là file");
+        }
+        if (options.has("-o") && inputs.size() != 1) {
+            throw new IllegalArgumentException("-o chỉ dùng khi ký một file");
+        }
+        String keyAlgorithm = DigitalSignature.getKeyAlgorithm(scheme);
+        PrivateKey privateKey = KeyManager.loadPrivateKey(keyPath, keyAlgorithm);
+        // Khóa công khai cùng tên (a.pri -> a.pub) chỉ dùng để ghi key id
+        File publicFile = new File(keyPath.replaceFirst("\\.pri$", "") + ".pub");
+        PublicKey publicKey = publicFile.isFile() ? KeyManager.loadPublicKey(publicFile.getPath(), keyAlgorithm) : null;
+
+        int exitCode = EXIT_OK;
+        for (String input : inputs) {
+            File file = new File(input);
+            File signatureFile = options.has("-o") ? new File(options.get("-o", null))
+                    : DigitalSignature.getSignatureFile(file);
+            try {
+                long start = System.nanoTime();
+                DigitalSignature.signFile(file, signatureFile, privateKey, publicKey);
+                if (!options.has("-q")) {
+                    System.err.printf("Đã ký %s -> %s (%.2f ms)%n", file, signatureFile,
+                            (System.nanoTime() - start) / 1e6);
+                }
+            } catch (Exception e) {
+                System.err.println("Lỗi: " + file + ": " + e.getMessage());
+                exitCode = EXIT_FAILURE;
+            }
+        }
+        return exitCode;
+    }
+
+    // Xác minh song song mọi file (thư mục: các file có .sig đi kèm), in kết quả và độ trễ từng file
+    // ra stdout, thống kê chung ra stderr. Exit code 1 nếu có file không hợp lệ.
+    private static int verify(Options options) throws Exception {
+        String scheme = requireSignatureScheme(options);
+        PublicKey publicKey = KeyManager.loadPublicKey(options.require("-k"), DigitalSignature.getKeyAlgorithm(scheme));
+        if (!DigitalSignature.getScheme(publicKey).equals(scheme)) {
+            throw new IllegalArgumentException("File key không phải khóa " + scheme);
+        }
+        List<String> inputs = new ArrayList<>(options.positional);
+        if (options.has("-i")) {
+            inputs.add(options.get("-i", STDIO));
+        }
+        if (inputs.isEmpty() || inputs.contains(STDIO)) {
+            throw new IllegalArgumentException("verify cần đầu vào là file hoặc thư mục");
+        }
+        List<File> files = new ArrayList<>();
+        for (String input : inputs) {
+            File file = new File(input);
+            if (file.isDirectory()) {
+                files.addAll(BatchVerifier.findSignedFiles(file));
+            } else {
+                files.add(file);
+            }
+        }
+
+        BatchVerifier.BatchVerification batch = BatchVerifier.verifyFiles(files, publicKey,
+                options.getInt("-j", Runtime.getRuntime().availableProcessors()), null);
+        PrintStream out = System.out;
+        for (BatchVerifier.FileVerification result : batch.getResults()) {
+            String status = result.isValid() ? "OK" : result.getError() == null ? "FAILED"
+                    : "ERROR (" + result.getError().getMessage() + ")";
+            out.printf("%s: %s  %.3f ms%n", result.getFile(), status, result.getNanos() / 1e6);
+        }
+        out.flush();
+        if (!options.has("-q")) {
+            System.err.printf("%d file: %d hợp lệ, %d sai chữ ký, %d lỗi; %s trong %.2f s%n",
+                    batch.getTotalFiles(), batch.getValidFiles(), batch.getInvalidFiles(), batch.getErrorFiles(),
+                    FileUtils.formatFileSize(batch.getTotalBytes()), batch.getElapsedNanos() / 1e9);
+            System.err.printf("Thông lượng: %.1f MB/s, %.0f file/s; độ trễ mỗi file: p50 %.3f ms, "
+                    + "p99 %.3f ms, max %.3f ms%n", batch.getThroughputMBps(), batch.getFilesPerSecond(),
+                    batch.getLatencyPercentile(50) / 1e6, batch.getLatencyPercentile(99) / 1e6,
+                    batch.getMaxLatency() / 1e6);
+        }
+        return batch.isAllValid() ? EXIT_OK : EXIT_FAILURE;
+    }
+
+    private static String requireSignatureScheme(Options options) {
+        String name = options.require("-a");
+        String scheme = findSignatureScheme(name);
+        if (scheme == null) {
+            throw new IllegalArgumentException("Thuật toán chữ ký không hợp lệ: " + name
+                    + ". Hỗ trợ: RSA-PSS, ECDSA, Ed25519.");
+        }
+        return scheme;
+    }
+
+    // Tên chuẩn của scheme chữ ký (không phân biệt hoa thường), null nếu không phải thuật toán chữ ký
+    private static String findSignatureScheme(String name) {
+        for (String scheme : DigitalSignature.getSupportedSchemes()) {
+            if (scheme.equalsIgnoreCase(name)) {
+                return scheme;
+            }
+        }
+        return null;
+    }
+
+    // Phá mã cổ điển chỉ từ bản mã: bản rõ ra -o (mặc định stdout), key và thống kê ra stderr
+    private static int crack(Options options) throws Exception {
+        String algorithm = null;
+        for (String name : new String[] { "Caesar", "Affine", "Vigenere", "Monoalphabetic" }) {
+            if (name.equalsIgnoreCase(options.require("-a"))) {
+                algorithm = name;
+            }
+        }
+        if (algorithm == null) {
+            throw new IllegalArgumentException("crack chỉ hỗ trợ Caesar, Affine, Vigenere, Monoalphabetic");
+        }
+        int threads = options.getInt("-j", Runtime.getRuntime().availableProcessors());
+        int restarts = options.getInt("-n", ClassicalCryptanalysis.DEFAULT_RESTARTS);
+        QuadgramModel model;
+        if (options.has("-c")) {
+            try (FileReader reader = new FileReader(options.require("-c"), StandardCharsets.UTF_8)) {
+                model = QuadgramModel.train(reader);
+            }
+        } else {
+            model = QuadgramModel.english();
+        }
+        String in = options.get("-i", STDIO);
+        String cipherText;
+        // Bọc BufferedInputStream: FileInputStream.readAllBytes của JDK 17 gọi seek và lỗi khi stdin là pipe
+        try (InputStream input = new BufferedInputStream(in.equals(STDIO) ? new FileInputStream(FileDescriptor.in)
+                : new FileInputStream(in))) {
+            cipherText = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        ClassicalCryptanalysis.Result result = ClassicalCryptanalysis.crack(algorithm, cipherText, model, threads,
+                restarts);
+        String out = options.get("-o", STDIO);
+        try (OutputStream output = out.equals(STDIO) ? new FileOutputStream(FileDescriptor.out)
+                : new FileOutputStream(out)) {
+            output.write(result.getPlainText().getBytes(StandardCharsets.UTF_8));
+        }
+        System.err.println("Khóa " + algorithm + ": " + result.getKey());
+        if (!options.has("-q")) {
+            for (ClassicalCryptanalysis.Candidate candidate : result.getCandidates()) {
+                System.err.printf("  %-28s %.1f%n", candidate.getKey(), candidate.getScore());
+            }
+            System.err.printf("%d key, %d thread, %.2f s, %.0f key/s%n", result.getTestedKeys(),
+                    result.getThreads(), result.getElapsedNanos() / 1e9, result.getCandidatesPerSecond());
+        }
+        return EXIT_OK;
+    }
+
+    // Tham số dòng lệnh: tùy chọn có giá trị, cờ, và tham số vị trí
+    private static class Options {
+        final Map<String, String> values = new HashMap<>();
+        final Set<String> flags = new HashSet<>();
+        final List<String> positional = new ArrayList<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                String name = ALIASES.getOrDefault(arg, arg);
+                if (FLAGS.contains(arg) || FLAGS.contains(name)) {
+                    options.flags.add(name);
+                } else if (arg.startsWith("-") && !arg.equals(STDIO)) {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Thiếu giá trị cho " + arg);
+                    }
+                    options.values.put(name, args[++i]);
+                } else {
+                    options.positional.add(arg);
+                }
+            }
+            return options;
+        }
+
+        boolean has(String name) {
+            return flags.contains(name) || values.containsKey(name);
+        }
+
+        String get(String name, String defaultValue) {
+            return values.getOrDefault(name, defaultValue);
+        }
+
+        String require(String name) {
+            String value = values.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Thiếu tùy chọn " + name);
+            }
+            return value;
+        }
+
+        int getInt(String name, int defaultValue) {
+            String value = values.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Giá trị của " + name + " phải là số: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package com.atbm.core.cryptanalysis;
+
+import com.atbm.core.encryption.traditional.AffineCipher;
+import com.atbm.core.encryption.traditional.CaesarCipher;
+import com.atbm.core.encryption.traditional.MonoalphabeticCipher;
+import com.atbm.core.encryption.traditional.SubstitutionCipher;
+import com.atbm.core.encryption.traditional.TranslationTable;
+import com.atbm.core.encryption.traditional.VigenereCipher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Phá mã các thuật toán cổ điển chỉ từ bản mã, chấm điểm văn bản giải thử bằng QuadgramModel:
+// - Caesar (26 key) và Affine (12 * 26 = 312 key): thử hết không gian key.
+// - Vigenere: đoán độ dài khóa bằng Kasiski và chỉ số trùng hợp (IoC), mỗi độ dài đoán từng chữ của khóa
+//   bằng chi-square rồi tinh chỉnh từng vị trí theo điểm quadgram.
+// - Monoalphabetic: leo đồi (hill-climbing) đổi chỗ từng cặp chữ cái, khởi động lại nhiều lần từ key ngẫu nhiên.
+// Các nhánh tìm kiếm chạy song song trên thread pool; mỗi task có đối tượng cipher và buffer riêng nên không
+// khóa gì trong vòng lặp. Giải mã thử dùng chính bảng dịch của các lớp cipher trong traditional, chỉ trên
+// các chữ cái của bản mã; bản rõ cuối cùng giải mã lại cả văn bản bằng key tìm được.
+public final class ClassicalCryptanalysis {
+    public static final int TOP_CANDIDATES = 5;
+    public static final int MAX_VIGENERE_KEY_LENGTH = 20;
+    public static final int DEFAULT_RESTARTS = 32;
+
+    // a phải nguyên tố cùng nhau với 26
+    private static final int[] AFFINE_MULTIPLIERS = { 1, 3, 5, 7, 9, 11, 15, 17, 19, 21, 23, 25 };
+    // Số độ dài khóa Vigenere có IoC tốt nhất được thử đầy đủ
+    private static final int VIGENERE_LENGTHS_TRIED = 4;
+    // Ước d của độ dài L được thử trước L nếu IoC(d) đạt ít nhất tỉ lệ này của IoC(L): bội của độ dài đúng
+    // cũng có IoC cao (IoC tiếng Anh ~0.066, văn bản ngẫu nhiên ~0.038)
+    private static final double DIVISOR_IOC_RATIO = 0.9;
+
+    private ClassicalCryptanalysis() {
+    }
+
+    public static final class Candidate {
+        private final String key;
+        private final double score;
+
+        Candidate(String key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    public static final class Result {
+        private final String algorithm;
+        private final String plainText;
+        private final List<Candidate> candidates;
+        private final long testedKeys;
+        private final long elapsedNanos;
+        private final int threads;
+
+        Result(String algorithm, String plainText, List<Candidate> candidates, long testedKeys, long elapsedNanos,
+                int threads) {
+            this.algorithm = algorithm;
+            this.plainText = plainText;
+            this.candidates = candidates;
+            this.testedKeys = testedKeys;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        // Key tốt nhất, cùng định dạng với key của thuật toán tương ứng
+        public String getKey() {
+            return candidates.get(0).getKey();
+        }
+
+        public double getScore() {
+            return candidates.get(0).getScore();
+        }
+
+        public String getPlainText() {
+            return plainText;
+        }
+
+        // Các key tốt nhất theo điểm giảm dần, tối đa TOP_CANDIDATES
+        public List<Candidate> getCandidates() {
+            return candidates;
+        }
+
+        // Số key đã giải mã thử và chấm điểm
+        public long getTestedKeys() {
+            return testedKeys;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public double getCandidatesPerSecond() {
+            return elapsedNanos == 0 ? 0 : testedKeys * 1e9 / elapsedNanos;
+        }
+    }
+
+    // Kết quả của một task: các key tốt nhất (giảm dần theo điểm) và số key đã thử
+    private static final class TopCandidates {
+        final List<Candidate> best = new ArrayList<>(TOP_CANDIDATES + 1);
+        long tested;
+
+        void offer(String key, double score) {
+            if (best.size() == TOP_CANDIDATES && score <= best.get(TOP_CANDIDATES - 1).getScore()) {
+                return;
+            }
+            for (Candidate candidate : best) {
+                if (candidate.getKey().equals(key)) {
+                    return;
+                }
+            }
+            int index = 0;
+            while (index < best.size() && best.get(index).getScore() >= score) {
+                index++;
+            }
+            best.add(index, new Candidate(key, score));
+            if (best.size() > TOP_CANDIDATES) {
+                best.remove(TOP_CANDIDATES);
+            }
+        }
+
+        void merge(TopCandidates other) {
+            for (Candidate candidate : other.best) {
+                offer(candidate.getKey(), candidate.getScore());
+            }
+            tested += other.tested;
+        }
+    }
+
+    // Phá mã theo tên thuật toán (như TraditionalEncryption.getName()); restarts chỉ dùng cho Monoalphabetic
+    public static Result crack(String algorithm, String cipherText, QuadgramModel model, int threads, int restarts)
+            throws InterruptedException {
+        switch (algorithm) {
+            case "Caesar":
+                return crackCaesar(cipherText, model, threads);
+            case "Affine":
+                return crackAffine(cipherText, model, threads);
+            case "Vigenere":
+                return crackVigenere(cipherText, model, threads);
+            case "Monoalphabetic":
+                return crackMonoalphabetic(cipherText, model, threads, restarts);
+            default:
+                throw new IllegalArgumentException("Không hỗ trợ phá mã thuật toán: " + algorithm);
+        }
+    }
+
+    // Key Caesar là số bước dịch khi mã hóa
+    public static Result crackCaesar(String cipherText, QuadgramModel model, int threads)
+            throws InterruptedException {
+        List<String> keys = new ArrayList<>(26);
+        for (int shift = 0; shift < 26; shift++) {
+            keys.add(String.valueOf(shift));
+        }
+        return searchKeys("Caesar", CaesarCipher::new, keys, cipherText, model, threads);
+    }
+
+    // Key Affine dạng "a,b"
+    public static Result crackAffine(String cipherText, QuadgramModel model, int threads)
+            throws InterruptedException {
+        List<String> keys = new ArrayList<>(AFFINE_MULTIPLIERS.length * 26);
+        for (int a : AFFINE_MULTIPLIERS) {
+            for (int b = 0; b < 26; b++) {
+                keys.add(a + "," + b);
+            }
+        }
+        return searchKeys("Affine", AffineCipher::new, keys, cipherText, model, threads);
+    }
+
+    public static Result crackVigenere(String cipherText, QuadgramModel model, int threads)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        byte[] letters = requireLetters(cipherText);
+        int[] lengths = vigenereKeyLengths(letters, MAX_VIGENERE_KEY_LENGTH);
+        List<Callable<TopCandidates>> tasks = new ArrayList<>();
+        for (int i = 0; i < Math.min(VIGENERE_LENGTHS_TRIED, lengths.length); i++) {
+            int length = lengths[i];
+            tasks.add(() -> refineVigenere(letters, length, model));
+        }
+        int poolSize = poolSize(threads, tasks.size());
+        TopCandidates top = runAll(tasks, poolSize);
+        String plainText = new VigenereCipher().decrypt(cipherText, top.best.get(0).getKey());
+        return new Result("Vigenere", plainText, top.best, top.tested, System.nanoTime() - start, poolSize);
+    }
+
+    // restarts lần leo đồi từ key ngẫu nhiên, chia đều cho các thread
+    public static Result crackMonoalphabetic(String cipherText, QuadgramModel model, int threads, int restarts)
+            throws InterruptedException {
+        if (restarts <= 0) {
+            throw new IllegalArgumentException("Số lần khởi động lại phải lớn hơn 0");
+        }
+        long start = System.nanoTime();
+        byte[] letters = requireLetters(cipherText);
+        byte[] indices = new byte[letters.length];
+        for (int i = 0; i < letters.length; i++) {
+            indices[i] = (byte) (letters[i] - 'A');
+        }
+        // SplittableRandom không an toàn giữa các thread nên tách sẵn cho từng task trên thread gọi hàm
+        SplittableRandom root = new SplittableRandom();
+        List<Callable<TopCandidates>> tasks = new ArrayList<>(restarts);
+        for (int i = 0; i < restarts; i++) {
+            SplittableRandom random = root.split();
+            tasks.add(() -> climbMonoalphabetic(indices, model, random));
+        }
+        int poolSize = poolSize(threads, restarts);
+        TopCandidates top = runAll(tasks, poolSize);
+        String plainText = new MonoalphabeticCipher().decrypt(cipherText, top.best.get(0).getKey());
+        return new Result("Monoalphabetic", plainText, top.best, top.tested, System.nanoTime() - start, poolSize);
+    }
+
+    // Các độ dài khóa Vigenere có khả năng nhất, tốt nhất trước
+    public static int[] vigenereKeyLengths(String cipherText, int maxLength) {
+        return vigenereKeyLengths(requireLetters(cipherText), maxLength);
+    }
+
+    // Chỉ số trùng hợp: xác suất hai chữ cái lấy ngẫu nhiên trong văn bản giống nhau
+    public static double indexOfCoincidence(String text) {
+        byte[] letters = QuadgramModel.letters(text);
+        return indexOfCoincidence(letters, 0, 1);
+    }
+
+    // Độ dài L được xếp theo IoC trung bình của L cột (cột j gồm các chữ cái ở vị trí j, j+L, ...), có cộng
+    // thêm tỉ lệ khoảng cách giữa các trigram lặp lại chia hết cho L (Kasiski) để phân định các độ dài gần bằng
+    static int[] vigenereKeyLengths(byte[] letters, int maxLength) {
+        int max = Math.max(1, Math.min(maxLength, letters.length / 2));
+        double[] ioc = new double[max + 1];
+        for (int length = 1; length <= max; length++) {
+            double sum = 0;
+            for (int column = 0; column < length; column++) {
+                sum += indexOfCoincidence(letters, column, length);
+            }
+            ioc[length] = sum / length;
+        }
+        double[] kasiski = kasiskiFractions(letters, max);
+        Integer[] order = new Integer[max];
+        double[] rank = new double[max + 1];
+        for (int length = 1; length <= max; length++) {
+            order[length - 1] = length;
+            rank[length] = ioc[length] * (1 + 0.25 * kasiski[length]);
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(rank[y], rank[x]));
+
+        int[] result = new int[max];
+        int count = 0;
+        for (int length : order) {
+            int reduced = length;
+            for (int divisor = 1; divisor < length; divisor++) {
+                if (length % divisor == 0 && ioc[divisor] >= ioc[length] * DIVISOR_IOC_RATIO) {
+                    reduced = divisor;
+                    break;
+                }
+            }
+            // Vẫn giữ cả L sau ước của nó: khóa như "CRYPTOGRAPHY" có hai nửa trùng vài chữ nên IoC của nửa độ
+            // dài cũng cao, điểm quadgram sau khi tinh chỉnh sẽ phân định
+            count = addLength(result, count, reduced);
+            count = addLength(result, count, length);
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int addLength(int[] lengths, int count, int length) {
+        for (int i = 0; i < count; i++) {
+            if (lengths[i] == length) {
+                return count;
+            }
+        }
+        lengths[count] = length;
+        return count + 1;
+    }
+
+    // Tỉ lệ khoảng cách giữa hai lần xuất hiện liên tiếp của cùng trigram chia hết cho từng độ dài (2..max)
+    private static double[] kasiskiFractions(byte[] letters, int max) {
+        double[] fractions = new double[max + 1];
+        int[] lastSeen = new int[QuadgramModel.TRIGRAMS];
+        Arrays.fill(lastSeen, -1);
+        long[] hits = new long[max + 1];
+        long distances = 0;
+        for (int i = 0; i + 2 < letters.length; i++) {
+            int trigram = ((letters[i] - 'A') * 26 + letters[i + 1] - 'A') * 26 + letters[i + 2] - 'A';
+            int previous = lastSeen[trigram];
+            lastSeen[trigram] = i;
+            if (previous < 0) {
+                continue;
+            }
+            int distance = i - previous;
+            distances++;
+            for (int length = 2; length <= max; length++) {
+                if (distance % length == 0) {
+                    hits[length]++;
+                }
+            }
+        }
+        if (distances > 0) {
+            for (int length = 2; length <= max; length++) {
+                fractions[length] = (double) hits[length] / distances;
+            }
+        }
+        return fractions;
+    }
+
+    // IoC của các chữ cái (ASCII hoa) ở vị trí start, start + step, ...
+    private static double indexOfCoincidence(byte[] letters, int start, int step) {
+        int[] counts = new int[26];
+        int total = 0;
+        for (int i = start; i < letters.length; i += step) {
+            counts[letters[i] - 'A']++;
+            total++;
+        }
+        if (total < 2) {
+            return 0;
+        }
+        long pairs = 0;
+        for (int count : counts) {
+            pairs += (long) count * (count - 1);
+        }
+        return (double) pairs / ((long) total * (total - 1));
+    }
+
+    // Thử toàn bộ keys, chia theo bước nhảy cho các task để task nào cũng có cả key dễ lẫn key khó
+    private static Result searchKeys(String algorithm, Supplier<SubstitutionCipher> cipherFactory, List<String> keys,
+            String cipherText, QuadgramModel model, int threads) throws InterruptedException {
+        long start = System.nanoTime();
+        byte[] letters = requireLetters(cipherText);
+        int poolSize = poolSize(threads, keys.size());
+        List<Callable<TopCandidates>> tasks = new ArrayList<>(poolSize);
+        for (int t = 0; t < poolSize; t++) {
+            int first = t;
+            tasks.add(() -> {
+                // Mỗi task một đối tượng cipher: SubstitutionCipher chỉ nhớ bảng của key dùng gần nhất
+                SubstitutionCipher cipher = cipherFactory.get();
+                byte[] out = new byte[letters.length];
+                TopCandidates top = new TopCandidates();
+                for (int i = first; i < keys.size(); i += poolSize) {
+                    String key = keys.get(i);
+                    cipher.getDecryptTable(key).apply(letters, 0, letters.length, out, 0, 0);
+                    top.offer(key, model.score(out, 0, out.length));
+                    top.tested++;
+                }
+                return top;
+            });
+        }
+        TopCandidates top = runAll(tasks, poolSize);
+        String plainText = cipherFactory.get().decrypt(cipherText, top.best.get(0).getKey());
+        return new Result(algorithm, plainText, top.best, top.tested, System.nanoTime() - start, poolSize);
+    }
+
+    // Khóa Vigenere độ dài length: chi-square từng cột cho key ban đầu, sau đó lần lượt thử 26 chữ ở từng
+    // vị trí và giữ chữ làm tăng điểm quadgram, lặp tới khi không vị trí nào cải thiện được
+    private static TopCandidates refineVigenere(byte[] letters, int length, QuadgramModel model) {
+        char[] key = new char[length];
+        for (int column = 0; column < length; column++) {
+            int[] counts = new int[26];
+            int total = 0;
+            for (int i = column; i < letters.length; i += length) {
+                counts[letters[i] - 'A']++;
+                total++;
+            }
+            int bestShift = 0;
+            double bestChi = Double.MAX_VALUE;
+            for (int shift = 0; shift < 26; shift++) {
+                double chi = model.chiSquare(counts, total, shift);
+                if (chi < bestChi) {
+                    bestChi = chi;
+                    bestShift = shift;
+                }
+            }
+            key[column] = (char) ('A' + bestShift);
+        }
+
+        VigenereCipher cipher = new VigenereCipher();
+        byte[] out = new byte[letters.length];
+        TopCandidates top = new TopCandidates();
+        double best = scoreVigenere(cipher, new String(key), letters, out, model);
+        top.tested++;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int position = 0; position < length; position++) {
+                char current = key[position];
+                char bestLetter = current;
+                for (char letter = 'A'; letter <= 'Z'; letter++) {
+                    if (letter == current) {
+                        continue;
+                    }
+                    key[position] = letter;
+                    double score = scoreVigenere(cipher, new String(key), letters, out, model);
+                    top.tested++;
+                    if (score > best) {
+                        best = score;
+                        bestLetter = letter;
+                        improved = true;
+                    }
+                }
+                key[position] = bestLetter;
+            }
+        }
+        top.offer(shortestPeriod(key), best);
+        return top;
+    }
+
+    private static double scoreVigenere(VigenereCipher cipher, String key, byte[] letters, byte[] out,
+            QuadgramModel model) {
+        TranslationTable table = cipher.getDecryptTable(key);
+        table.apply(letters, 0, letters.length, out, 0, 0);
+        return model.score(out, 0, out.length);
+    }
+
+    // Khóa tìm được ở độ dài là bội của độ dài đúng sẽ lặp lại, rút về chu kỳ ngắn nhất ("KEYKEY" -> "KEY")
+    private static String shortestPeriod(char[] key) {
+        for (int period = 1; period < key.length; period++) {
+            if (key.length % period != 0) {
+                continue;
+            }
+            boolean repeats = true;
+            for (int i = period; i < key.length && repeats; i++) {
+                repeats = key[i] == key[i - period];
+            }
+            if (repeats) {
+                return new String(key, 0, period);
+            }
+        }
+        return new String(key);
+    }
+
+    // Một lần leo đồi: mapping[chữ mã] = chữ rõ bắt đầu từ hoán vị ngẫu nhiên; mỗi vòng thử đổi chỗ mọi cặp
+    // (325 cặp), giữ lần đổi nào tăng điểm, dừng khi cả vòng không cải thiện (cực đại địa phương)
+    private static TopCandidates climbMonoalphabetic(byte[] indices, QuadgramModel model, SplittableRandom random) {
+        int[] mapping = new int[26];
+        for (int i = 0; i < 26; i++) {
+            mapping[i] = i;
+        }
+        for (int i = 25; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = mapping[i];
+            mapping[i] = mapping[j];
+            mapping[j] = tmp;
+        }
+        TopCandidates top = new TopCandidates();
+        double best = model.score(indices, indices.length, mapping);
+        top.tested++;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < 25; i++) {
+                for (int j = i + 1; j < 26; j++) {
+                    int tmp = mapping[i];
+                    mapping[i] = mapping[j];
+                    mapping[j] = tmp;
+                    double score = model.score(indices, indices.length, mapping);
+                    top.tested++;
+                    if (score > best) {
+                        best = score;
+                        improved = true;
+                    } else {
+                        mapping[j] = mapping[i];
+                        mapping[i] = tmp;
+                    }
+                }
+            }
+        }
+        // Key Monoalphabetic: chữ thứ p của key là chữ mã thay cho chữ rõ p
+        char[] key = new char[26];
+        for (int c = 0; c < 26; c++) {
+            key[mapping[c]] = (char) ('A' + c);
+        }
+        top.offer(new String(key), best);
+        return top;
+    }
+
+    private static TopCandidates runAll(List<Callable<TopCandidates>> tasks, int poolSize)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            TopCandidates top = new TopCandidates();
+            for (Future<TopCandidates> future : executor.invokeAll(tasks)) {
+                try {
+                    top.merge(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException("Lỗi khi phá mã: " + cause.getMessage(), cause);
+                }
+            }
+            return top;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int poolSize(int threads, int tasks) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, Math.min(threads, tasks));
+    }
+
+    private static byte[] requireLetters(String cipherText) {
+        byte[] letters = QuadgramModel.letters(cipherText);
+        if (letters.length < 4) {
+            throw new IllegalArgumentException("Bản mã phải có ít nhất 4 chữ cái để phá mã");
+        }
+        return letters;
+    }
+}
@@ -0,0 +1,202 @@
+package com.atbm.core.cryptanalysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Mô hình ngôn ngữ 4-gram (quadgram) để chấm điểm văn bản giải thử: điểm là tổng log10 xác suất của
+// mọi cụm 4 chữ cái liên tiếp, văn bản càng giống ngôn ngữ huấn luyện thì điểm càng cao (ít âm hơn).
+// Bảng là float[26^4] tra theo chỉ số ((a*26+b)*26+c)*26+d, không dùng Map/String nên chấm điểm hàng
+// triệu ứng viên mỗi giây được. Mô hình không đổi sau khi tạo, dùng chung được giữa các thread.
+// Mô hình mặc định học từ đoạn văn tiếng Anh trong resource cryptanalysis/english.txt; bản mã của
+// văn bản ngôn ngữ khác (ví dụ tiếng Việt không dấu) nên dùng train() với văn bản mẫu cùng ngôn ngữ.
+public final class QuadgramModel {
+    static final int QUADGRAMS = 26 * 26 * 26 * 26;
+    static final int TRIGRAMS = 26 * 26 * 26;
+
+    private static final String ENGLISH_RESOURCE = "/cryptanalysis/english.txt";
+
+    // Tần suất chữ cái tiếng Anh (%), dùng cho chi-square khi chưa cần tới quadgram
+    private static final double[] ENGLISH_LETTER_FREQUENCIES = {
+            8.17, 1.49, 2.78, 4.25, 12.70, 2.23, 2.02, 6.09, 6.97, 0.15, 0.77, 4.03, 2.41,
+            6.75, 7.51, 1.93, 0.10, 5.99, 6.33, 9.06, 2.76, 0.98, 2.36, 0.15, 1.97, 0.07 };
+
+    private static volatile QuadgramModel english;
+
+    // log10 xác suất của từng quadgram, quadgram chưa gặp nhận giá trị floor
+    private final float[] logProbabilities;
+    private final double[] letterFrequencies;
+    private final long quadgramCount;
+
+    private QuadgramModel(float[] logProbabilities, double[] letterFrequencies, long quadgramCount) {
+        this.logProbabilities = logProbabilities;
+        this.letterFrequencies = letterFrequencies;
+        this.quadgramCount = quadgramCount;
+    }
+
+    // Mô hình tiếng Anh mặc định, nạp một lần
+    public static QuadgramModel english() throws IOException {
+        QuadgramModel model = english;
+        if (model == null) {
+            synchronized (QuadgramModel.class) {
+                model = english;
+                if (model == null) {
+                    try (InputStream in = QuadgramModel.class.getResourceAsStream(ENGLISH_RESOURCE)) {
+                        if (in == null) {
+                            throw new IOException("Không tìm thấy văn bản mẫu " + ENGLISH_RESOURCE);
+                        }
+                        model = train(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    }
+                    english = model;
+                }
+            }
+        }
+        return model;
+    }
+
+    // Học mô hình từ văn bản mẫu: chỉ tính chữ cái ASCII (không phân biệt hoa thường), bỏ qua ký tự khác
+    public static QuadgramModel train(Reader reader) throws IOException {
+        int[] counts = new int[QUADGRAMS];
+        long[] letters = new long[26];
+        long total = 0;
+        int index = 0;
+        int run = 0;
+        char[] buffer = new char[8192];
+        try (BufferedReader in = new BufferedReader(reader)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    int letter = letterIndex(buffer[i]);
+                    if (letter < 0) {
+                        continue;
+                    }
+                    letters[letter]++;
+                    index = (index % TRIGRAMS) * 26 + letter;
+                    if (++run >= 4) {
+                        counts[index]++;
+                        total++;
+                    }
+                }
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Văn bản mẫu phải có ít nhất 4 chữ cái");
+        }
+        float[] logProbabilities = new float[QUADGRAMS];
+        // Quadgram chưa gặp được coi như xuất hiện 0.01 lần, để một cụm lạ không làm điểm về -vô cùng
+        float floor = (float) Math.log10(0.01 / total);
+        for (int i = 0; i < QUADGRAMS; i++) {
+            logProbabilities[i] = counts[i] == 0 ? floor : (float) Math.log10((double) counts[i] / total);
+        }
+        long letterTotal = 0;
+        for (long count : letters) {
+            letterTotal += count;
+        }
+        double[] frequencies = new double[26];
+        for (int i = 0; i < 26; i++) {
+            frequencies[i] = 100.0 * letters[i] / letterTotal;
+        }
+        return new QuadgramModel(logProbabilities, frequencies, total);
+    }
+
+    // Số quadgram trong văn bản mẫu
+    public long getQuadgramCount() {
+        return quadgramCount;
+    }
+
+    // Chấm điểm text[offset..offset+length) chỉ gồm chữ cái ASCII (đã bỏ ký tự khác, hoa hay thường đều được):
+    // 'A' và 'a' cùng có 5 bit thấp là 1 nên (b & 0x1F) - 1 ra chỉ số 0..25 mà không cần rẽ nhánh
+    public double score(byte[] text, int offset, int length) {
+        if (length < 4) {
+            return 0;
+        }
+        float[] table = logProbabilities;
+        // Ba chữ cái trước giữ trong biến cục bộ, chỉ số tính lại bằng phép nhân thay vì lấy dư
+        int a = (text[offset] & 0x1F) - 1;
+        int b = (text[offset + 1] & 0x1F) - 1;
+        int c = (text[offset + 2] & 0x1F) - 1;
+        double score = 0;
+        for (int i = offset + 3; i < offset + length; i++) {
+            int d = (text[i] & 0x1F) - 1;
+            score += table[((a * 26 + b) * 26 + c) * 26 + d];
+            a = b;
+            b = c;
+            c = d;
+        }
+        return score;
+    }
+
+    // Chấm điểm văn bản bất kỳ, ký tự không phải chữ cái bị bỏ qua
+    public double score(CharSequence text) {
+        byte[] letters = letters(text);
+        return score(letters, 0, letters.length);
+    }
+
+    // Chấm điểm văn bản giải thử letters (chỉ số 0..25) qua bảng thay thế mapping (chữ cái mã -> chữ cái rõ)
+    // mà không tạo văn bản trung gian, dùng trong vòng hill-climbing
+    public double score(byte[] letters, int length, int[] mapping) {
+        if (length < 4) {
+            return 0;
+        }
+        float[] table = logProbabilities;
+        int a = mapping[letters[0]];
+        int b = mapping[letters[1]];
+        int c = mapping[letters[2]];
+        double score = 0;
+        for (int i = 3; i < length; i++) {
+            int d = mapping[letters[i]];
+            score += table[((a * 26 + b) * 26 + c) * 26 + d];
+            a = b;
+            b = c;
+            c = d;
+        }
+        return score;
+    }
+
+    // Chi-square giữa số lần xuất hiện từng chữ cái (counts, tổng total) và tần suất của mô hình,
+    // càng nhỏ càng giống. shift dịch chữ cái trước khi so (chữ mã c ứng với chữ rõ c - shift).
+    double chiSquare(int[] counts, int total, int shift) {
+        double chi = 0;
+        for (int plain = 0; plain < 26; plain++) {
+            double expected = total * expectedFrequency(plain) / 100.0;
+            int observed = counts[(plain + shift) % 26];
+            double diff = observed - expected;
+            chi += diff * diff / expected;
+        }
+        return chi;
+    }
+
+    // Tần suất chữ cái từ văn bản mẫu, chữ cái không gặp lấy theo bảng tiếng Anh để tránh chia cho 0
+    private double expectedFrequency(int letter) {
+        double frequency = letterFrequencies[letter];
+        return frequency > 0 ? frequency : ENGLISH_LETTER_FREQUENCIES[letter];
+    }
+
+    // Chỉ số 0..25 của chữ cái ASCII, -1 nếu không phải chữ cái
+    static int letterIndex(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return -1;
+    }
+
+    // Lấy riêng các chữ cái ASCII của văn bản thành chữ hoa, các thuật toán cổ điển chỉ biến đổi những chữ này
+    static byte[] letters(CharSequence text) {
+        byte[] letters = new byte[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int letter = letterIndex(text.charAt(i));
+            if (letter >= 0) {
+                letters[length++] = (byte) ('A' + letter);
+            }
+        }
+        return Arrays.copyOf(letters, length);
+    }
+}
@@ -1,6 +1,8 @@
 package com.atbm.core.encryption;
 
+import java.nio.ByteBuffer;
 import java.security.Key;
+import javax.crypto.ShortBufferException;
 
 // Interface định nghĩa các phương thức mã hóa và giải mã,...
 public interface EncryptionAlgorithm {
@@ -8,9 +10,41 @@ public interface EncryptionAlgorithm {
 
     byte[] decrypt(byte[] encryptedData, Key key) throws Exception;
 
+    // Mã hóa toàn bộ phần còn lại của src vào dst (heap hoặc direct), trả về số byte đã ghi.
+    // Mặc định đi qua byte[]; các thuật toán đối xứng override để ghi thẳng vào dst.
+    default int encrypt(ByteBuffer src, ByteBuffer dst, Key key) throws Exception {
+        int srcPosition = src.position();
+        byte[] data = new byte[src.remaining()];
+        src.get(data);
+        return putResult(encrypt(data, key), src, srcPosition, dst);
+    }
+
+    // Giải mã toàn bộ phần còn lại của src vào dst, trả về số byte đã ghi
+    default int decrypt(ByteBuffer src, ByteBuffer dst, Key key) throws Exception {
+        int srcPosition = src.position();
+        byte[] data = new byte[src.remaining()];
+        src.get(data);
+        return putResult(decrypt(data, key), src, srcPosition, dst);
+    }
+
+    // Kích thước tối đa của đầu ra cho inputLength byte đầu vào, dùng để cấp phát trước dst.
+    // Có thể lớn hơn kích thước thực (ví dụ padding, khóa RSA lớn nhất), không bao giờ nhỏ hơn.
+    int getOutputSize(int inputLength, boolean encrypt);
+
     String getName();
 
     String[] getSupportedModes();
 
     String[] getSupportedPaddings();
-}
\ No newline at end of file
+
+    private static int putResult(byte[] result, ByteBuffer src, int srcPosition, ByteBuffer dst)
+            throws ShortBufferException {
+        if (dst.remaining() < result.length) {
+            src.position(srcPosition);
+            throw new ShortBufferException("Output buffer too small: need " + result.length + " bytes, have "
+                    + dst.remaining());
+        }
+        dst.put(result);
+        return result.length;
+    }
+}
@@ -5,6 +5,8 @@ import com.atbm.core.encryption.symmetric.DESedeEncryption;
 import com.atbm.core.encryption.symmetric.DESEncryption;
 import com.atbm.core.encryption.symmetric.ChaCha20Poly1305Encryption;
 import com.atbm.core.encryption.symmetric.BlowfishEncryption;
+import com.atbm.core.encryption.asymmetric.ECIESEncryption;
+import com.atbm.core.encryption.asymmetric.ECIESHybridEncryption;
 import com.atbm.core.encryption.asymmetric.RSAEncryption;
 import com.atbm.core.encryption.traditional.CaesarCipher;
 import com.atbm.core.encryption.traditional.VigenereCipher;
@@ -33,6 +35,11 @@ public class EncryptionAlgorithmFactory {
                 return new BlowfishEncryption("CBC", "PKCS5Padding");
             case "rsa":
                 return new RSAEncryption(2048);
+            case "ecies":
+            case "ecies-x25519":
+                return new ECIESEncryption(ECIESHybridEncryption.CURVE_X25519);
+            case "ecies-p256":
+                return new ECIESEncryption(ECIESHybridEncryption.CURVE_P256);
             case "caesar":
                 return new CaesarCipher();
             case "vigenere":
@@ -70,6 +77,11 @@ public class EncryptionAlgorithmFactory {
                 return new BlowfishEncryption("CBC", "PKCS5Padding");
             case "rsa":
                 return new RSAEncryption(keySize);
+            case "ecies":
+            case "ecies-x25519":
+                return new ECIESEncryption(ECIESHybridEncryption.CURVE_X25519);
+            case "ecies-p256":
+                return new ECIESEncryption(ECIESHybridEncryption.CURVE_P256);
             case "caesar":
                 return new CaesarCipher();
             case "vigenere":
@@ -108,6 +120,12 @@ public class EncryptionAlgorithmFactory {
                 return new BlowfishEncryption(mode, padding);
             case "rsa":
                 return new RSAEncryption(keySize);
+            // Mode là thuật toán payload (AES-GCM / ChaCha20-Poly1305), đường cong lấy từ khóa
+            case "ecies":
+            case "ecies-x25519":
+                return new ECIESEncryption(ECIESHybridEncryption.CURVE_X25519, mode);
+            case "ecies-p256":
+                return new ECIESEncryption(ECIESHybridEncryption.CURVE_P256, mode);
             case "caesar":
                 return new CaesarCipher();
             case "vigenere":
@@ -5,6 +5,7 @@ import java.security.Key;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.core.key.KeyPairPool;
 
 // Đây là class cha cho các thuật toán mã hóa bất đối xứng, gồm các phương thức chung 
 public abstract class AsymmetricEncryption implements EncryptionAlgorithm {
@@ -31,6 +32,10 @@ public abstract class AsymmetricEncryption implements EncryptionAlgorithm {
     }
 
     public KeyPair generateKeyPair() throws Exception {
+        // RSA lấy từ pool tạo sẵn (nếu kích thước này đã được prewarm)
+        if (algorithm.equals("RSA")) {
+            return KeyPairPool.take(keySize);
+        }
         KeyPairGenerator keyGen = KeyPairGenerator.getInstance(algorithm);
         keyGen.initialize(keySize);
         return keyGen.generateKeyPair();
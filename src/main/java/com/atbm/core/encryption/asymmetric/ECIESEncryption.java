@@ -0,0 +1,82 @@
+package com.atbm.core.encryption.asymmetric;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+// Đây là class kế thừa AsymmetricEncryption cho ECIES (X25519 hoặc P-256), phần mã hóa nằm ở ECIESHybridEncryption.
+// "Mode" là thuật toán mã hóa payload: AES-GCM hoặc ChaCha20-Poly1305.
+public class ECIESEncryption extends AsymmetricEncryption {
+
+    public static final String[] SUPPORTED_CURVES = { ECIESHybridEncryption.CURVE_X25519,
+            ECIESHybridEncryption.CURVE_P256 };
+
+    private final String curve;
+    private String payloadCipher = ECIESHybridEncryption.PAYLOAD_AES_GCM;
+
+    public ECIESEncryption(String curve) {
+        super(ECIESHybridEncryption.CURVE_X25519.equals(validateCurve(curve)) ? "X25519" : "EC",
+                ECIESHybridEncryption.CURVE_X25519.equals(curve) ? 255 : 256);
+        this.curve = curve;
+    }
+
+    public ECIESEncryption(String curve, String payloadCipher) {
+        this(curve);
+        this.payloadCipher = payloadCipher;
+    }
+
+    private static String validateCurve(String curve) {
+        for (String supported : SUPPORTED_CURVES) {
+            if (supported.equals(curve)) {
+                return curve;
+            }
+        }
+        throw new IllegalArgumentException("Đường cong không hợp lệ cho ECIES: " + curve + ". Hỗ trợ: X25519, P-256.");
+    }
+
+    public String getCurve() {
+        return curve;
+    }
+
+    @Override
+    public String getName() {
+        return "ECIES";
+    }
+
+    @Override
+    public KeyPair generateKeyPair() throws Exception {
+        return ECIESHybridEncryption.generateKeyPair(curve);
+    }
+
+    @Override
+    public byte[] encrypt(byte[] data, Key key) throws Exception {
+        if (!(key instanceof PublicKey)) {
+            throw new IllegalArgumentException("Mã hóa ECIES cần khóa công khai (.pub)");
+        }
+        return ECIESHybridEncryption.encrypt(data, (PublicKey) key, payloadCipher);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] encryptedData, Key key) throws Exception {
+        if (!(key instanceof PrivateKey)) {
+            throw new IllegalArgumentException("Giải mã ECIES cần khóa bí mật (.pri)");
+        }
+        return ECIESHybridEncryption.decrypt(encryptedData, (PrivateKey) key);
+    }
+
+    @Override
+    public int getOutputSize(int inputLength, boolean encrypt) {
+        return ECIESHybridEncryption.getOutputSize(inputLength, curve, encrypt);
+    }
+
+    @Override
+    public String[] getSupportedModes() {
+        return new String[] { ECIESHybridEncryption.PAYLOAD_AES_GCM, ECIESHybridEncryption.PAYLOAD_CHACHA20_POLY1305 };
+    }
+
+    @Override
+    public String[] getSupportedPaddings() {
+        return new String[] { "NoPadding" };
+    }
+}
@@ -0,0 +1,330 @@
+package com.atbm.core.encryption.asymmetric;
+
+import javax.crypto.KeyAgreement;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.XECKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.NamedParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import com.atbm.utils.CipherCache;
+
+// Hybrid ECIES: mỗi lần mã hóa tạo một cặp khóa tạm (ephemeral), ECDH với khóa công khai người nhận
+// (X25519 hoặc P-256), HKDF-SHA256 ra khóa 256 bit, payload mã hóa bằng AES-GCM hoặc ChaCha20-Poly1305
+// theo segment giống RSAHybridEncryption phiên bản 2. Giải mã chỉ cần một phép ECDH thay vì một phép
+// RSA private key, nhanh hơn nhiều lần với cùng mức an toàn.
+//
+// Định dạng:
+//   "ECIES" | version (1 byte) | curve (1 byte) | payload cipher (1 byte) | segment size (4 byte)
+//   | nonce prefix (7 byte) | độ dài khóa tạm (2 byte) | khóa công khai tạm (X.509) | segment 0 | ...
+// Toàn bộ header là AAD của mọi segment và nằm trong info của HKDF.
+public class ECIESHybridEncryption {
+    public static final String CURVE_X25519 = "X25519";
+    public static final String CURVE_P256 = "P-256";
+    public static final String PAYLOAD_AES_GCM = "AES-GCM";
+    public static final String PAYLOAD_CHACHA20_POLY1305 = "ChaCha20-Poly1305";
+
+    private static final byte[] MAGIC_NUMBER = "ECIES".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final byte CURVE_ID_X25519 = 1;
+    private static final byte CURVE_ID_P256 = 2;
+    private static final byte PAYLOAD_ID_AES_GCM = 1;
+    private static final byte PAYLOAD_ID_CHACHA20_POLY1305 = 2;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int FIXED_HEADER_LENGTH = MAGIC_NUMBER.length + 3 + 4 + NONCE_PREFIX_LENGTH + 2;
+    // Khóa công khai X.509 của X25519 dài 44 byte, của P-256 dài 91 byte
+    private static final int X25519_PUBLIC_KEY_LENGTH = 44;
+    private static final int P256_PUBLIC_KEY_LENGTH = 91;
+    private static final int MAX_EPHEMERAL_KEY_LENGTH = 256;
+    private static final int TAG_LENGTH = 16;
+    private static final int DERIVED_KEY_LENGTH = 32;
+    private static final byte[] HKDF_INFO_PREFIX = "ATBM ECIES v1".getBytes(StandardCharsets.US_ASCII);
+
+    // Tham số chuẩn của P-256, dùng để phân biệt với các đường cong 256 bit khác (secp256k1, brainpool)
+    private static final ECParameterSpec P256_PARAMS = loadP256Params();
+
+    private ECIESHybridEncryption() {
+    }
+
+    // Tạo cặp khóa cho đường cong X25519 hoặc P-256
+    public static KeyPair generateKeyPair(String curve) throws GeneralSecurityException {
+        if (CURVE_X25519.equals(curve)) {
+            return KeyPairGenerator.getInstance("X25519").generateKeyPair();
+        }
+        if (CURVE_P256.equals(curve)) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        }
+        throw new IllegalArgumentException("Không hỗ trợ đường cong: " + curve);
+    }
+
+    public static byte[] encrypt(byte[] data, PublicKey publicKey, String payloadCipher)
+            throws GeneralSecurityException {
+        if (data == null) {
+            throw new IllegalArgumentException("Dữ liệu không được null");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + 256);
+        // Segment vừa đủ cho dữ liệu nhỏ, để cả hai phía không phải cấp phát buffer 256KB cho vài KB dữ liệu
+        int segmentSize = Math.max(RSAHybridEncryption.MIN_BUFFER_SIZE,
+                Math.min(data.length, RSAHybridEncryption.DEFAULT_BUFFER_SIZE));
+        try {
+            encrypt(new ByteArrayInputStream(data), out, publicKey, payloadCipher, segmentSize);
+        } catch (IOException e) {
+            // Stream trong bộ nhớ không ném IOException
+            throw new GeneralSecurityException("Lỗi khi mã hóa ECIES: " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    // Kích thước đầu ra của encrypt/decrypt(byte[]): header + khóa tạm, mỗi segment thêm một tag (file rỗng vẫn
+    // có một segment). Giải mã chỉ bỏ được tối thiểu header và một tag vì không biết kích thước segment.
+    static int getOutputSize(int inputLength, String curve, boolean encrypt) {
+        int headerLength = FIXED_HEADER_LENGTH
+                + (CURVE_X25519.equals(curve) ? X25519_PUBLIC_KEY_LENGTH : P256_PUBLIC_KEY_LENGTH);
+        if (!encrypt) {
+            return Math.max(0, inputLength - headerLength - TAG_LENGTH);
+        }
+        int segmentSize = Math.max(RSAHybridEncryption.MIN_BUFFER_SIZE,
+                Math.min(inputLength, RSAHybridEncryption.DEFAULT_BUFFER_SIZE));
+        int segments = Math.max(1, (inputLength + segmentSize - 1) / segmentSize);
+        return headerLength + inputLength + segments * TAG_LENGTH;
+    }
+
+    public static byte[] decrypt(byte[] encryptedData, PrivateKey privateKey) throws GeneralSecurityException {
+        if (encryptedData == null) {
+            throw new IllegalArgumentException("Dữ liệu không được null");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encryptedData.length);
+        try {
+            decrypt(new ByteArrayInputStream(encryptedData), out, privateKey);
+        } catch (IOException e) {
+            throw new GeneralSecurityException("Lỗi khi giải mã ECIES: " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    public static void encryptFile(File inputFile, File outputFile, PublicKey publicKey, String payloadCipher)
+            throws IOException, GeneralSecurityException {
+        if (inputFile == null || outputFile == null) {
+            throw new IllegalArgumentException("File không được null");
+        }
+        try (FileInputStream fis = new FileInputStream(inputFile);
+                FileOutputStream fos = new FileOutputStream(outputFile)) {
+            encrypt(fis, fos, publicKey, payloadCipher, RSAHybridEncryption.DEFAULT_BUFFER_SIZE);
+        }
+    }
+
+    public static void decryptFile(File inputFile, File outputFile, PrivateKey privateKey)
+            throws IOException, GeneralSecurityException {
+        if (inputFile == null || outputFile == null) {
+            throw new IllegalArgumentException("File không được null");
+        }
+        boolean success = false;
+        try (FileInputStream fis = new FileInputStream(inputFile);
+                FileOutputStream fos = new FileOutputStream(outputFile)) {
+            decrypt(fis, fos, privateKey);
+            success = true;
+        } finally {
+            // Các segment trước chỗ xác thực thất bại đã được ghi ra, không để lại bản rõ của file bị sửa
+            if (!success) {
+                outputFile.delete();
+            }
+        }
+    }
+
+    // Mã hóa stream cho khóa công khai X25519 hoặc P-256, segmentSize là kích thước mỗi segment plaintext
+    public static void encrypt(InputStream in, OutputStream out, PublicKey publicKey, String payloadCipher,
+            int segmentSize) throws IOException, GeneralSecurityException {
+        if (publicKey == null) {
+            throw new IllegalArgumentException("Khóa công khai không được null");
+        }
+        if (segmentSize < RSAHybridEncryption.MIN_BUFFER_SIZE || segmentSize > RSAHybridEncryption.MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Kích thước segment phải từ " + RSAHybridEncryption.MIN_BUFFER_SIZE
+                    + " đến " + RSAHybridEncryption.MAX_BUFFER_SIZE + " byte");
+        }
+        byte curveId = curveId(publicKey);
+        byte payloadId = payloadId(payloadCipher);
+
+        KeyPair ephemeral = generateKeyPair(curveId == CURVE_ID_X25519 ? CURVE_X25519 : CURVE_P256);
+        byte[] ephemeralPublic = ephemeral.getPublic().getEncoded();
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        CipherCache.secureRandom().nextBytes(noncePrefix);
+        byte[] header = ByteBuffer.allocate(FIXED_HEADER_LENGTH + ephemeralPublic.length)
+                .put(MAGIC_NUMBER).put(VERSION).put(curveId).put(payloadId).putInt(segmentSize)
+                .put(noncePrefix).putShort((short) ephemeralPublic.length).put(ephemeralPublic)
+                .array();
+
+        SecretKey key = deriveKey(ephemeral.getPrivate(), publicKey, header, payloadId);
+        out.write(header);
+        RSAHybridEncryption.writeAeadSegments(in, out, transformation(payloadId), key, header, noncePrefix,
+                segmentSize);
+    }
+
+    public static void decrypt(InputStream in, OutputStream out, PrivateKey privateKey)
+            throws IOException, GeneralSecurityException {
+        if (privateKey == null) {
+            throw new IllegalArgumentException("Khóa bí mật không được null");
+        }
+        byte[] fixed = new byte[FIXED_HEADER_LENGTH];
+        if (RSAHybridEncryption.readBytes(in, fixed) != FIXED_HEADER_LENGTH
+                || !Arrays.equals(Arrays.copyOf(fixed, MAGIC_NUMBER.length), MAGIC_NUMBER)) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không phải dữ liệu ECIES");
+        }
+        ByteBuffer fields = ByteBuffer.wrap(fixed, MAGIC_NUMBER.length, fixed.length - MAGIC_NUMBER.length);
+        byte version = fields.get();
+        if (version != VERSION) {
+            throw new GeneralSecurityException("Không hỗ trợ phiên bản ECIES: " + version);
+        }
+        byte curveId = fields.get();
+        byte payloadId = fields.get();
+        int segmentSize = fields.getInt();
+        if (segmentSize < RSAHybridEncryption.MIN_BUFFER_SIZE || segmentSize > RSAHybridEncryption.MAX_BUFFER_SIZE) {
+            throw new GeneralSecurityException("Kích thước segment không hợp lệ: " + segmentSize);
+        }
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        fields.get(noncePrefix);
+        int ephemeralLength = fields.getShort() & 0xFFFF;
+        if (ephemeralLength == 0 || ephemeralLength > MAX_EPHEMERAL_KEY_LENGTH) {
+            throw new GeneralSecurityException("Độ dài khóa tạm không hợp lệ: " + ephemeralLength);
+        }
+        if (curveId(privateKey) != curveId) {
+            throw new GeneralSecurityException("Khóa bí mật không cùng đường cong với dữ liệu đã mã hóa");
+        }
+        byte[] ephemeralPublic = new byte[ephemeralLength];
+        if (RSAHybridEncryption.readBytes(in, ephemeralPublic) != ephemeralLength) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc khóa tạm");
+        }
+        PublicKey ephemeral = KeyFactory.getInstance(curveId == CURVE_ID_X25519 ? "XDH" : "EC")
+                .generatePublic(new X509EncodedKeySpec(ephemeralPublic));
+        if (curveId(ephemeral) != curveId) {
+            throw new GeneralSecurityException("Khóa tạm không cùng đường cong với header");
+        }
+
+        byte[] header = ByteBuffer.allocate(FIXED_HEADER_LENGTH + ephemeralLength)
+                .put(fixed).put(ephemeralPublic)
+                .array();
+        SecretKey key = deriveKey(privateKey, ephemeral, header, payloadId);
+        RSAHybridEncryption.readAeadSegments(in, out, transformation(payloadId), key, header, noncePrefix,
+                segmentSize);
+    }
+
+    // Kiểm tra dữ liệu có phải định dạng ECIES bằng magic number, không giải mã gì
+    public static boolean isECIES(byte[] data) {
+        return data != null && data.length >= FIXED_HEADER_LENGTH
+                && Arrays.equals(data, 0, MAGIC_NUMBER.length, MAGIC_NUMBER, 0, MAGIC_NUMBER.length);
+    }
+
+    // Tên đường cong của khóa X25519 / P-256, dùng cho hiển thị và chọn thuật toán
+    public static String getCurve(Key key) {
+        return curveId(key) == CURVE_ID_X25519 ? CURVE_X25519 : CURVE_P256;
+    }
+
+    // ECDH rồi HKDF-SHA256 (RFC 5869), info = nhãn cố định | header để khóa gắn với đúng header này
+    private static SecretKey deriveKey(PrivateKey privateKey, PublicKey publicKey, byte[] header, byte payloadId)
+            throws GeneralSecurityException {
+        KeyAgreement agreement = KeyAgreement.getInstance(privateKey instanceof XECKey ? "XDH" : "ECDH");
+        agreement.init(privateKey);
+        agreement.doPhase(publicKey, true);
+        byte[] sharedSecret = agreement.generateSecret();
+
+        byte[] info = ByteBuffer.allocate(HKDF_INFO_PREFIX.length + header.length)
+                .put(HKDF_INFO_PREFIX).put(header)
+                .array();
+        byte[] keyBytes = hkdfSha256(sharedSecret, info, DERIVED_KEY_LENGTH);
+        Arrays.fill(sharedSecret, (byte) 0);
+        SecretKey key = new SecretKeySpec(keyBytes,
+                payloadId == PAYLOAD_ID_CHACHA20_POLY1305 ? "ChaCha20" : "AES");
+        Arrays.fill(keyBytes, (byte) 0);
+        return key;
+    }
+
+    // HKDF với salt rỗng (toàn 0 theo RFC 5869), đủ cho length <= 32 nên chỉ cần một block expand
+    private static byte[] hkdfSha256(byte[] inputKeyMaterial, byte[] info, int length)
+            throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(new byte[mac.getMacLength()], "HmacSHA256"));
+        byte[] pseudoRandomKey = mac.doFinal(inputKeyMaterial);
+
+        mac.init(new SecretKeySpec(pseudoRandomKey, "HmacSHA256"));
+        mac.update(info);
+        mac.update((byte) 1);
+        byte[] block = mac.doFinal();
+        Arrays.fill(pseudoRandomKey, (byte) 0);
+        byte[] result = Arrays.copyOf(block, length);
+        Arrays.fill(block, (byte) 0);
+        return result;
+    }
+
+    private static byte curveId(Key key) {
+        if (key instanceof XECKey) {
+            if (((XECKey) key).getParams() instanceof NamedParameterSpec
+                    && CURVE_X25519.equalsIgnoreCase(((NamedParameterSpec) ((XECKey) key).getParams()).getName())) {
+                return CURVE_ID_X25519;
+            }
+        } else if (key instanceof ECKey) {
+            ECParameterSpec params = ((ECKey) key).getParams();
+            if (params.getCurve().equals(P256_PARAMS.getCurve())
+                    && params.getGenerator().equals(P256_PARAMS.getGenerator())
+                    && params.getOrder().equals(P256_PARAMS.getOrder())) {
+                return CURVE_ID_P256;
+            }
+        }
+        throw new IllegalArgumentException("ECIES chỉ hỗ trợ khóa X25519 hoặc P-256");
+    }
+
+    private static ECParameterSpec loadP256Params() {
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException e) {
+            // secp256r1 luôn có trong JDK
+            throw new IllegalStateException("JDK không hỗ trợ P-256", e);
+        }
+    }
+
+    private static byte payloadId(String payloadCipher) {
+        if (payloadCipher == null || PAYLOAD_AES_GCM.equalsIgnoreCase(payloadCipher)
+                || "GCM".equalsIgnoreCase(payloadCipher)) {
+            return PAYLOAD_ID_AES_GCM;
+        }
+        if (PAYLOAD_CHACHA20_POLY1305.equalsIgnoreCase(payloadCipher)) {
+            return PAYLOAD_ID_CHACHA20_POLY1305;
+        }
+        throw new IllegalArgumentException("Không hỗ trợ thuật toán payload: " + payloadCipher);
+    }
+
+    private static String transformation(byte payloadId) throws GeneralSecurityException {
+        switch (payloadId) {
+            case PAYLOAD_ID_AES_GCM:
+                return "AES/GCM/NoPadding";
+            case PAYLOAD_ID_CHACHA20_POLY1305:
+                return "ChaCha20-Poly1305";
+            default:
+                throw new GeneralSecurityException("Không hỗ trợ thuật toán payload id: " + payloadId);
+        }
+    }
+}
@@ -4,11 +4,14 @@ import javax.crypto.Cipher;
 import java.security.Key;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.interfaces.RSAKey;
 
 // Đây là class kế thừa AsymmetricEncryption, thực hiện các phương thức cụ thể cho RSA
 public class RSAEncryption extends AsymmetricEncryption {
 
     public static final int[] SUPPORTED_KEY_SIZES = { 1024, 2048, 4096 };
+    // Khóa tải từ file có thể lớn hơn keySize của đối tượng, tính kích thước đầu ra theo khóa lớn nhất
+    private static final int MAX_MODULUS_LENGTH = 4096 / 8;
 
     // Mặc định dùng PKCS1Padding
     private String padding = "PKCS1Padding";
@@ -72,17 +75,29 @@ public class RSAEncryption extends AsymmetricEncryption {
         return cipher.doFinal(data);
     }
 
-    // Phương thức giải mã sử dụng private key
+    // Phương thức giải mã sử dụng private key.
+    // Bản mã RSA trực tiếp dài đúng bằng modulus, bản mã hybrid bắt đầu bằng magic number và luôn dài hơn
+    // (nó chứa cả khóa AES đã bọc), nên chọn đường giải mã ngay từ đầu mà không cần thử RSA trước.
     public byte[] decryptWithPrivateKey(byte[] encryptedData, PrivateKey privateKey) throws Exception {
-        try {
-            // thử với RSA trực tiếp
-            Cipher cipher = Cipher.getInstance(algorithm + "/ECB/" + padding);
-            cipher.init(Cipher.DECRYPT_MODE, privateKey);
-            return cipher.doFinal(encryptedData);
-        } catch (Exception e) {
-            // nếu thất bại, dùng hybrid RSA
+        if (encryptedData == null) {
+            throw new IllegalArgumentException("Dữ liệu không được null");
+        }
+        if (encryptedData.length > getModulusLength(privateKey) && RSAHybridEncryption.isHybrid(encryptedData)) {
             return RSAHybridEncryption.decrypt(encryptedData, privateKey);
         }
+
+        // RSA trực tiếp cho dữ liệu nhỏ
+        Cipher cipher = Cipher.getInstance(algorithm + "/ECB/" + padding);
+        cipher.init(Cipher.DECRYPT_MODE, privateKey);
+        return cipher.doFinal(encryptedData);
+    }
+
+    // Độ dài modulus tính bằng byte, lấy từ khóa nếu có
+    private int getModulusLength(PrivateKey privateKey) {
+        if (privateKey instanceof RSAKey) {
+            return (((RSAKey) privateKey).getModulus().bitLength() + 7) / 8;
+        }
+        return keySize / 8;
     }
 
     @Override
@@ -101,6 +116,18 @@ public class RSAEncryption extends AsymmetricEncryption {
         return decryptWithPrivateKey(encryptedData, (PrivateKey) key);
     }
 
+    // Mã hóa: dữ liệu nhỏ ra một khối RSA, dữ liệu lớn ra định dạng hybrid. Giải mã luôn ngắn hơn bản mã.
+    @Override
+    public int getOutputSize(int inputLength, boolean encrypt) {
+        if (!encrypt) {
+            return inputLength;
+        }
+        if (inputLength <= calculateHybridThreshold(keySize, padding)) {
+            return MAX_MODULUS_LENGTH;
+        }
+        return RSAHybridEncryption.getEncryptedSize(inputLength, MAX_MODULUS_LENGTH);
+    }
+
     // Trả về các padding hỗ trợ RSA
     @Override
     public String[] getSupportedPaddings() {
@@ -3,29 +3,74 @@ package com.atbm.core.encryption.asymmetric;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.security.PrivateKey;
+import java.security.Key;
+import java.security.MessageDigest;
 import java.security.PublicKey;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import com.atbm.utils.CipherCache;
 
 public class RSAHybridEncryption {
     private static final String AES_ALGORITHM = "AES";
     private static final String AES_TRANSFORMATION = "AES/CBC/PKCS5Padding";
     private static final int AES_KEY_SIZE = 256;
     private static final String RSA_TRANSFORMATION = "RSA/ECB/PKCS1Padding";
-    private static final int BUFFER_SIZE = 8192; // 8KB
+    private static final String AES_GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int AES_BLOCK_SIZE = 16;
+
+    // Buffer mặc định 256KB, có thể chỉnh trong khoảng [MIN_BUFFER_SIZE, MAX_BUFFER_SIZE]
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    public static final int MIN_BUFFER_SIZE = 4096;
+    public static final int MAX_BUFFER_SIZE = 64 * 1024 * 1024;
 
     // Magic number để xác định có phải file hybrid
     private static final byte[] MAGIC_NUMBER = "HYBRID".getBytes();
     private static final int MAGIC_NUMBER_LENGTH = MAGIC_NUMBER.length;
 
+    // Kích thước bản mã của encrypt(byte[], PublicKey): magic | độ dài IV | IV (16 byte) | độ dài khóa | khóa AES
+    // bọc bằng RSA (dài bằng modulus) | dữ liệu AES-CBC có padding PKCS5 (luôn thêm 1..16 byte)
+    static int getEncryptedSize(int inputLength, int modulusLength) {
+        return MAGIC_NUMBER_LENGTH + 4 + 16 + 4 + modulusLength + (inputLength / 16 + 1) * 16;
+    }
+
+    // Định dạng GCM (phiên bản 2):
+    //   "HYBRID" | version (1 byte) | segment size (4 byte) | nonce prefix (7 byte)
+    //   | độ dài khóa AES đã mã hóa (4 byte) | khóa AES đã mã hóa | segment 0 | segment 1 | ...
+    // Định dạng CBC cũ không có byte version, ngay sau magic là độ dài IV (byte đầu luôn là 0).
+    private static final byte VERSION_GCM = 2;
+    // Định dạng nhiều người nhận (phiên bản 3), payload giống phiên bản 2:
+    //   "HYBRID" | version | segment size | nonce prefix | số key slot (4 byte)
+    //   | mỗi slot: key id (32 byte) | độ dài khóa AES đã bọc (4 byte) | khóa AES đã bọc | các segment
+    // AAD của segment là SHA-256 của header, vì header lớn dần theo số người nhận.
+    private static final byte VERSION_MULTI = 3;
+    private static final int KEY_ID_LENGTH = 32;
+    public static final int MAX_RECIPIENTS = 4096;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int GCM_NONCE_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 16;
+    private static final int GCM_HEADER_LENGTH = MAGIC_NUMBER_LENGTH + 1 + 4 + NONCE_PREFIX_LENGTH + 4;
+    // Bộ đếm segment trong nonce dài 4 byte
+    private static final long MAX_SEGMENT_COUNT = 0xFFFFFFFFL;
+
     // Mã hóa dữ liệu sử dụng RSA hybrid
     public static byte[] encrypt(byte[] data, PublicKey publicKey) throws GeneralSecurityException {
         if (data == null) {
@@ -95,6 +140,16 @@ public class RSAHybridEncryption {
         if (encryptedData.length < MAGIC_NUMBER_LENGTH + 8) {
             throw new IllegalArgumentException("Dữ liệu đã mã hóa quá ngắn");
         }
+        if (encryptedData[MAGIC_NUMBER_LENGTH] == VERSION_GCM || encryptedData[MAGIC_NUMBER_LENGTH] == VERSION_MULTI) {
+            // Payload GCM theo segment dùng chung đường giải mã stream
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(encryptedData.length);
+            try {
+                decrypt(new ByteArrayInputStream(encryptedData), outputStream, privateKey);
+            } catch (IOException e) {
+                throw new GeneralSecurityException("Lỗi khi đọc dữ liệu đã mã hóa: " + e.getMessage(), e);
+            }
+            return outputStream.toByteArray();
+        }
 
         try {
             ByteArrayInputStream inputStream = new ByteArrayInputStream(encryptedData);
@@ -147,11 +202,13 @@ public class RSAHybridEncryption {
             Cipher aesCipher = Cipher.getInstance(AES_TRANSFORMATION);
             aesCipher.init(Cipher.DECRYPT_MODE, aesKey, new IvParameterSpec(iv));
 
-            byte[] remainingData = inputStream.readAllBytes();
-            if (remainingData.length == 0) {
+            // Giải mã thẳng phần còn lại của mảng, không sao chép payload
+            int payloadOffset = encryptedData.length - inputStream.available();
+            int payloadLength = encryptedData.length - payloadOffset;
+            if (payloadLength == 0) {
                 throw new GeneralSecurityException("Không tìm thấy dữ liệu đã mã hóa");
             }
-            return aesCipher.doFinal(remainingData);
+            return aesCipher.doFinal(encryptedData, payloadOffset, payloadLength);
         } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
             throw new GeneralSecurityException("Lỗi khi khởi tạo thuật toán giải mã: " + e.getMessage(), e);
         } catch (InvalidKeyException e) {
@@ -166,6 +223,12 @@ public class RSAHybridEncryption {
     // Mã hóa file sử dụng RSA hybrid
     public static void encryptFile(File inputFile, File outputFile, PublicKey publicKey)
             throws GeneralSecurityException, IOException {
+        encryptFile(inputFile, outputFile, publicKey, false, DEFAULT_BUFFER_SIZE);
+    }
+
+    // useGcm chọn payload AES-GCM (header phiên bản 2), bufferSize cũng là kích thước segment GCM
+    public static void encryptFile(File inputFile, File outputFile, PublicKey publicKey, boolean useGcm,
+            int bufferSize) throws GeneralSecurityException, IOException {
         if (inputFile == null || outputFile == null) {
             throw new IllegalArgumentException("File đầu vào và đầu ra không được null");
         }
@@ -176,6 +239,29 @@ public class RSAHybridEncryption {
             throw new IllegalArgumentException("File đầu vào rỗng");
         }
 
+        try (FileInputStream fis = new FileInputStream(inputFile);
+                FileOutputStream fos = new FileOutputStream(outputFile)) {
+            encrypt(fis, fos, publicKey, useGcm, bufferSize);
+        }
+    }
+
+    // Mã hóa dữ liệu từ stream sang stream, bộ nhớ không phụ thuộc kích thước dữ liệu
+    public static void encrypt(InputStream in, OutputStream out, PublicKey publicKey)
+            throws GeneralSecurityException, IOException {
+        encrypt(in, out, publicKey, false, DEFAULT_BUFFER_SIZE);
+    }
+
+    // Hai buffer được cấp phát một lần cho cả stream, Cipher ghi thẳng vào buffer đầu ra
+    public static void encrypt(InputStream in, OutputStream out, PublicKey publicKey, boolean useGcm,
+            int bufferSize) throws GeneralSecurityException, IOException {
+        if (in == null || out == null) {
+            throw new IllegalArgumentException("Stream đầu vào và đầu ra không được null");
+        }
+        if (publicKey == null) {
+            throw new IllegalArgumentException("Khóa công khai không được null");
+        }
+        validateBufferSize(bufferSize);
+
         try {
             // 1. Tạo khóa AES ngẫu nhiên
             KeyGenerator keyGen = KeyGenerator.getInstance(AES_ALGORITHM);
@@ -187,41 +273,30 @@ public class RSAHybridEncryption {
             rsaCipher.init(Cipher.ENCRYPT_MODE, publicKey);
             byte[] encryptedAesKey = rsaCipher.doFinal(aesKey.getEncoded());
 
+            if (useGcm) {
+                encryptGcm(in, out, aesKey, encryptedAesKey, bufferSize);
+                return;
+            }
+
             // 3. Khởi tạo AES cipher
             Cipher aesCipher = Cipher.getInstance(AES_TRANSFORMATION);
             aesCipher.init(Cipher.ENCRYPT_MODE, aesKey);
             byte[] iv = aesCipher.getIV();
 
-            // 4. Ghi header và dữ liệu đã mã hóa
-            try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-                // Ghi magic number
-                fos.write(MAGIC_NUMBER);
-                // Ghi độ dài IV
-                fos.write(intToBytes(iv.length));
-                // Ghi IV
-                fos.write(iv);
-                // Ghi độ dài khóa AES đã mã hóa
-                fos.write(intToBytes(encryptedAesKey.length));
-                // Ghi khóa AES đã mã hóa
-                fos.write(encryptedAesKey);
-
-                // 5. Mã hóa và ghi dữ liệu theo từng phần
-                try (FileInputStream fis = new FileInputStream(inputFile)) {
-                    byte[] buffer = new byte[BUFFER_SIZE];
-                    int bytesRead;
-                    while ((bytesRead = fis.read(buffer)) != -1) {
-                        byte[] encryptedChunk = aesCipher.update(buffer, 0, bytesRead);
-                        if (encryptedChunk != null) {
-                            fos.write(encryptedChunk);
-                        }
-                    }
-                    // Ghi phần cuối cùng
-                    byte[] finalChunk = aesCipher.doFinal();
-                    if (finalChunk != null) {
-                        fos.write(finalChunk);
-                    }
-                }
-            }
+            // 4. Ghi header
+            // Ghi magic number
+            out.write(MAGIC_NUMBER);
+            // Ghi độ dài IV
+            out.write(intToBytes(iv.length));
+            // Ghi IV
+            out.write(iv);
+            // Ghi độ dài khóa AES đã mã hóa
+            out.write(intToBytes(encryptedAesKey.length));
+            // Ghi khóa AES đã mã hóa
+            out.write(encryptedAesKey);
+
+            // 5. Mã hóa và ghi dữ liệu theo từng phần
+            streamCbc(in, out, aesCipher, bufferSize);
         } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
             throw new GeneralSecurityException("Lỗi khi khởi tạo: " + e.getMessage(), e);
         } catch (InvalidKeyException e) {
@@ -233,6 +308,12 @@ public class RSAHybridEncryption {
 
     public static void decryptFile(File inputFile, File outputFile, PrivateKey privateKey)
             throws GeneralSecurityException, IOException {
+        decryptFile(inputFile, outputFile, privateKey, DEFAULT_BUFFER_SIZE);
+    }
+
+    // Phiên bản header (CBC hoặc GCM) được nhận diện tự động
+    public static void decryptFile(File inputFile, File outputFile, PrivateKey privateKey, int bufferSize)
+            throws GeneralSecurityException, IOException {
         if (inputFile == null || outputFile == null) {
             throw new IllegalArgumentException("File đầu vào và đầu ra không được null");
         }
@@ -243,81 +324,435 @@ public class RSAHybridEncryption {
             throw new IllegalArgumentException("File đầu vào quá ngắn");
         }
 
-        try (FileInputStream fis = new FileInputStream(inputFile)) {
+        boolean success = false;
+        try (FileInputStream fis = new FileInputStream(inputFile);
+                FileOutputStream fos = new FileOutputStream(outputFile)) {
+            decrypt(fis, fos, privateKey, bufferSize);
+            success = true;
+        } finally {
+            // Không để lại file giải mã dở dang khi thất bại
+            if (!success) {
+                outputFile.delete();
+            }
+        }
+    }
+
+    // Giải mã dữ liệu từ stream sang stream, bộ nhớ không phụ thuộc kích thước dữ liệu
+    public static void decrypt(InputStream in, OutputStream out, PrivateKey privateKey)
+            throws GeneralSecurityException, IOException {
+        decrypt(in, out, privateKey, DEFAULT_BUFFER_SIZE);
+    }
+
+    // bufferSize chỉ áp dụng cho payload CBC, payload GCM dùng kích thước segment ghi trong header
+    public static void decrypt(InputStream in, OutputStream out, PrivateKey privateKey, int bufferSize)
+            throws GeneralSecurityException, IOException {
+        if (in == null || out == null) {
+            throw new IllegalArgumentException("Stream đầu vào và đầu ra không được null");
+        }
+        if (privateKey == null) {
+            throw new IllegalArgumentException("Private key không được null");
+        }
+        validateBufferSize(bufferSize);
+
+        try {
             // 1. Đọc và kiểm tra magic number
             byte[] magic = new byte[MAGIC_NUMBER_LENGTH];
-            if (readBytes(fis, magic) != MAGIC_NUMBER_LENGTH || !isValidMagicNumber(magic)) {
+            if (readBytes(in, magic) != MAGIC_NUMBER_LENGTH || !isValidMagicNumber(magic)) {
                 throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không phải file đã mã hóa hybrid");
             }
 
-            // 2. Đọc IV length và IV
-            byte[] ivLengthBytes = new byte[4];
-            if (readBytes(fis, ivLengthBytes) != 4) {
+            // 2. Byte tiếp theo là phiên bản: 0 là byte đầu của độ dài IV trong định dạng CBC cũ
+            int version = in.read();
+            if (version == VERSION_GCM) {
+                decryptGcm(in, out, privateKey);
+                return;
+            }
+            if (version == VERSION_MULTI) {
+                decryptMulti(in, out, privateKey);
+                return;
+            }
+            if (version != 0) {
+                throw new GeneralSecurityException("Phiên bản định dạng hybrid không được hỗ trợ: " + version);
+            }
+
+            // 3. Đọc phần còn lại của IV length và IV
+            byte[] ivLengthBytes = new byte[3];
+            if (readBytes(in, ivLengthBytes) != 3) {
                 throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc độ dài IV");
             }
-            int ivLength = bytesToInt(ivLengthBytes);
+            int ivLength = bytesToInt(new byte[] { 0, ivLengthBytes[0], ivLengthBytes[1], ivLengthBytes[2] });
             if (ivLength <= 0 || ivLength > 16) {
                 throw new GeneralSecurityException("Độ dài IV không hợp lệ: " + ivLength);
             }
 
             byte[] iv = new byte[ivLength];
-            if (readBytes(fis, iv) != ivLength) {
+            if (readBytes(in, iv) != ivLength) {
                 throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc IV");
             }
 
-            // 3. Đọc độ dài và dữ liệu khóa AES đã mã hóa
-            byte[] aesKeyLengthBytes = new byte[4];
-            if (readBytes(fis, aesKeyLengthBytes) != 4) {
-                throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc độ dài khóa AES");
-            }
-            int aesKeyLength = bytesToInt(aesKeyLengthBytes);
-            if (aesKeyLength <= 0 || aesKeyLength > 512) {
-                throw new GeneralSecurityException("Độ dài khóa AES không hợp lệ: " + aesKeyLength);
+            // 4. Đọc khóa AES đã mã hóa và giải mã bằng RSA
+            SecretKey aesKey = unwrapAesKey(readEncryptedAesKey(in), privateKey);
+
+            // 5. Giải mã dữ liệu theo từng phần
+            Cipher aesCipher = Cipher.getInstance(AES_TRANSFORMATION);
+            aesCipher.init(Cipher.DECRYPT_MODE, aesKey, new IvParameterSpec(iv));
+            streamCbc(in, out, aesCipher, bufferSize);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new GeneralSecurityException("Lỗi khi khởi tạo thuật toán giải mã: " + e.getMessage(), e);
+        } catch (InvalidKeyException e) {
+            throw new GeneralSecurityException("Khóa không hợp lệ: " + e.getMessage(), e);
+        } catch (IllegalBlockSizeException | BadPaddingException e) {
+            throw new GeneralSecurityException("Lỗi trong quá trình giải mã: " + e.getMessage(), e);
+        }
+    }
+
+    // Mã hóa file một lần cho nhiều người nhận
+    public static void encryptFileForRecipients(File inputFile, File outputFile, List<? extends PublicKey> recipients)
+            throws GeneralSecurityException, IOException {
+        if (inputFile == null || outputFile == null) {
+            throw new IllegalArgumentException("File đầu vào và đầu ra không được null");
+        }
+        if (!inputFile.exists()) {
+            throw new FileNotFoundException("File đầu vào không tồn tại: " + inputFile.getPath());
+        }
+
+        try (FileInputStream fis = new FileInputStream(inputFile);
+                FileOutputStream fos = new FileOutputStream(outputFile)) {
+            encryptForRecipients(fis, fos, recipients, DEFAULT_BUFFER_SIZE);
+        }
+    }
+
+    // Payload được mã hóa một lần bằng AES-GCM, mỗi người nhận có một key slot chứa khóa AES bọc bằng RSA.
+    // Người nhận giải mã bằng decrypt/decryptFile thông thường với khóa bí mật của mình.
+    public static void encryptForRecipients(InputStream in, OutputStream out, List<? extends PublicKey> recipients,
+            int bufferSize) throws GeneralSecurityException, IOException {
+        if (in == null || out == null) {
+            throw new IllegalArgumentException("Stream đầu vào và đầu ra không được null");
+        }
+        if (recipients == null || recipients.isEmpty()) {
+            throw new IllegalArgumentException("Cần ít nhất một khóa công khai người nhận");
+        }
+        if (recipients.size() > MAX_RECIPIENTS) {
+            throw new IllegalArgumentException("Tối đa " + MAX_RECIPIENTS + " người nhận");
+        }
+        validateBufferSize(bufferSize);
+
+        KeyGenerator keyGen = KeyGenerator.getInstance(AES_ALGORITHM);
+        keyGen.init(AES_KEY_SIZE);
+        SecretKey aesKey = keyGen.generateKey();
+        byte[][] keyIds = new byte[recipients.size()][];
+        for (int i = 0; i < keyIds.length; i++) {
+            keyIds[i] = keyId(recipients.get(i));
+        }
+        byte[][] wrappedKeys = wrapForRecipients(aesKey, recipients);
+
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        CipherCache.secureRandom().nextBytes(noncePrefix);
+        ByteArrayOutputStream headerStream = new ByteArrayOutputStream();
+        headerStream.write(MAGIC_NUMBER);
+        headerStream.write(VERSION_MULTI);
+        headerStream.write(intToBytes(bufferSize));
+        headerStream.write(noncePrefix);
+        headerStream.write(intToBytes(recipients.size()));
+        for (int i = 0; i < wrappedKeys.length; i++) {
+            headerStream.write(keyIds[i]);
+            headerStream.write(intToBytes(wrappedKeys[i].length));
+            headerStream.write(wrappedKeys[i]);
+        }
+        byte[] header = headerStream.toByteArray();
+        out.write(header);
+        writeAeadSegments(in, out, AES_GCM_TRANSFORMATION, aesKey, MessageDigest.getInstance("SHA-256").digest(header), noncePrefix,
+                bufferSize);
+    }
+
+    // Chạy AES-CBC qua stream với hai buffer dùng lại, không tạo mảng mới cho mỗi chunk
+    private static void streamCbc(InputStream in, OutputStream out, Cipher aesCipher, int bufferSize)
+            throws IOException, GeneralSecurityException {
+        byte[] buffer = new byte[bufferSize];
+        // Khi giải mã, Cipher giữ lại tối đa một block nên đầu ra có thể dài hơn chunk vào một block
+        byte[] output = new byte[bufferSize + 2 * AES_BLOCK_SIZE];
+        int bytesRead;
+        while ((bytesRead = in.read(buffer)) != -1) {
+            int length = aesCipher.update(buffer, 0, bytesRead, output, 0);
+            out.write(output, 0, length);
+        }
+        // Ghi phần cuối cùng
+        int length = aesCipher.doFinal(output, 0);
+        out.write(output, 0, length);
+    }
+
+    // Payload AES-GCM chia thành các segment bufferSize byte, mỗi segment có tag riêng.
+    // Nonce của segment i = nonce prefix | i | cờ segment cuối, header được dùng làm AAD
+    // (giống SegmentedFileEncryption), nên giải mã được theo stream mà vẫn phát hiện cắt bớt hay đổi thứ tự.
+    private static void encryptGcm(InputStream in, OutputStream out, SecretKey aesKey, byte[] encryptedAesKey,
+            int segmentSize) throws IOException, GeneralSecurityException {
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        CipherCache.secureRandom().nextBytes(noncePrefix);
+        byte[] header = ByteBuffer.allocate(GCM_HEADER_LENGTH + encryptedAesKey.length)
+                .put(MAGIC_NUMBER).put(VERSION_GCM).putInt(segmentSize).put(noncePrefix)
+                .putInt(encryptedAesKey.length).put(encryptedAesKey)
+                .array();
+        out.write(header);
+        writeAeadSegments(in, out, AES_GCM_TRANSFORMATION, aesKey, header, noncePrefix, segmentSize);
+    }
+
+    // Ghi các segment AEAD (AES-GCM hoặc ChaCha20-Poly1305) sau header, aad gắn header vào mọi segment.
+    // Dùng chung với ECIESHybridEncryption.
+    static void writeAeadSegments(InputStream in, OutputStream out, String transformation, SecretKey key,
+            byte[] aad, byte[] noncePrefix, int segmentSize) throws IOException, GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(transformation);
+        byte[] nonce = Arrays.copyOf(noncePrefix, GCM_NONCE_LENGTH);
+        // Đọc trước một segment để biết segment hiện tại có phải segment cuối không
+        byte[] current = new byte[segmentSize];
+        byte[] next = new byte[segmentSize];
+        byte[] output = new byte[segmentSize + GCM_TAG_LENGTH];
+        int length = readBytes(in, current);
+        long index = 0;
+        while (true) {
+            int nextLength = length == segmentSize ? readBytes(in, next) : 0;
+            boolean last = nextLength == 0;
+            initAead(cipher, Cipher.ENCRYPT_MODE, key, nonce, index, last, aad);
+            int written = cipher.doFinal(current, 0, length, output, 0);
+            out.write(output, 0, written);
+            if (last) {
+                return;
             }
+            byte[] swap = current;
+            current = next;
+            next = swap;
+            length = nextLength;
+            index++;
+        }
+    }
 
-            byte[] encryptedAesKey = new byte[aesKeyLength];
-            if (readBytes(fis, encryptedAesKey) != aesKeyLength) {
-                throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc khóa AES");
+    private static void decryptGcm(InputStream in, OutputStream out, PrivateKey privateKey)
+            throws IOException, GeneralSecurityException {
+        byte[] fields = new byte[4 + NONCE_PREFIX_LENGTH];
+        if (readBytes(in, fields) != fields.length) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: header GCM bị thiếu");
+        }
+        ByteBuffer fieldBuffer = ByteBuffer.wrap(fields);
+        int segmentSize = fieldBuffer.getInt();
+        if (segmentSize < MIN_BUFFER_SIZE || segmentSize > MAX_BUFFER_SIZE) {
+            throw new GeneralSecurityException("Kích thước segment không hợp lệ: " + segmentSize);
+        }
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        fieldBuffer.get(noncePrefix);
+        byte[] encryptedAesKey = readEncryptedAesKey(in);
+        SecretKey aesKey = unwrapAesKey(encryptedAesKey, privateKey);
+
+        // Dựng lại header đúng như lúc mã hóa để làm AAD
+        byte[] header = ByteBuffer.allocate(GCM_HEADER_LENGTH + encryptedAesKey.length)
+                .put(MAGIC_NUMBER).put(VERSION_GCM).put(fields)
+                .putInt(encryptedAesKey.length).put(encryptedAesKey)
+                .array();
+        readAeadSegments(in, out, AES_GCM_TRANSFORMATION, aesKey, header, noncePrefix, segmentSize);
+    }
+
+    // Giải mã các segment AEAD sau header, chỉ ghi ra segment đã xác thực
+    static void readAeadSegments(InputStream in, OutputStream out, String transformation, SecretKey key,
+            byte[] aad, byte[] noncePrefix, int segmentSize) throws IOException, GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(transformation);
+        byte[] nonce = Arrays.copyOf(noncePrefix, GCM_NONCE_LENGTH);
+        int encryptedSegmentSize = segmentSize + GCM_TAG_LENGTH;
+        byte[] current = new byte[encryptedSegmentSize];
+        byte[] next = new byte[encryptedSegmentSize];
+        byte[] output = new byte[segmentSize];
+        int length = readBytes(in, current);
+        long index = 0;
+        while (true) {
+            if (length < GCM_TAG_LENGTH) {
+                throw new GeneralSecurityException("Dữ liệu GCM bị cắt ở segment " + index);
+            }
+            int nextLength = length == encryptedSegmentSize ? readBytes(in, next) : 0;
+            boolean last = nextLength == 0;
+            initAead(cipher, Cipher.DECRYPT_MODE, key, nonce, index, last, aad);
+            int written;
+            try {
+                written = cipher.doFinal(current, 0, length, output, 0);
+            } catch (AEADBadTagException e) {
+                throw new GeneralSecurityException("Dữ liệu đã bị thay đổi hoặc sai khóa: tag không khớp ở segment "
+                        + index, e);
             }
+            // Chỉ ghi segment đã xác thực
+            out.write(output, 0, written);
+            if (last) {
+                return;
+            }
+            byte[] swap = current;
+            current = next;
+            next = swap;
+            length = nextLength;
+            index++;
+        }
+    }
 
-            // 4. Giải mã khóa AES bằng RSA
-            Cipher rsaCipher = Cipher.getInstance(RSA_TRANSFORMATION);
-            rsaCipher.init(Cipher.DECRYPT_MODE, privateKey);
-            byte[] aesKeyBytes = rsaCipher.doFinal(encryptedAesKey);
+    // Đọc bảng key slot, chỉ giải mã RSA slot có key id trùng với khóa bí mật (không thử lần lượt từng slot)
+    private static void decryptMulti(InputStream in, OutputStream out, PrivateKey privateKey)
+            throws IOException, GeneralSecurityException {
+        byte[] fields = new byte[4 + NONCE_PREFIX_LENGTH + 4];
+        if (readBytes(in, fields) != fields.length) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: header nhiều người nhận bị thiếu");
+        }
+        ByteBuffer fieldBuffer = ByteBuffer.wrap(fields);
+        int segmentSize = fieldBuffer.getInt();
+        if (segmentSize < MIN_BUFFER_SIZE || segmentSize > MAX_BUFFER_SIZE) {
+            throw new GeneralSecurityException("Kích thước segment không hợp lệ: " + segmentSize);
+        }
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        fieldBuffer.get(noncePrefix);
+        int slotCount = fieldBuffer.getInt();
+        if (slotCount <= 0 || slotCount > MAX_RECIPIENTS) {
+            throw new GeneralSecurityException("Số key slot không hợp lệ: " + slotCount);
+        }
 
-            // 5. Tạo lại khóa AES
-            SecretKey aesKey = new SecretKeySpec(aesKeyBytes, AES_ALGORITHM);
+        // Dựng lại header trong lúc đọc để làm AAD
+        ByteArrayOutputStream headerStream = new ByteArrayOutputStream();
+        headerStream.write(MAGIC_NUMBER);
+        headerStream.write(VERSION_MULTI);
+        headerStream.write(fields);
+        byte[] ownId = keyId(privateKey);
+        byte[] ownWrappedKey = null;
+        byte[] slotId = new byte[KEY_ID_LENGTH];
+        for (int i = 0; i < slotCount; i++) {
+            if (readBytes(in, slotId) != KEY_ID_LENGTH) {
+                throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc key slot " + i);
+            }
+            byte[] wrappedKey = readEncryptedAesKey(in);
+            if (ownWrappedKey == null && MessageDigest.isEqual(slotId, ownId)) {
+                ownWrappedKey = wrappedKey;
+            }
+            headerStream.write(slotId);
+            headerStream.write(intToBytes(wrappedKey.length));
+            headerStream.write(wrappedKey);
+        }
+        if (ownWrappedKey == null) {
+            throw new GeneralSecurityException("Khóa bí mật không thuộc danh sách người nhận của dữ liệu này");
+        }
+        SecretKey aesKey = unwrapAesKey(ownWrappedKey, privateKey);
+        readAeadSegments(in, out, AES_GCM_TRANSFORMATION, aesKey, MessageDigest.getInstance("SHA-256").digest(headerStream.toByteArray()),
+                noncePrefix, segmentSize);
+    }
 
-            // 6. Giải mã dữ liệu theo từng phần
-            Cipher aesCipher = Cipher.getInstance(AES_TRANSFORMATION);
-            aesCipher.init(Cipher.DECRYPT_MODE, aesKey, new IvParameterSpec(iv));
+    // Bọc khóa AES cho từng người nhận, song song khi có nhiều người nhận
+    private static byte[][] wrapForRecipients(SecretKey aesKey, List<? extends PublicKey> recipients)
+            throws GeneralSecurityException, IOException {
+        byte[][] wrappedKeys = new byte[recipients.size()][];
+        int threads = Math.min(recipients.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            Cipher rsaCipher = Cipher.getInstance(RSA_TRANSFORMATION);
+            for (int i = 0; i < wrappedKeys.length; i++) {
+                rsaCipher.init(Cipher.ENCRYPT_MODE, recipients.get(i));
+                wrappedKeys[i] = rsaCipher.doFinal(aesKey.getEncoded());
+            }
+            return wrappedKeys;
+        }
 
-            try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-                byte[] buffer = new byte[BUFFER_SIZE];
-                int bytesRead;
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    byte[] decryptedChunk = aesCipher.update(buffer, 0, bytesRead);
-                    if (decryptedChunk != null) {
-                        fos.write(decryptedChunk);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (PublicKey recipient : recipients) {
+                futures.add(executor.submit(() -> {
+                    // Cipher không thread-safe nên mỗi slot dùng một instance riêng
+                    Cipher rsaCipher = Cipher.getInstance(RSA_TRANSFORMATION);
+                    rsaCipher.init(Cipher.ENCRYPT_MODE, recipient);
+                    return rsaCipher.doFinal(aesKey.getEncoded());
+                }));
+            }
+            for (int i = 0; i < wrappedKeys.length; i++) {
+                try {
+                    wrappedKeys[i] = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof GeneralSecurityException) {
+                        throw (GeneralSecurityException) e.getCause();
                     }
-                }
-                // Giải mã phần cuối cùng
-                byte[] finalChunk = aesCipher.doFinal();
-                if (finalChunk != null) {
-                    fos.write(finalChunk);
+                    throw new GeneralSecurityException("Lỗi khi bọc khóa AES: " + e.getCause().getMessage(),
+                            e.getCause());
                 }
             }
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
-            throw new GeneralSecurityException("Lỗi khi khởi tạo thuật toán giải mã: " + e.getMessage(), e);
-        } catch (InvalidKeyException e) {
-            throw new GeneralSecurityException("Khóa không hợp lệ: " + e.getMessage(), e);
-        } catch (IllegalBlockSizeException | BadPaddingException e) {
-            throw new GeneralSecurityException("Lỗi trong quá trình giải mã: " + e.getMessage(), e);
+            return wrappedKeys;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bị ngắt khi bọc khóa AES");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Key id của một cặp khóa RSA = SHA-256 của modulus, tính được từ cả khóa công khai lẫn khóa bí mật
+    private static byte[] keyId(Key key) throws GeneralSecurityException {
+        if (!(key instanceof RSAKey)) {
+            throw new IllegalArgumentException("Chỉ hỗ trợ khóa RSA");
+        }
+        return MessageDigest.getInstance("SHA-256").digest(((RSAKey) key).getModulus().toByteArray());
+    }
+
+    private static void initAead(Cipher cipher, int opmode, SecretKey key, byte[] nonce, long index, boolean last,
+            byte[] aad) throws GeneralSecurityException {
+        if (index > MAX_SEGMENT_COUNT) {
+            throw new GeneralSecurityException("Dữ liệu quá lớn cho kích thước segment này");
+        }
+        nonce[7] = (byte) (index >>> 24);
+        nonce[8] = (byte) (index >>> 16);
+        nonce[9] = (byte) (index >>> 8);
+        nonce[10] = (byte) index;
+        nonce[11] = (byte) (last ? 1 : 0);
+        // Mỗi segment có nonce khác nhau nên init lại cùng một Cipher được.
+        // ChaCha20-Poly1305 nhận nonce qua IvParameterSpec, tag luôn 16 byte.
+        if (cipher.getAlgorithm().startsWith("ChaCha20")) {
+            cipher.init(opmode, key, new IvParameterSpec(nonce));
+        } else {
+            cipher.init(opmode, key, new GCMParameterSpec(GCM_TAG_LENGTH * 8, nonce));
         }
+        cipher.updateAAD(aad);
+    }
+
+    private static byte[] readEncryptedAesKey(InputStream in) throws IOException, GeneralSecurityException {
+        byte[] aesKeyLengthBytes = new byte[4];
+        if (readBytes(in, aesKeyLengthBytes) != 4) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc độ dài khóa AES");
+        }
+        int aesKeyLength = bytesToInt(aesKeyLengthBytes);
+        if (aesKeyLength <= 0 || aesKeyLength > 512) {
+            throw new GeneralSecurityException("Độ dài khóa AES không hợp lệ: " + aesKeyLength);
+        }
+
+        byte[] encryptedAesKey = new byte[aesKeyLength];
+        if (readBytes(in, encryptedAesKey) != aesKeyLength) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không thể đọc khóa AES");
+        }
+        return encryptedAesKey;
+    }
+
+    private static SecretKey unwrapAesKey(byte[] encryptedAesKey, PrivateKey privateKey)
+            throws GeneralSecurityException {
+        Cipher rsaCipher = Cipher.getInstance(RSA_TRANSFORMATION);
+        rsaCipher.init(Cipher.DECRYPT_MODE, privateKey);
+        return new SecretKeySpec(rsaCipher.doFinal(encryptedAesKey), AES_ALGORITHM);
+    }
+
+    private static void validateBufferSize(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE || bufferSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Kích thước buffer phải từ " + MIN_BUFFER_SIZE + " đến "
+                    + MAX_BUFFER_SIZE + " byte");
+        }
+    }
+
+    // Kiểm tra dữ liệu có phải định dạng hybrid (mọi phiên bản) bằng magic number, không giải mã gì
+    public static boolean isHybrid(byte[] data) {
+        if (data == null || data.length < MAGIC_NUMBER_LENGTH + 8) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC_NUMBER_LENGTH; i++) {
+            if (data[i] != MAGIC_NUMBER[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     // Helper method
-    private static int readBytes(InputStream inputStream, byte[] buffer) throws IOException {
+    static int readBytes(InputStream inputStream, byte[] buffer) throws IOException {
         int totalRead = 0;
         int read;
         while (totalRead < buffer.length
@@ -37,8 +37,13 @@ public class CAST5Encryption extends SymmetricEncryption {
         return "CAST5";
     }
 
+    @Override
+    protected String getProvider() {
+        return "BC";
+    }
+
     protected Cipher getCipher(int mode, SecretKey key, IvParameterSpec iv) throws Exception {
-        Cipher cipher = Cipher.getInstance("CAST5/" + this.mode + "/" + this.padding, "BC");
+        Cipher cipher = getCipherInstance();
         cipher.init(mode, key, iv);
         return cipher;
     }
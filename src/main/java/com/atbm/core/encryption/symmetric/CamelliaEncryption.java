@@ -35,8 +35,18 @@ public class CamelliaEncryption extends SymmetricEncryption {
         return "Camellia";
     }
 
+    @Override
+    public String[] getSupportedModes() {
+        return new String[] { "ECB", "CBC", "CTR", "GCM" };
+    }
+
+    @Override
+    protected String getProvider() {
+        return "BC";
+    }
+
     protected Cipher getCipher(int mode, SecretKey key, IvParameterSpec iv) throws Exception {
-        Cipher cipher = Cipher.getInstance("Camellia/" + this.mode + "/" + this.padding, "BC");
+        Cipher cipher = getCipherInstance();
         cipher.init(mode, key, iv);
         return cipher;
     }
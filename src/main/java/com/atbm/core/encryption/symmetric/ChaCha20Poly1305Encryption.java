@@ -1,5 +1,7 @@
 package com.atbm.core.encryption.symmetric;
 
+import javax.crypto.Cipher;
+
 // Class này mã hóa và giải mã dữ liệu sử dụng ChaCha20-Poly1305
 public class ChaCha20Poly1305Encryption extends SymmetricEncryption {
 
@@ -14,6 +16,12 @@ public class ChaCha20Poly1305Encryption extends SymmetricEncryption {
         return "ChaCha20-Poly1305";
     }
 
+    // SunJCE từ chối init lại ChaCha20 với cùng key và nonce, nên không dùng Cipher cache
+    @Override
+    protected Cipher getCipherInstance() throws Exception {
+        return Cipher.getInstance(getTransformation());
+    }
+
     @Override
     public String[] getSupportedModes() {
         return new String[] { "None" };
@@ -36,8 +36,13 @@ public class RC5Encryption extends SymmetricEncryption {
         return "RC5";
     }
 
+    @Override
+    protected String getProvider() {
+        return "BC";
+    }
+
     protected Cipher getCipher(int mode, SecretKey key, IvParameterSpec iv) throws Exception {
-        Cipher cipher = Cipher.getInstance("RC5/" + this.mode + "/" + this.padding, "BC");
+        Cipher cipher = getCipherInstance();
         cipher.init(mode, key, iv);
         return cipher;
     }
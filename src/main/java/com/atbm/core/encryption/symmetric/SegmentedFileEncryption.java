@@ -0,0 +1,515 @@
+package com.atbm.core.encryption.symmetric;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import com.atbm.utils.CipherCache;
+import com.atbm.utils.FileUtils;
+
+// Class này mã hóa/giải mã file theo từng segment độc lập (STREAM construction) trên nhiều thread,
+// hoặc tuần tự với stream (stdin/pipe) không biết trước kích thước. Bộ nhớ chỉ phụ thuộc kích thước segment.
+//
+// Định dạng file:
+//   "SEGENC" | version (1 byte) | algorithm id (1 byte) | segment size (4 byte) | nonce prefix (7 byte)
+//   segment 0 | segment 1 | ... | segment cuối
+// Algorithm id: 1 AES-GCM, 2 ChaCha20-Poly1305, 3 Camellia-GCM, 4 Twofish-GCM.
+// Mỗi segment = ciphertext (segment size byte, segment cuối có thể ngắn hơn hoặc rỗng) + tag 16 byte.
+// Nonce của segment i = nonce prefix | i (4 byte big-endian) | cờ segment cuối (1 byte),
+// header được dùng làm AAD, nên không thể đổi thứ tự, cắt bớt hay nối thêm segment.
+public class SegmentedFileEncryption {
+    public static final String ALGORITHM_AES_GCM = "AES";
+    public static final String ALGORITHM_CHACHA20_POLY1305 = "ChaCha20-Poly1305";
+    public static final String ALGORITHM_CAMELLIA_GCM = "Camellia";
+    public static final String ALGORITHM_TWOFISH_GCM = "Twofish";
+
+    // Kích thước segment mặc định là 1MB
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+    private static final byte[] MAGIC_NUMBER = "SEGENC".getBytes();
+    private static final byte VERSION = 1;
+    private static final byte AES_GCM_ID = 1;
+    private static final byte CHACHA20_POLY1305_ID = 2;
+    private static final byte CAMELLIA_GCM_ID = 3;
+    private static final byte TWOFISH_GCM_ID = 4;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int HEADER_LENGTH = MAGIC_NUMBER.length + 1 + 1 + 4 + NONCE_PREFIX_LENGTH;
+    private static final int TAG_LENGTH = 16;
+    private static final int MIN_SEGMENT_SIZE = 4096;
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+    // Bộ đếm segment trong nonce dài 4 byte
+    private static final long MAX_SEGMENT_COUNT = 0xFFFFFFFFL;
+
+    // Kiểm tra thuật toán có hỗ trợ mã hóa phân đoạn không
+    public static boolean isSupported(String algorithm) {
+        return ALGORITHM_AES_GCM.equalsIgnoreCase(algorithm)
+                || ALGORITHM_CHACHA20_POLY1305.equalsIgnoreCase(algorithm)
+                || ALGORITHM_CAMELLIA_GCM.equalsIgnoreCase(algorithm)
+                || ALGORITHM_TWOFISH_GCM.equalsIgnoreCase(algorithm);
+    }
+
+    // Kiểm tra file có header mã hóa phân đoạn không (để phân biệt với file AEAD một lượt cũ)
+    public static boolean isSegmented(File file) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            return Arrays.equals(input.readNBytes(MAGIC_NUMBER.length), MAGIC_NUMBER);
+        }
+    }
+
+    // Như trên nhưng với stream, dùng mark/reset nên không tiêu thụ byte nào của stream
+    public static boolean isSegmented(InputStream input) throws IOException {
+        if (!input.markSupported()) {
+            throw new IllegalArgumentException("Stream phải hỗ trợ mark/reset");
+        }
+        input.mark(MAGIC_NUMBER.length);
+        byte[] magic = input.readNBytes(MAGIC_NUMBER.length);
+        input.reset();
+        return Arrays.equals(magic, MAGIC_NUMBER);
+    }
+
+    public static void encryptFile(File inputFile, File outputFile, SecretKey key, String algorithm,
+            Consumer<Double> progressCallback) throws GeneralSecurityException, IOException {
+        encryptFile(inputFile, outputFile, key, algorithm, DEFAULT_SEGMENT_SIZE,
+                Runtime.getRuntime().availableProcessors(), progressCallback);
+    }
+
+    // Mã hóa file, các segment được mã hóa song song với parallelism thread
+    public static void encryptFile(File inputFile, File outputFile, SecretKey key, String algorithm,
+            int segmentSize, int parallelism, Consumer<Double> progressCallback)
+            throws GeneralSecurityException, IOException {
+        validateFiles(inputFile, outputFile);
+        if (key == null) {
+            throw new IllegalArgumentException("Khóa không được null");
+        }
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Kích thước segment phải từ " + MIN_SEGMENT_SIZE + " đến "
+                    + MAX_SEGMENT_SIZE + " byte");
+        }
+        byte algorithmId = toAlgorithmId(algorithm);
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        CipherCache.secureRandom().nextBytes(noncePrefix);
+        byte[] header = createHeader(algorithmId, segmentSize, noncePrefix);
+
+        long plainLength = inputFile.length();
+        // File rỗng vẫn có một segment cuối (chỉ chứa tag)
+        long segmentCount = Math.max(1, (plainLength + segmentSize - 1) / segmentSize);
+        if (segmentCount > MAX_SEGMENT_COUNT) {
+            throw new IllegalArgumentException("File quá lớn so với kích thước segment " + segmentSize);
+        }
+
+        boolean success = false;
+        try (FileChannel in = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, ByteBuffer.wrap(header), 0);
+            SegmentJob job = new SegmentJob(true, in, out, key, algorithmId, header, noncePrefix, segmentSize,
+                    segmentCount, plainLength, progressCallback);
+            runParallel(job, parallelism);
+            success = true;
+        } finally {
+            // File mã hóa dở dang thiếu segment nên không giải mã được, xóa luôn khi thất bại
+            if (!success) {
+                Files.deleteIfExists(outputFile.toPath());
+            }
+        }
+    }
+
+    public static void decryptFile(File inputFile, File outputFile, SecretKey key, Consumer<Double> progressCallback)
+            throws GeneralSecurityException, IOException {
+        decryptFile(inputFile, outputFile, key, Runtime.getRuntime().availableProcessors(), progressCallback);
+    }
+
+    // Giải mã file, thuật toán và kích thước segment được đọc từ header
+    public static void decryptFile(File inputFile, File outputFile, SecretKey key, int parallelism,
+            Consumer<Double> progressCallback) throws GeneralSecurityException, IOException {
+        validateFiles(inputFile, outputFile);
+        if (key == null) {
+            throw new IllegalArgumentException("Khóa không được null");
+        }
+
+        try (FileChannel in = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            byte[] header = new byte[HEADER_LENGTH];
+            if (in.size() < HEADER_LENGTH + TAG_LENGTH || readFully(in, ByteBuffer.wrap(header), 0) != HEADER_LENGTH) {
+                throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: file quá ngắn");
+            }
+            ByteBuffer headerBuffer = parseHeader(header);
+            byte algorithmId = headerBuffer.get();
+            int segmentSize = headerBuffer.getInt();
+            byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+            headerBuffer.get(noncePrefix);
+
+            long bodyLength = in.size() - HEADER_LENGTH;
+            long encryptedSegmentSize = (long) segmentSize + TAG_LENGTH;
+            long segmentCount = (bodyLength + encryptedSegmentSize - 1) / encryptedSegmentSize;
+            if (segmentCount > MAX_SEGMENT_COUNT) {
+                throw new GeneralSecurityException("Số segment vượt quá giới hạn của bộ đếm nonce");
+            }
+            long lastSegmentLength = bodyLength - (segmentCount - 1) * encryptedSegmentSize;
+            if (lastSegmentLength < TAG_LENGTH) {
+                throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: segment cuối bị cắt");
+            }
+            long plainLength = bodyLength - segmentCount * TAG_LENGTH;
+
+            boolean success = false;
+            try (FileChannel out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                SegmentJob job = new SegmentJob(false, in, out, key, algorithmId, header, noncePrefix, segmentSize,
+                        segmentCount, plainLength, progressCallback);
+                runParallel(job, parallelism);
+                success = true;
+            } finally {
+                // Không để lại file giải mã dở dang khi xác thực thất bại
+                if (!success) {
+                    Files.deleteIfExists(outputFile.toPath());
+                }
+            }
+        }
+    }
+
+    // Mã hóa tuần tự từ in sang out với segment mặc định, dùng cho stream không biết trước kích thước.
+    // Đầu ra có cùng định dạng với encryptFile. Trả về số byte bản rõ đã mã hóa.
+    public static long encrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key, String algorithm)
+            throws GeneralSecurityException, IOException {
+        if (key == null) {
+            throw new IllegalArgumentException("Khóa không được null");
+        }
+        byte algorithmId = toAlgorithmId(algorithm);
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        CipherCache.secureRandom().nextBytes(noncePrefix);
+        byte[] header = createHeader(algorithmId, DEFAULT_SEGMENT_SIZE, noncePrefix);
+        FileUtils.writeFully(out, ByteBuffer.wrap(header));
+        return processSequential(true, in, out, key, algorithmId, header, noncePrefix, DEFAULT_SEGMENT_SIZE);
+    }
+
+    // Giải mã tuần tự dữ liệu của encrypt/encryptFile. Segment được ghi ra ngay khi xác thực xong, nên khi
+    // dữ liệu bị sửa hoặc cắt bớt, các segment trước đó đã nằm ở out. Trả về số byte bản rõ đã ghi.
+    public static long decrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key)
+            throws GeneralSecurityException, IOException {
+        if (key == null) {
+            throw new IllegalArgumentException("Khóa không được null");
+        }
+        byte[] header = new byte[HEADER_LENGTH];
+        if (FileUtils.readFully(in, ByteBuffer.wrap(header)) != HEADER_LENGTH) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: dữ liệu quá ngắn");
+        }
+        ByteBuffer headerBuffer = parseHeader(header);
+        byte algorithmId = headerBuffer.get();
+        int segmentSize = headerBuffer.getInt();
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        headerBuffer.get(noncePrefix);
+        return processSequential(false, in, out, key, algorithmId, header, noncePrefix, segmentSize);
+    }
+
+    // Xử lý từng segment theo thứ tự. Luôn đọc trước segment kế tiếp để biết segment hiện tại có phải
+    // segment cuối không (cờ trong nonce), nên chỉ giữ hai segment trong bộ nhớ.
+    private static long processSequential(boolean encrypt, ReadableByteChannel in, WritableByteChannel out,
+            SecretKey key, byte algorithmId, byte[] header, byte[] noncePrefix, int segmentSize)
+            throws GeneralSecurityException, IOException {
+        int inputSize = encrypt ? segmentSize : segmentSize + TAG_LENGTH;
+        ByteBuffer current = ByteBuffer.allocate(inputSize);
+        ByteBuffer next = ByteBuffer.allocate(inputSize);
+        ByteBuffer target = ByteBuffer.allocate(segmentSize + TAG_LENGTH);
+        FileUtils.readFully(in, current);
+        long total = 0;
+        for (long index = 0;; index++) {
+            if (index >= MAX_SEGMENT_COUNT) {
+                throw new GeneralSecurityException("Số segment vượt quá giới hạn của bộ đếm nonce");
+            }
+            // Segment chưa đầy nghĩa là đã hết dữ liệu
+            next.clear();
+            boolean last = current.hasRemaining() || FileUtils.readFully(in, next) == 0;
+            if (!encrypt && current.position() < TAG_LENGTH) {
+                throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: segment cuối bị cắt");
+            }
+
+            Cipher cipher = initCipher(encrypt, key, algorithmId, header, noncePrefix, index, last);
+            current.flip();
+            target.clear();
+            try {
+                cipher.doFinal(current, target);
+            } catch (AEADBadTagException e) {
+                throw new GeneralSecurityException("Xác thực segment thất bại: dữ liệu bị sửa đổi hoặc sai khóa", e);
+            }
+            target.flip();
+            total += encrypt ? current.limit() : target.remaining();
+            FileUtils.writeFully(out, target);
+            if (last) {
+                return total;
+            }
+            ByteBuffer swap = current;
+            current = next;
+            next = swap;
+        }
+    }
+
+    private static byte[] createHeader(byte algorithmId, int segmentSize, byte[] noncePrefix) {
+        byte[] header = new byte[HEADER_LENGTH];
+        ByteBuffer.wrap(header).put(MAGIC_NUMBER).put(VERSION).put(algorithmId).putInt(segmentSize).put(noncePrefix);
+        return header;
+    }
+
+    // Kiểm tra magic, version, thuật toán và kích thước segment; trả về buffer đặt ở vị trí algorithm id
+    private static ByteBuffer parseHeader(byte[] header) throws GeneralSecurityException {
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        byte[] magic = new byte[MAGIC_NUMBER.length];
+        headerBuffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC_NUMBER)) {
+            throw new GeneralSecurityException("Định dạng dữ liệu không hợp lệ: không phải file mã hóa phân đoạn");
+        }
+        byte version = headerBuffer.get();
+        if (version != VERSION) {
+            throw new GeneralSecurityException("Phiên bản định dạng không được hỗ trợ: " + version);
+        }
+        byte algorithmId = headerBuffer.get(headerBuffer.position());
+        if (algorithmId < AES_GCM_ID || algorithmId > TWOFISH_GCM_ID) {
+            throw new GeneralSecurityException("Thuật toán không hợp lệ trong header: " + algorithmId);
+        }
+        int segmentSize = headerBuffer.getInt(headerBuffer.position() + 1);
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new GeneralSecurityException("Kích thước segment không hợp lệ: " + segmentSize);
+        }
+        return headerBuffer;
+    }
+
+    // Nonce của segment = nonce prefix | index | cờ segment cuối, header làm AAD
+    private static Cipher initCipher(boolean encrypt, SecretKey key, byte algorithmId, byte[] header,
+            byte[] noncePrefix, long index, boolean last) throws GeneralSecurityException {
+        byte[] nonce = new byte[12];
+        System.arraycopy(noncePrefix, 0, nonce, 0, NONCE_PREFIX_LENGTH);
+        nonce[7] = (byte) (index >>> 24);
+        nonce[8] = (byte) (index >>> 16);
+        nonce[9] = (byte) (index >>> 8);
+        nonce[10] = (byte) index;
+        nonce[11] = (byte) (last ? 1 : 0);
+
+        int opmode = encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE;
+        // Cipher mới cho mỗi segment: SunJCE không cho init lại AEAD với nonce đã dùng
+        Cipher cipher;
+        switch (algorithmId) {
+            case AES_GCM_ID:
+                cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                break;
+            case CAMELLIA_GCM_ID:
+                cipher = Cipher.getInstance("Camellia/GCM/NoPadding", "BC");
+                break;
+            case TWOFISH_GCM_ID:
+                cipher = Cipher.getInstance("Twofish/GCM/NoPadding", "BC");
+                break;
+            default:
+                cipher = Cipher.getInstance("ChaCha20-Poly1305");
+                cipher.init(opmode, key, new IvParameterSpec(nonce));
+                cipher.updateAAD(header);
+                return cipher;
+        }
+        cipher.init(opmode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        cipher.updateAAD(header);
+        return cipher;
+    }
+
+    private static void runParallel(SegmentJob job, int parallelism) throws GeneralSecurityException, IOException {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new SegmentTask(job, 0, job.segmentCount));
+        } catch (SegmentException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AEADBadTagException) {
+                throw new GeneralSecurityException("Xác thực segment thất bại: dữ liệu bị sửa đổi hoặc sai khóa",
+                        cause);
+            } else if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) cause;
+            }
+            throw new GeneralSecurityException("Lỗi khi xử lý segment: " + cause.getMessage(), cause);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            // Khi một segment lỗi, chờ các segment khác dừng trước khi đóng channel
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Tham số dùng chung cho mọi segment của một lần mã hóa/giải mã
+    private static class SegmentJob {
+        final boolean encrypt;
+        final FileChannel in;
+        final FileChannel out;
+        final SecretKey key;
+        final byte algorithmId;
+        final byte[] header;
+        final byte[] noncePrefix;
+        final int segmentSize;
+        final long segmentCount;
+        final long plainLength;
+        final Consumer<Double> progressCallback;
+        final AtomicLong processed = new AtomicLong();
+        // Mỗi worker thread dùng lại hai buffer của mình cho mọi segment
+        final ThreadLocal<ByteBuffer[]> buffers;
+
+        SegmentJob(boolean encrypt, FileChannel in, FileChannel out, SecretKey key, byte algorithmId, byte[] header,
+                byte[] noncePrefix, int segmentSize, long segmentCount, long plainLength,
+                Consumer<Double> progressCallback) {
+            this.encrypt = encrypt;
+            this.in = in;
+            this.out = out;
+            this.key = key;
+            this.algorithmId = algorithmId;
+            this.header = header;
+            this.noncePrefix = noncePrefix;
+            this.segmentSize = segmentSize;
+            this.segmentCount = segmentCount;
+            this.plainLength = plainLength;
+            this.progressCallback = progressCallback;
+            this.buffers = ThreadLocal.withInitial(() -> new ByteBuffer[] {
+                    ByteBuffer.allocateDirect(segmentSize + TAG_LENGTH),
+                    ByteBuffer.allocateDirect(segmentSize + TAG_LENGTH) });
+        }
+
+        void processSegment(long index) throws Exception {
+            boolean last = index == segmentCount - 1;
+            long plainOffset = index * segmentSize;
+            int plainSize = (int) (last ? plainLength - plainOffset : segmentSize);
+            long encryptedOffset = HEADER_LENGTH + index * ((long) segmentSize + TAG_LENGTH);
+
+            ByteBuffer[] pair = buffers.get();
+            ByteBuffer source = pair[0];
+            ByteBuffer target = pair[1];
+            source.clear();
+            target.clear();
+
+            Cipher cipher = initCipher(index, last);
+            if (encrypt) {
+                source.limit(plainSize);
+                if (readFully(in, source, plainOffset) != plainSize) {
+                    throw new IOException("Không đọc đủ dữ liệu của segment " + index);
+                }
+                source.flip();
+                cipher.doFinal(source, target);
+                target.flip();
+                writeFully(out, target, encryptedOffset);
+            } else {
+                source.limit(plainSize + TAG_LENGTH);
+                if (readFully(in, source, encryptedOffset) != plainSize + TAG_LENGTH) {
+                    throw new IOException("Không đọc đủ dữ liệu của segment " + index);
+                }
+                source.flip();
+                cipher.doFinal(source, target);
+                target.flip();
+                writeFully(out, target, plainOffset);
+            }
+
+            long done = processed.addAndGet(plainSize);
+            if (progressCallback != null && plainLength > 0) {
+                progressCallback.accept((double) done / plainLength);
+            }
+        }
+
+        private Cipher initCipher(long index, boolean last) throws GeneralSecurityException {
+            return SegmentedFileEncryption.initCipher(encrypt, key, algorithmId, header, noncePrefix, index, last);
+        }
+    }
+
+    // Chia đôi dải segment cho tới khi còn một segment
+    private static class SegmentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SegmentJob job;
+        private final long from;
+        private final long to;
+
+        SegmentTask(SegmentJob job, long from, long to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                try {
+                    job.processSegment(from);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (Exception e) {
+                    throw new SegmentException(e);
+                }
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            invokeAll(new SegmentTask(job, from, mid), new SegmentTask(job, mid, to));
+        }
+    }
+
+    private static class SegmentException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SegmentException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private static byte toAlgorithmId(String algorithm) {
+        if (ALGORITHM_AES_GCM.equalsIgnoreCase(algorithm)) {
+            return AES_GCM_ID;
+        } else if (ALGORITHM_CHACHA20_POLY1305.equalsIgnoreCase(algorithm)) {
+            return CHACHA20_POLY1305_ID;
+        } else if (ALGORITHM_CAMELLIA_GCM.equalsIgnoreCase(algorithm)) {
+            return CAMELLIA_GCM_ID;
+        } else if (ALGORITHM_TWOFISH_GCM.equalsIgnoreCase(algorithm)) {
+            return TWOFISH_GCM_ID;
+        }
+        throw new IllegalArgumentException("Mã hóa phân đoạn chỉ hỗ trợ AES, Camellia, Twofish (GCM) và "
+                + "ChaCha20-Poly1305: " + algorithm);
+    }
+
+    private static void validateFiles(File inputFile, File outputFile) throws FileNotFoundException {
+        if (inputFile == null || outputFile == null) {
+            throw new IllegalArgumentException("File đầu vào và đầu ra không được null");
+        }
+        if (!inputFile.exists()) {
+            throw new FileNotFoundException("File đầu vào không tồn tại: " + inputFile.getPath());
+        }
+    }
+
+    // Đọc tới khi đầy buffer hoặc hết file, trả về số byte đã đọc
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
@@ -3,13 +3,22 @@ package com.atbm.core.encryption.symmetric;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
 import java.security.Key;
-import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
 import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.utils.CipherCache;
 
 // Class này là lớp cha cho các thuật toán mã hóa đối xứng
 public abstract class SymmetricEncryption implements EncryptionAlgorithm {
+    // GCM dùng nonce 12 byte và tag 128 bit gắn ở cuối bản mã
+    public static final int GCM_IV_LENGTH = 12;
+    public static final int GCM_TAG_BITS = 128;
+
     protected String algorithm;
     protected String mode;
     protected String padding;
@@ -20,21 +29,18 @@ public abstract class SymmetricEncryption implements EncryptionAlgorithm {
         this.mode = mode;
         this.padding = padding;
         this.keySize = keySize;
+        if (isStreamMode() && !Arrays.asList(getSupportedModes()).contains(mode)) {
+            throw new IllegalArgumentException("Thuật toán " + algorithm + " không hỗ trợ mode " + mode);
+        }
     }
 
     @Override
     public byte[] encrypt(byte[] data, Key key) throws Exception {
-        String transformation;
-        if (algorithm.equals("ChaCha20-Poly1305")) {
-            transformation = "ChaCha20-Poly1305";
-        } else {
-            transformation = algorithm + "/" + mode + "/" + padding;
-        }
-        Cipher cipher = Cipher.getInstance(transformation);
+        Cipher cipher = getCipherInstance();
 
         // Xử lý padding
         byte[] dataToEncrypt = data;
-        if (padding.equals("NoPadding") && !algorithm.equals("ChaCha20-Poly1305")) {
+        if (padding.equals("NoPadding") && !algorithm.equals("ChaCha20-Poly1305") && !isStreamMode()) {
             int blockSize = cipher.getBlockSize();
             int paddingLength = blockSize - (data.length % blockSize);
             if (paddingLength > 0 && paddingLength < blockSize) {
@@ -49,7 +55,7 @@ public abstract class SymmetricEncryption implements EncryptionAlgorithm {
 
         if (algorithm.equals("ChaCha20-Poly1305")) {
             byte[] nonce = new byte[12];
-            new SecureRandom().nextBytes(nonce);
+            CipherCache.secureRandom().nextBytes(nonce);
             cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(nonce));
             byte[] encryptedData = cipher.doFinal(dataToEncrypt);
 
@@ -57,12 +63,12 @@ public abstract class SymmetricEncryption implements EncryptionAlgorithm {
             System.arraycopy(nonce, 0, result, 0, nonce.length);
             System.arraycopy(encryptedData, 0, result, nonce.length, encryptedData.length);
             return result;
-        } else if (mode.equals("CBC")) {
-            // Handle IV for CBC mode
+        } else if (usesIV()) {
+            // Handle IV for CBC/CTR/GCM mode
             int ivLength = getIVLength();
             byte[] iv = new byte[ivLength];
-            new SecureRandom().nextBytes(iv);
-            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+            CipherCache.secureRandom().nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key, getParameterSpec(iv));
             byte[] encrypted = cipher.doFinal(dataToEncrypt);
             // Prepend IV
             byte[] result = new byte[iv.length + encrypted.length];
@@ -78,13 +84,7 @@ public abstract class SymmetricEncryption implements EncryptionAlgorithm {
 
     @Override
     public byte[] decrypt(byte[] encryptedDataWithPrefix, Key key) throws Exception {
-        String transformation;
-        if (algorithm.equals("ChaCha20-Poly1305")) {
-            transformation = "ChaCha20-Poly1305";
-        } else {
-            transformation = algorithm + "/" + mode + "/" + padding;
-        }
-        Cipher cipher = Cipher.getInstance(transformation);
+        Cipher cipher = getCipherInstance();
 
         if (algorithm.equals("ChaCha20-Poly1305")) {
             // Extract nonce and encrypted data
@@ -99,21 +99,21 @@ public abstract class SymmetricEncryption implements EncryptionAlgorithm {
 
             cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(nonce));
             return cipher.doFinal(encryptedData);
-        } else if (mode.equals("CBC")) {
-            // Xử lý IV cho CBC mode
+        } else if (usesIV()) {
+            // Xử lý IV cho CBC/CTR/GCM mode, với GCM doFinal ném AEADBadTagException nếu tag sai
             int ivLength = getIVLength();
             if (encryptedDataWithPrefix == null || encryptedDataWithPrefix.length < ivLength) {
-                throw new IllegalArgumentException("Invalid encrypted data length for CBC mode");
+                throw new IllegalArgumentException("Invalid encrypted data length for " + mode + " mode");
             }
             byte[] iv = new byte[ivLength];
             System.arraycopy(encryptedDataWithPrefix, 0, iv, 0, iv.length);
             byte[] encrypted = new byte[encryptedDataWithPrefix.length - iv.length];
             System.arraycopy(encryptedDataWithPrefix, iv.length, encrypted, 0, encrypted.length);
-            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+            cipher.init(Cipher.DECRYPT_MODE, key, getParameterSpec(iv));
             byte[] decryptedData = cipher.doFinal(encrypted);
 
-            // Xóa padding zeros nếu NoPadding được sử dụng
-            if (padding.equals("NoPadding")) {
+            // Xóa padding zeros nếu NoPadding được sử dụng (CTR/GCM không điền thêm byte nào)
+            if (padding.equals("NoPadding") && !isStreamMode()) {
                 int i = decryptedData.length - 1;
                 while (i >= 0 && decryptedData[i] == 0) {
                     i--;
@@ -146,6 +146,141 @@ public abstract class SymmetricEncryption implements EncryptionAlgorithm {
         }
     }
 
+    // Mã hóa thẳng từ src vào dst bằng Cipher.doFinal(ByteBuffer, ByteBuffer), không tạo mảng trung gian
+    @Override
+    public int encrypt(ByteBuffer src, ByteBuffer dst, Key key) throws Exception {
+        int required = getOutputSize(src.remaining(), true);
+        if (dst.remaining() < required) {
+            throw new ShortBufferException("Output buffer too small: need " + required + " bytes, have "
+                    + dst.remaining());
+        }
+        Cipher cipher = getCipherInstance();
+        int start = dst.position();
+
+        if (algorithm.equals("ChaCha20-Poly1305")) {
+            byte[] nonce = new byte[12];
+            CipherCache.secureRandom().nextBytes(nonce);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(nonce));
+            dst.put(nonce);
+            cipher.doFinal(src, dst);
+            return dst.position() - start;
+        }
+
+        if (usesIV()) {
+            byte[] iv = new byte[getIVLength()];
+            CipherCache.secureRandom().nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key, getParameterSpec(iv));
+            dst.put(iv);
+        } else {
+            cipher.init(Cipher.ENCRYPT_MODE, key);
+        }
+
+        int tail = padding.equals("NoPadding") && !isStreamMode() ? src.remaining() % cipher.getBlockSize() : 0;
+        if (tail == 0) {
+            cipher.doFinal(src, dst);
+        } else {
+            // NoPadding: mã hóa phần chẵn block, block cuối được điền 0 giống bản byte[]
+            ByteBuffer body = src.duplicate();
+            body.limit(src.limit() - tail);
+            cipher.update(body, dst);
+            byte[] lastBlock = new byte[cipher.getBlockSize()];
+            src.position(src.limit() - tail);
+            src.get(lastBlock, 0, tail);
+            cipher.doFinal(ByteBuffer.wrap(lastBlock), dst);
+        }
+        return dst.position() - start;
+    }
+
+    @Override
+    public int decrypt(ByteBuffer src, ByteBuffer dst, Key key) throws Exception {
+        int required = getOutputSize(src.remaining(), false);
+        if (dst.remaining() < required) {
+            throw new ShortBufferException("Output buffer too small: need " + required + " bytes, have "
+                    + dst.remaining());
+        }
+        Cipher cipher = getCipherInstance();
+        int start = dst.position();
+
+        if (algorithm.equals("ChaCha20-Poly1305")) {
+            if (src.remaining() < 12) {
+                throw new IllegalArgumentException("Invalid encrypted data length for ChaCha20-Poly1305");
+            }
+            byte[] nonce = new byte[12];
+            src.get(nonce);
+            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(nonce));
+            cipher.doFinal(src, dst);
+            return dst.position() - start;
+        }
+
+        if (usesIV()) {
+            int ivLength = getIVLength();
+            if (src.remaining() < ivLength) {
+                throw new IllegalArgumentException("Invalid encrypted data length for " + mode + " mode");
+            }
+            byte[] iv = new byte[ivLength];
+            src.get(iv);
+            cipher.init(Cipher.DECRYPT_MODE, key, getParameterSpec(iv));
+        } else {
+            cipher.init(Cipher.DECRYPT_MODE, key);
+        }
+        cipher.doFinal(src, dst);
+
+        // Xóa padding zeros nếu NoPadding được sử dụng
+        if (padding.equals("NoPadding") && !isStreamMode()) {
+            int end = dst.position();
+            while (end > start && dst.get(end - 1) == 0) {
+                end--;
+            }
+            dst.position(end);
+        }
+        return dst.position() - start;
+    }
+
+    // Kích thước tối đa của đầu ra (gồm cả IV/nonce và tag) cho inputLength byte đầu vào
+    @Override
+    public int getOutputSize(int inputLength, boolean encrypt) {
+        if (algorithm.equals("ChaCha20-Poly1305")) {
+            // 12 byte nonce + 16 byte tag Poly1305
+            return encrypt ? inputLength + 12 + 16 : Math.max(0, inputLength - 12 - 16);
+        }
+        int ivLength = usesIV() ? getIVLength() : 0;
+        if (mode.equals("GCM")) {
+            // Nonce 12 byte + tag 16 byte, không có padding
+            int tagLength = GCM_TAG_BITS / 8;
+            return encrypt ? ivLength + inputLength + tagLength : Math.max(0, inputLength - ivLength - tagLength);
+        }
+        if (mode.equals("CTR")) {
+            return encrypt ? ivLength + inputLength : Math.max(0, inputLength - ivLength);
+        }
+        if (!encrypt) {
+            return Math.max(0, inputLength - ivLength);
+        }
+        // Độ dài IV cũng chính là kích thước block của thuật toán
+        int blockSize = getIVLength();
+        int blocks = padding.equals("NoPadding") ? (inputLength + blockSize - 1) / blockSize
+                : inputLength / blockSize + 1;
+        return ivLength + blocks * blockSize;
+    }
+
+    // Transformation dùng cho Cipher.getInstance
+    protected String getTransformation() {
+        if (algorithm.equals("ChaCha20-Poly1305")) {
+            return "ChaCha20-Poly1305";
+        }
+        // CTR và GCM là stream mode, không dùng padding
+        return algorithm + "/" + mode + "/" + (isStreamMode() ? "NoPadding" : padding);
+    }
+
+    // Provider của Cipher, null nghĩa là dùng provider mặc định
+    protected String getProvider() {
+        return null;
+    }
+
+    // Lấy Cipher đã cache cho thread hiện tại, chỉ cần init() lại trước khi dùng
+    protected Cipher getCipherInstance() throws Exception {
+        return CipherCache.getCipher(getTransformation(), getProvider());
+    }
+
     public SecretKey generateKey() throws Exception {
         KeyGenerator keyGen = KeyGenerator.getInstance(algorithm);
         keyGen.init(keySize);
@@ -162,8 +297,29 @@ public abstract class SymmetricEncryption implements EncryptionAlgorithm {
         return new String[] { "PKCS5Padding", "NoPadding" };
     }
 
+    // CTR và GCM mã hóa theo keystream: bản mã dài bằng bản rõ (GCM thêm tag), không cần padding
+    public boolean isStreamMode() {
+        return "CTR".equals(mode) || "GCM".equals(mode);
+    }
+
+    // Các mode cần IV ngẫu nhiên ghi ở đầu bản mã
+    public boolean usesIV() {
+        return "CBC".equals(mode) || isStreamMode();
+    }
+
+    // Tham số init Cipher cho IV, GCM cần thêm độ dài tag
+    public AlgorithmParameterSpec getParameterSpec(byte[] iv) {
+        if ("GCM".equals(mode)) {
+            return new GCMParameterSpec(GCM_TAG_BITS, iv);
+        }
+        return new IvParameterSpec(iv);
+    }
+
     // Helper method để lấy độ dài IV dựa trên thuật toán
-    private int getIVLength() {
+    public int getIVLength() {
+        if ("GCM".equals(mode)) {
+            return GCM_IV_LENGTH;
+        }
         switch (algorithm) {
             case "DES":
             case "DESede":
@@ -35,8 +35,19 @@ public class TwofishEncryption extends SymmetricEncryption {
         return "Twofish";
     }
 
+    // Twofish có block 128 bit nên dùng được CTR và GCM của BouncyCastle
+    @Override
+    public String[] getSupportedModes() {
+        return new String[] { "ECB", "CBC", "CTR", "GCM" };
+    }
+
+    @Override
+    protected String getProvider() {
+        return "BC";
+    }
+
     protected Cipher getCipher(int mode, SecretKey key, IvParameterSpec iv) throws Exception {
-        Cipher cipher = Cipher.getInstance("Twofish/" + this.mode + "/" + this.padding, "BC");
+        Cipher cipher = getCipherInstance();
         cipher.init(mode, key, iv);
         return cipher;
     }
@@ -4,13 +4,13 @@ import java.security.Key;
 import java.nio.charset.StandardCharsets;
 
 // Class này mã hóa và giải mã dữ liệu sử dụng Affine Cipher
-public class AffineCipher extends TraditionalEncryption {
+public class AffineCipher extends SubstitutionCipher {
     public AffineCipher() {
         super("Affine");
     }
 
     private int modInverse(int a, int m) {
-        a = a % m;
+        a = Math.floorMod(a, m);
         for (int x = 1; x < m; x++) {
             if ((a * x) % m == 1)
                 return x;
@@ -18,54 +18,29 @@ public class AffineCipher extends TraditionalEncryption {
         throw new IllegalArgumentException("a và 26 không nguyên tố cùng nhau!");
     }
 
-    public String encrypt(String plainText, String key) {
+    // Key dạng "a,b": E(x) = a*x + b (mod 26), a phải khả nghịch mod 26 để giải mã được
+    @Override
+    protected TranslationTable compile(String key) {
         String[] parts = key.split(",");
-        int a = Integer.parseInt(parts[0].trim());
-        int b = Integer.parseInt(parts[1].trim());
-        StringBuilder result = new StringBuilder();
-        for (char c : plainText.toCharArray()) {
-            if (Character.isLetter(c)) {
-                int base = Character.isLowerCase(c) ? 'a' : 'A';
-                int x = c - base;
-                int enc = (a * x + b) % 26;
-                result.append((char) (base + enc));
-            } else {
-                result.append(c);
-            }
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Khóa Affine phải có dạng a,b");
         }
-        return result.toString();
-    }
-
-    public String decrypt(String cipherText, String key) {
-        String[] parts = key.split(",");
         int a = Integer.parseInt(parts[0].trim());
         int b = Integer.parseInt(parts[1].trim());
-        int a_inv = modInverse(a, 26);
-        StringBuilder result = new StringBuilder();
-        for (char c : cipherText.toCharArray()) {
-            if (Character.isLetter(c)) {
-                int base = Character.isLowerCase(c) ? 'a' : 'A';
-                int y = c - base;
-                int dec = (a_inv * (y - b + 26)) % 26;
-                result.append((char) (base + dec));
-            } else {
-                result.append(c);
-            }
-        }
-        return result.toString();
+        modInverse(a, 26);
+        return TranslationTable.of(TranslationTable.affineMapping(a, b));
     }
 
+    // Chỉ chữ cái ASCII bị thay nên xử lý thẳng trên byte UTF-8, không cần giải mã thành String
     @Override
     public byte[] encrypt(byte[] data, Key key) throws Exception {
         String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
-        String plainText = new String(data, StandardCharsets.UTF_8);
-        return encrypt(plainText, keyStr).getBytes(StandardCharsets.UTF_8);
+        return getEncryptTable(keyStr).apply(data);
     }
 
     @Override
     public byte[] decrypt(byte[] data, Key key) throws Exception {
         String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
-        String cipherText = new String(data, StandardCharsets.UTF_8);
-        return decrypt(cipherText, keyStr).getBytes(StandardCharsets.UTF_8);
+        return getDecryptTable(keyStr).apply(data);
     }
-}
\ No newline at end of file
+}
@@ -2,163 +2,253 @@ package com.atbm.core.encryption.traditional;
 
 import java.security.Key;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 // Class này mã hóa và giải mã dữ liệu sử dụng Hill Cipher
+// Key là ma trận n×n (n*n số theo hàng, ví dụ "3,3,2,5" cho 2×2), được biên dịch một lần thành HillKey.
+// Chữ cái ASCII được gom thành khối n chữ (bỏ qua ký tự khác, giữ nguyên vị trí và hoa/thường).
+// Padding kiểu PKCS#7 bằng chữ cái: văn bản có chữ cái luôn được thêm k = 1..n chữ vào cuối cho đủ khối,
+// mỗi chữ là 'A' + (k - 1); giải mã kiểm tra và bỏ đúng k chữ đó. Văn bản không có chữ cái giữ nguyên.
 public class HillCipher extends TraditionalEncryption {
+    // Key đã biên dịch của lần dùng gần nhất, thay cả bộ một lần để an toàn giữa các thread
+    private static final class CompiledKey {
+        final String key;
+        final HillKey encryptKey;
+        final HillKey decryptKey;
+
+        CompiledKey(String key, HillKey encryptKey) {
+            this.key = key;
+            this.encryptKey = encryptKey;
+            this.decryptKey = encryptKey.invert();
+        }
+    }
+
+    private volatile CompiledKey compiled;
+
     public HillCipher() {
         super("Hill");
     }
 
-    // Tính toán nghịch đảo modular của a mod m
-    private int modInverse(int a, int m) {
-        a = a % m;
-        for (int x = 1; x < m; x++) {
-            if ((a * x) % m == 1)
-                return x;
-        }
-        throw new IllegalArgumentException("Không có nghịch đảo modular!");
+    public HillKey getKey(String key) {
+        return compiledKey(key).encryptKey;
     }
 
-    // Phương thức này phân tích khóa thành ma trận 2x2
-    private int[][] parseKey(String key) {
-        String[] nums = key.split(",");
-        if (nums.length != 4)
-            throw new IllegalArgumentException("Key phải có 4 số cho ma trận 2x2!");
-        int[][] matrix = new int[2][2];
-        for (int i = 0; i < 4; i++) {
-            matrix[i / 2][i % 2] = Integer.parseInt(nums[i].trim());
-        }
-        return matrix;
+    @Override
+    public TextStreamCipher newEncryptor(String key) {
+        return new HillStream(compiledKey(key).encryptKey, true);
     }
 
-    public String encrypt(String plainText, String key) {
-        int[][] k = parseKey(key);
-        StringBuilder result = new StringBuilder();
-        int i = 0;
-
-        while (i < plainText.length()) {
-            // Skip non-alphabetic
-            while (i < plainText.length() && !Character.isLetter(plainText.charAt(i))) {
-                result.append(plainText.charAt(i));
-                i++;
-            }
+    @Override
+    public TextStreamCipher newDecryptor(String key) {
+        return new HillStream(compiledKey(key).decryptKey, false);
+    }
 
-            if (i >= plainText.length())
-                break;
+    public String encrypt(String plainText, String key) {
+        byte[] result = process(newEncryptor(key), plainText.getBytes(StandardCharsets.UTF_8));
+        return new String(result, StandardCharsets.UTF_8);
+    }
 
-            char c1 = plainText.charAt(i);
-            boolean isC1Lower = Character.isLowerCase(c1);
-            c1 = Character.toUpperCase(c1);
-            i++;
+    public String decrypt(String cipherText, String key) {
+        byte[] result = process(newDecryptor(key), cipherText.getBytes(StandardCharsets.UTF_8));
+        return new String(result, StandardCharsets.UTF_8);
+    }
 
-            // Skip non-alphabetic
-            while (i < plainText.length() && !Character.isLetter(plainText.charAt(i))) {
-                result.append(plainText.charAt(i));
-                i++;
-            }
+    // Mã hóa thêm tối đa n chữ padding, giải mã chỉ bỏ bớt
+    @Override
+    public int getOutputSize(int inputLength, boolean encrypt) {
+        return encrypt ? inputLength + HillKey.MAX_SIZE : inputLength;
+    }
 
-            if (i >= plainText.length()) {
+    @Override
+    public byte[] encrypt(byte[] data, Key key) {
+        String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
+        return process(newEncryptor(keyStr), data);
+    }
 
-                result.append(isC1Lower ? Character.toLowerCase(c1) : c1);
-                result.append('X');
-                break;
-            }
+    @Override
+    public byte[] decrypt(byte[] data, Key key) {
+        String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
+        return process(newDecryptor(keyStr), data);
+    }
 
-            char c2 = plainText.charAt(i);
-            boolean isC2Lower = Character.isLowerCase(c2);
-            c2 = Character.toUpperCase(c2);
-            i++;
-
-            int[] vec = { c1 - 'A', c2 - 'A' };
-            int enc1 = (k[0][0] * vec[0] + k[0][1] * vec[1]) % 26;
-            int enc2 = (k[1][0] * vec[0] + k[1][1] * vec[1]) % 26;
-            if (enc1 < 0)
-                enc1 += 26;
-            if (enc2 < 0)
-                enc2 += 26;
-
-            result.append(isC1Lower ? Character.toLowerCase((char) ('A' + enc1)) : (char) ('A' + enc1));
-            result.append(isC2Lower ? Character.toLowerCase((char) ('A' + enc2)) : (char) ('A' + enc2));
+    private CompiledKey compiledKey(String key) {
+        CompiledKey current = compiled;
+        if (current == null || !current.key.equals(key)) {
+            current = new CompiledKey(key, HillKey.parse(key));
+            compiled = current;
         }
-
-        return result.toString();
+        return current;
     }
 
-    public String decrypt(String cipherText, String key) {
-        int[][] k = parseKey(key);
-        int det = (k[0][0] * k[1][1] - k[0][1] * k[1][0]) % 26;
-        if (det < 0)
-            det += 26;
-        int detInv = modInverse(det, 26);
-        int[][] inv = {
-                { k[1][1] * detInv % 26, (-k[0][1] + 26) * detInv % 26 },
-                { (-k[1][0] + 26) * detInv % 26, k[0][0] * detInv % 26 }
-        };
-        StringBuilder result = new StringBuilder();
-        int i = 0;
-
-        while (i < cipherText.length()) {
-            // Skip non-alphabetic
-            while (i < cipherText.length() && !Character.isLetter(cipherText.charAt(i))) {
-                result.append(cipherText.charAt(i));
-                i++;
+    // Luồng Hill: đầu vào được xử lý theo lô tối đa BATCH_SIZE byte. Mỗi lô được chép vào pending, ghi lại
+    // vị trí và giá trị các chữ cái, nhân ma trận cho mọi khối đủ n chữ cùng lúc (HillKey.multiply), rồi xả
+    // tới hết khối đủ cuối cùng. Phần từ chữ cái đầu tiên của khối chưa đủ được giữ lại cho lô sau, nên bộ
+    // nhớ chỉ lớn khi giữa hai chữ cái của cùng một khối có đoạn rất dài không có chữ cái.
+    // Khi giải mã, khối đủ cuối cùng được giữ lại tới khi có thêm dữ liệu, vì khối cuối chứa padding.
+    private static final class HillStream extends TextStreamCipher {
+        private static final int BATCH_SIZE = 64 * 1024;
+        // byte -> chỉ số chữ cái 0..25, -1 nếu không phải chữ cái ASCII
+        private static final byte[] LETTERS = new byte[256];
+
+        static {
+            Arrays.fill(LETTERS, (byte) -1);
+            for (int i = 0; i < 26; i++) {
+                LETTERS['A' + i] = (byte) i;
+                LETTERS['a' + i] = (byte) i;
             }
+        }
 
-            if (i >= cipherText.length())
-                break;
+        private final HillKey key;
+        private final int size;
+        private final boolean encrypt;
+        private byte[] pending = new byte[BATCH_SIZE];
+        private int pendingLength;
+        // Vị trí trong pending và giá trị của các chữ cái chưa xả, count chữ cái
+        private int[] positions = new int[BATCH_SIZE + 1];
+        private int[] values = new int[BATCH_SIZE + 1];
+        private int count;
+        // Kết quả nhân ma trận, cùng thứ tự với values
+        private int[] products = new int[0];
+        // Giải mã: khối đã giải xong gần nhất (từ chữ cái đầu tiên của khối), chưa ghi ra
+        private byte[] held = new byte[0];
+        private int heldLength;
+        private boolean sawLetter;
+
+        HillStream(HillKey key, boolean encrypt) {
+            this.key = key;
+            this.size = key.getSize();
+            this.encrypt = encrypt;
+        }
 
-            char c1 = cipherText.charAt(i);
-            boolean isC1Lower = Character.isLowerCase(c1);
-            c1 = Character.toUpperCase(c1);
-            i++;
+        @Override
+        public int update(byte[] in, int offset, int length, byte[] out, int outOffset) {
+            int o = outOffset;
+            for (int start = offset; start < offset + length; start += BATCH_SIZE) {
+                int end = Math.min(offset + length, start + BATCH_SIZE);
+                append(in, start, end);
+                o = flush(out, o);
+            }
+            return o - outOffset;
+        }
 
-            // Skip non-alphabetic
-            while (i < cipherText.length() && !Character.isLetter(cipherText.charAt(i))) {
-                result.append(cipherText.charAt(i));
-                i++;
+        @Override
+        public int doFinal(byte[] out, int outOffset) {
+            int o = outOffset;
+            if (encrypt) {
+                if (sawLetter) {
+                    byte[] padding = new byte[size - count];
+                    Arrays.fill(padding, (byte) ('A' + padding.length - 1));
+                    append(padding, 0, padding.length);
+                    o = flush(out, o);
+                }
+                return o - outOffset;
+            }
+            if (count > 0) {
+                throw new IllegalArgumentException("Bản mã Hill không hợp lệ: số chữ cái không chia hết cho " + size);
             }
+            if (heldLength > 0) {
+                heldLength -= checkPadding();
+                o = releaseHeld(out, o);
+            } else if (sawLetter) {
+                throw new IllegalArgumentException("Bản mã Hill không hợp lệ: padding không nằm ở cuối văn bản");
+            }
+            return o - outOffset;
+        }
 
-            if (i >= cipherText.length()) {
+        @Override
+        public int getOutputSize(int inputLength) {
+            return heldLength + pendingLength + inputLength + size;
+        }
 
-                result.append(isC1Lower ? Character.toLowerCase(c1) : c1);
-                break;
+        // Khối cuối kết thúc bằng k chữ 'A' + (k - 1), 1 <= k <= n; trả về k
+        private int checkPadding() {
+            int padding = LETTERS[held[heldLength - 1] & 0xff] + 1;
+            boolean valid = padding >= 1 && padding <= size;
+            for (int i = 1; valid && i <= padding; i++) {
+                valid = LETTERS[held[heldLength - i] & 0xff] == padding - 1;
             }
-
-            char c2 = cipherText.charAt(i);
-            boolean isC2Lower = Character.isLowerCase(c2);
-            c2 = Character.toUpperCase(c2);
-            i++;
-
-            int[] vec = { c1 - 'A', c2 - 'A' };
-            int dec1 = (inv[0][0] * vec[0] + inv[0][1] * vec[1]) % 26;
-            int dec2 = (inv[1][0] * vec[0] + inv[1][1] * vec[1]) % 26;
-            if (dec1 < 0)
-                dec1 += 26;
-            if (dec2 < 0)
-                dec2 += 26;
-
-            result.append(isC1Lower ? Character.toLowerCase((char) ('A' + dec1)) : (char) ('A' + dec1));
-            result.append(isC2Lower ? Character.toLowerCase((char) ('A' + dec2)) : (char) ('A' + dec2));
+            if (!valid) {
+                throw new IllegalArgumentException("Bản mã Hill không hợp lệ: sai padding (sai khóa?)");
+            }
+            return padding;
         }
 
-        String res = result.toString();
-        if (res.endsWith("X") && res.length() > 1) {
-            res = res.substring(0, res.length() - 1);
+        // Chép in[start..end) vào pending; vị trí/giá trị được ghi cho mọi byte nhưng count chỉ tăng với
+        // chữ cái, nên vòng lặp không rẽ nhánh theo từng byte
+        private void append(byte[] in, int start, int end) {
+            int needed = pendingLength + (end - start);
+            if (needed > pending.length) {
+                int capacity = Math.max(needed, pending.length * 2);
+                pending = Arrays.copyOf(pending, capacity);
+                positions = Arrays.copyOf(positions, capacity + 1);
+                values = Arrays.copyOf(values, capacity + 1);
+            }
+            byte[] p = pending;
+            int[] pos = positions;
+            int[] vals = values;
+            int n = count;
+            int length = pendingLength;
+            for (int i = start; i < end; i++) {
+                byte b = in[i];
+                int letter = LETTERS[b & 0xff];
+                p[length] = b;
+                pos[n] = length;
+                vals[n] = letter;
+                n += (letter >>> 31) ^ 1;
+                length++;
+            }
+            sawLetter |= n > count;
+            count = n;
+            pendingLength = length;
         }
-        return res;
-    }
 
-    @Override
-    public byte[] encrypt(byte[] data, Key key) {
-        String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
-        String plainText = new String(data, StandardCharsets.UTF_8);
-        return encrypt(plainText, keyStr).getBytes(StandardCharsets.UTF_8);
-    }
+        // Mã hóa mọi khối đủ n chữ cái trong pending và xả tới trước chữ cái đầu tiên của khối chưa đủ;
+        // khi giải mã, phần từ khối đủ cuối cùng tới đó được chuyển sang held
+        private int flush(byte[] out, int o) {
+            // Sau khối đang giữ đã có thêm dữ liệu nên khối đó không phải khối cuối
+            o = releaseHeld(out, o);
+            int blocks = count / size;
+            int letters = blocks * size;
+            if (blocks > 0) {
+                if (products.length < letters) {
+                    products = new int[Math.max(letters, values.length)];
+                }
+                key.multiply(values, products, blocks);
+                byte[] p = pending;
+                int[] pos = positions;
+                int[] result = products;
+                for (int i = 0; i < letters; i++) {
+                    int position = pos[i];
+                    p[position] = (byte) ((p[position] & 0x20) | ('A' + result[i]));
+                }
+            }
+            int end = letters < count ? positions[letters] : pendingLength;
+            int emit = encrypt || blocks == 0 ? end : positions[letters - size];
+            System.arraycopy(pending, 0, out, o, emit);
+            o += emit;
+            if (emit < end) {
+                if (held.length < end - emit) {
+                    held = new byte[end - emit];
+                }
+                System.arraycopy(pending, emit, held, 0, end - emit);
+                heldLength = end - emit;
+            }
+            System.arraycopy(pending, end, pending, 0, pendingLength - end);
+            pendingLength -= end;
+            int remaining = count - letters;
+            for (int i = 0; i < remaining; i++) {
+                positions[i] = positions[letters + i] - end;
+                values[i] = values[letters + i];
+            }
+            count = remaining;
+            return o;
+        }
 
-    @Override
-    public byte[] decrypt(byte[] data, Key key) {
-        String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
-        String cipherText = new String(data, StandardCharsets.UTF_8);
-        return decrypt(cipherText, keyStr).getBytes(StandardCharsets.UTF_8);
+        private int releaseHeld(byte[] out, int o) {
+            System.arraycopy(held, 0, out, o, heldLength);
+            o += heldLength;
+            heldLength = 0;
+            return o;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package com.atbm.core.encryption.traditional;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+// Key Hill n×n đã biên dịch: ma trận và ma trận nghịch đảo mod 26, tính một lần khi parse.
+// 26 = 2 * 13 không phải số nguyên tố nên không khử Gauss trực tiếp mod 26 được (phần tử chẵn hoặc 13
+// không có nghịch đảo); khử Gauss-Jordan riêng mod 2 và mod 13 rồi ghép lại bằng định lý số dư Trung Hoa.
+// Ma trận lưu phẳng theo hàng trong int[] để vòng nhân khối không phải đi qua mảng lồng nhau.
+public final class HillKey {
+    // Giới hạn kích thước để key văn bản không tạo ma trận quá lớn
+    public static final int MAX_SIZE = 16;
+
+    private final int size;
+    // matrix[r * size + c], giá trị 0..25
+    private final int[] matrix;
+    private final int[] inverse;
+
+    private HillKey(int size, int[] matrix, int[] inverse) {
+        this.size = size;
+        this.matrix = matrix;
+        this.inverse = inverse;
+    }
+
+    // Key dạng "a,b,c,d,..." gồm n*n số theo hàng (cách nhau bởi dấu phẩy, chấm phẩy hoặc khoảng trắng)
+    public static HillKey parse(String key) {
+        String[] parts = key.trim().split("[,;\\s]+");
+        int size = (int) Math.round(Math.sqrt(parts.length));
+        if (parts[0].isEmpty() || size * size != parts.length || size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Key Hill phải có n*n số cho ma trận n×n (2 <= n <= " + MAX_SIZE
+                    + "), nhận được " + (parts[0].isEmpty() ? 0 : parts.length) + " số");
+        }
+        int[] matrix = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                matrix[i] = Math.floorMod(Integer.parseInt(parts[i]), 26);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Key Hill chứa giá trị không phải số: " + parts[i]);
+            }
+        }
+        return of(size, matrix);
+    }
+
+    // matrix theo hàng, n*n phần tử
+    public static HillKey of(int size, int[] matrix) {
+        if (size < 2 || size > MAX_SIZE || matrix.length != size * size) {
+            throw new IllegalArgumentException("Ma trận Hill phải là n×n với 2 <= n <= " + MAX_SIZE);
+        }
+        int[] normalized = new int[matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            normalized[i] = Math.floorMod(matrix[i], 26);
+        }
+        int[] inverseMod2 = invertModPrime(normalized, size, 2);
+        int[] inverseMod13 = invertModPrime(normalized, size, 13);
+        if (inverseMod2 == null || inverseMod13 == null) {
+            throw new IllegalArgumentException("Ma trận khóa Hill không khả nghịch mod 26 (định thức phải lẻ "
+                    + "và không chia hết cho 13)");
+        }
+        int[] inverse = new int[normalized.length];
+        for (int i = 0; i < inverse.length; i++) {
+            // x ≡ a (mod 2), x ≡ b (mod 13): 13 ≡ 1 (mod 2) và 14 ≡ 1 (mod 13)
+            inverse[i] = (inverseMod2[i] * 13 + inverseMod13[i] * 14) % 26;
+        }
+        return new HillKey(size, normalized, inverse);
+    }
+
+    // Ma trận ngẫu nhiên khả nghịch mod 26 (khoảng 1/3 ma trận ngẫu nhiên thỏa mãn nên thử lại vài lần)
+    public static HillKey generate(int size, SecureRandom random) {
+        int[] matrix = new int[size * size];
+        while (true) {
+            for (int i = 0; i < matrix.length; i++) {
+                matrix[i] = random.nextInt(26);
+            }
+            if (invertModPrime(matrix, size, 2) != null && invertModPrime(matrix, size, 13) != null) {
+                return of(size, matrix);
+            }
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int[] getMatrix() {
+        return matrix.clone();
+    }
+
+    public int[] getInverse() {
+        return inverse.clone();
+    }
+
+    // Key nghịch đảo: mã hóa bằng key này là giải mã bằng key gốc
+    public HillKey invert() {
+        return new HillKey(size, inverse, matrix);
+    }
+
+    // Nhân ma trận với blocks khối liên tiếp: letters[b * n + c] là chữ cái thứ c của khối b, kết quả ghi
+    // cùng thứ tự vào result. Ma trận 2×2 (thường gặp nhất) có vòng riêng với hệ số nằm trong biến cục bộ.
+    void multiply(int[] letters, int[] result, int blocks) {
+        int n = size;
+        int[] m = matrix;
+        if (n == 2) {
+            int m00 = m[0], m01 = m[1], m10 = m[2], m11 = m[3];
+            for (int i = 0; i < blocks * 2; i += 2) {
+                int x = letters[i];
+                int y = letters[i + 1];
+                result[i] = (m00 * x + m01 * y) % 26;
+                result[i + 1] = (m10 * x + m11 * y) % 26;
+            }
+            return;
+        }
+        for (int base = 0; base < blocks * n; base += n) {
+            for (int r = 0; r < n; r++) {
+                int rowBase = r * n;
+                int sum = 0;
+                for (int c = 0; c < n; c++) {
+                    sum += m[rowBase + c] * letters[base + c];
+                }
+                // Tổng tối đa n * 25 * 25 nên lấy dư một lần ở cuối
+                result[base + r] = sum % 26;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < matrix.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(matrix[i]);
+        }
+        return sb.toString();
+    }
+
+    // Gauss-Jordan trên [A | I] mod p (p nguyên tố), null nếu A suy biến mod p
+    private static int[] invertModPrime(int[] matrix, int size, int p) {
+        int width = size * 2;
+        int[] work = new int[size * width];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                work[r * width + c] = matrix[r * size + c] % p;
+            }
+            work[r * width + size + r] = 1;
+        }
+        for (int col = 0; col < size; col++) {
+            int pivot = col;
+            while (pivot < size && work[pivot * width + col] == 0) {
+                pivot++;
+            }
+            if (pivot == size) {
+                return null;
+            }
+            if (pivot != col) {
+                for (int c = 0; c < width; c++) {
+                    int tmp = work[pivot * width + c];
+                    work[pivot * width + c] = work[col * width + c];
+                    work[col * width + c] = tmp;
+                }
+            }
+            int scale = inverseModPrime(work[col * width + col], p);
+            for (int c = 0; c < width; c++) {
+                work[col * width + c] = work[col * width + c] * scale % p;
+            }
+            for (int r = 0; r < size; r++) {
+                int factor = work[r * width + col];
+                if (r == col || factor == 0) {
+                    continue;
+                }
+                for (int c = 0; c < width; c++) {
+                    work[r * width + c] = Math.floorMod(work[r * width + c] - factor * work[col * width + c], p);
+                }
+            }
+        }
+        int[] inverse = new int[size * size];
+        for (int r = 0; r < size; r++) {
+            System.arraycopy(work, r * width + size, inverse, r * size, size);
+        }
+        return inverse;
+    }
+
+    // Nghịch đảo mod p nguyên tố nhỏ theo định lý Fermat: a^(p-2)
+    private static int inverseModPrime(int a, int p) {
+        int result = 1;
+        for (int i = 0; i < p - 2; i++) {
+            result = result * a % p;
+        }
+        return result;
+    }
+}
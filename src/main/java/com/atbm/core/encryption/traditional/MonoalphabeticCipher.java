@@ -4,54 +4,38 @@ import java.security.Key;
 import java.nio.charset.StandardCharsets;
 
 // Class này mã hóa và giải mã dữ liệu sử dụng Monoalphabetic Cipher
-public class MonoalphabeticCipher extends TraditionalEncryption {
+public class MonoalphabeticCipher extends SubstitutionCipher {
     public MonoalphabeticCipher() {
         super("Monoalphabetic");
     }
 
-    public String encrypt(String plainText, String key) {
-        StringBuilder result = new StringBuilder();
-        String upperKey = key.toUpperCase();
-        for (char c : plainText.toCharArray()) {
-            if (Character.isLetter(c)) {
-                int base = Character.isLowerCase(c) ? 'a' : 'A';
-                char upperC = Character.toUpperCase(c);
-                char encrypted = upperKey.charAt(upperC - 'A');
-                result.append(Character.isLowerCase(c) ? Character.toLowerCase(encrypted) : encrypted);
-            } else {
-                result.append(c);
-            }
+    // Key là 26 chữ cái khác nhau: chữ thứ i thay cho chữ cái thứ i của bảng chữ cái
+    @Override
+    protected TranslationTable compile(String key) {
+        String upperKey = key.trim().toUpperCase();
+        if (!upperKey.matches("[A-Z]{26}")) {
+            throw new IllegalArgumentException("Khóa Monoalphabetic phải gồm đúng 26 chữ cái A-Z");
         }
-        return result.toString();
-    }
-
-    public String decrypt(String cipherText, String key) {
-        StringBuilder result = new StringBuilder();
-        String upperKey = key.toUpperCase();
-        for (char c : cipherText.toCharArray()) {
-            if (Character.isLetter(c)) {
-                int base = Character.isLowerCase(c) ? 'a' : 'A';
-                char upperC = Character.toUpperCase(c);
-                int idx = upperKey.indexOf(upperC);
-                result.append((char) (base + idx));
-            } else {
-                result.append(c);
-            }
+        int[] mapping = new int[26];
+        for (int i = 0; i < 26; i++) {
+            mapping[i] = upperKey.charAt(i) - 'A';
+        }
+        try {
+            return TranslationTable.of(mapping);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Khóa Monoalphabetic có chữ cái bị lặp lại");
         }
-        return result.toString();
     }
 
     @Override
     public byte[] encrypt(byte[] data, Key key) {
         String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
-        String plainText = new String(data, StandardCharsets.UTF_8);
-        return encrypt(plainText, keyStr).getBytes(StandardCharsets.UTF_8);
+        return getEncryptTable(keyStr).apply(data);
     }
 
     @Override
     public byte[] decrypt(byte[] data, Key key) {
         String keyStr = new String(key.getEncoded(), StandardCharsets.UTF_8);
-        String cipherText = new String(data, StandardCharsets.UTF_8);
-        return decrypt(cipherText, keyStr).getBytes(StandardCharsets.UTF_8);
+        return getDecryptTable(keyStr).apply(data);
     }
-}
\ No newline at end of file
+}
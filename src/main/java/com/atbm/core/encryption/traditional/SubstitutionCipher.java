@@ -0,0 +1,92 @@
+package com.atbm.core.encryption.traditional;
+
+// Lớp cha cho các thuật toán thay thế chữ cái (Caesar, Vigenere, Affine, Monoalphabetic).
+// Mỗi lớp con chỉ cần biên dịch key thành TranslationTable; bảng của key dùng gần nhất được giữ lại,
+// nên mã hóa/giải mã liên tiếp với cùng key (ví dụ TextEncryptionPanel) không biên dịch lại.
+public abstract class SubstitutionCipher extends TraditionalEncryption {
+
+    // Key đã biên dịch cùng bảng mã hóa và giải mã, thay cả cặp một lần để an toàn giữa các thread
+    private static final class CompiledKey {
+        final String key;
+        final TranslationTable encryptTable;
+        final TranslationTable decryptTable;
+
+        CompiledKey(String key, TranslationTable encryptTable) {
+            this.key = key;
+            this.encryptTable = encryptTable;
+            this.decryptTable = encryptTable.inverse();
+        }
+    }
+
+    // Luồng qua bảng thay thế, chỉ cần nhớ vị trí khóa (Vigenere) giữa các chunk
+    private static final class TableStream extends TextStreamCipher {
+        private final TranslationTable table;
+        private int position;
+
+        TableStream(TranslationTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public int update(byte[] in, int offset, int length, byte[] out, int outOffset) {
+            position = table.apply(in, offset, length, out, outOffset, position);
+            return length;
+        }
+
+        @Override
+        public int doFinal(byte[] out, int outOffset) {
+            return 0;
+        }
+
+        @Override
+        public int getOutputSize(int inputLength) {
+            return inputLength;
+        }
+    }
+
+    private volatile CompiledKey compiled;
+
+    protected SubstitutionCipher(String name) {
+        super(name);
+    }
+
+    // Biên dịch key dạng văn bản thành bảng mã hóa, ném IllegalArgumentException nếu key không hợp lệ
+    protected abstract TranslationTable compile(String key);
+
+    public TranslationTable getEncryptTable(String key) {
+        return compiledKey(key).encryptTable;
+    }
+
+    public TranslationTable getDecryptTable(String key) {
+        return compiledKey(key).decryptTable;
+    }
+
+    @Override
+    public String encrypt(String plainText, String key) {
+        return getEncryptTable(key).apply(plainText);
+    }
+
+    @Override
+    public String decrypt(String cipherText, String key) {
+        return getDecryptTable(key).apply(cipherText);
+    }
+
+    @Override
+    public TextStreamCipher newEncryptor(String key) {
+        return new TableStream(getEncryptTable(key));
+    }
+
+    @Override
+    public TextStreamCipher newDecryptor(String key) {
+        return new TableStream(getDecryptTable(key));
+    }
+
+    private CompiledKey compiledKey(String key) {
+        CompiledKey current = compiled;
+        if (current == null || !current.key.equals(key)) {
+            current = new CompiledKey(key, compile(key));
+            compiled = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,19 @@
+package com.atbm.core.encryption.traditional;
+
+// Trạng thái của một lần mã hóa/giải mã cổ điển theo luồng byte, dùng giống javax.crypto.Cipher:
+// update() cho từng chunk rồi doFinal() một lần ở cuối. Dữ liệu là văn bản ASCII hoặc UTF-8; chỉ
+// chữ cái ASCII bị biến đổi nên không cần giải mã UTF-8 và chunk có thể cắt giữa một ký tự nhiều byte.
+// Trạng thái giữa các chunk (vị trí từ khóa Vigenere, khối Hill chưa đủ chữ cái) nằm trong đối tượng này,
+// nên mỗi luồng dữ liệu cần một đối tượng riêng.
+public abstract class TextStreamCipher {
+
+    // Xử lý in[offset..offset+length), ghi vào out từ outOffset, trả về số byte đã ghi.
+    // out cần còn ít nhất getOutputSize(length) byte.
+    public abstract int update(byte[] in, int offset, int length, byte[] out, int outOffset);
+
+    // Kết thúc luồng, ghi phần còn giữ lại, trả về số byte đã ghi. Sau đó đối tượng không dùng lại được.
+    public abstract int doFinal(byte[] out, int outOffset);
+
+    // Số byte tối đa update (hoặc doFinal với inputLength = 0) có thể ghi ở lần gọi tiếp theo
+    public abstract int getOutputSize(int inputLength);
+}
@@ -1,9 +1,21 @@
 package com.atbm.core.encryption.traditional;
 
 import com.atbm.core.encryption.EncryptionAlgorithm;
+import com.atbm.utils.FileUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
 // Class này là lớp cha cho các thuật toán mã hóa cổ điển
 public abstract class TraditionalEncryption implements EncryptionAlgorithm {
+    // Kích thước chunk khi mã hóa theo luồng, bộ nhớ dùng không phụ thuộc kích thước file
+    public static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+
     protected String name;
 
     public TraditionalEncryption(String name) {
@@ -15,6 +27,12 @@ public abstract class TraditionalEncryption implements EncryptionAlgorithm {
         return name;
     }
 
+    // Thay thế từng ký tự nên đầu ra dài bằng đầu vào
+    @Override
+    public int getOutputSize(int inputLength, boolean encrypt) {
+        return inputLength;
+    }
+
     @Override
     public String[] getSupportedModes() {
         return new String[] { "ECB" };
@@ -28,4 +46,77 @@ public abstract class TraditionalEncryption implements EncryptionAlgorithm {
     public abstract String encrypt(String plainText, String key);
 
     public abstract String decrypt(String cipherText, String key);
-}
\ No newline at end of file
+
+    // Bắt đầu một luồng mã hóa/giải mã với key dạng văn bản (cùng định dạng với encrypt(String, String))
+    public abstract TextStreamCipher newEncryptor(String key);
+
+    public abstract TextStreamCipher newDecryptor(String key);
+
+    // Mã hóa toàn bộ in sang out theo từng chunk, trả về số byte đã ghi
+    public long encrypt(ReadableByteChannel in, WritableByteChannel out, String key) throws IOException {
+        return transform(newEncryptor(key), in, out, 0, null);
+    }
+
+    public long decrypt(ReadableByteChannel in, WritableByteChannel out, String key) throws IOException {
+        return transform(newDecryptor(key), in, out, 0, null);
+    }
+
+    public void encryptFile(File input, File output, String key, Consumer<Double> progressCallback)
+            throws IOException {
+        transformFile(newEncryptor(key), input, output, progressCallback);
+    }
+
+    public void decryptFile(File input, File output, String key, Consumer<Double> progressCallback)
+            throws IOException {
+        transformFile(newDecryptor(key), input, output, progressCallback);
+    }
+
+    // Chạy cả byte array qua một luồng, dùng cho API byte[]/String của các thuật toán có trạng thái khối
+    protected static byte[] process(TextStreamCipher cipher, byte[] data) {
+        byte[] out = new byte[cipher.getOutputSize(data.length)];
+        int length = cipher.update(data, 0, data.length, out, 0);
+        if (out.length < length + cipher.getOutputSize(0)) {
+            out = Arrays.copyOf(out, length + cipher.getOutputSize(0));
+        }
+        length += cipher.doFinal(out, length);
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+
+    private static void transformFile(TextStreamCipher cipher, File input, File output,
+            Consumer<Double> progressCallback) throws IOException {
+        try (FileChannel in = FileUtils.openInputChannel(input.getPath());
+                FileChannel out = FileUtils.openOutputChannel(output.getPath())) {
+            transform(cipher, in, out, in.size(), progressCallback);
+        }
+    }
+
+    // Giống FileUtils.transform cho Cipher: hai buffer dùng lại, output chỉ cấp phát lại khi
+    // cipher giữ lại nhiều dữ liệu hơn (Hill với đoạn dài không có chữ cái giữa một khối)
+    static long transform(TextStreamCipher cipher, ReadableByteChannel in, WritableByteChannel out, long totalSize,
+            Consumer<Double> progressCallback) throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        byte[] output = new byte[cipher.getOutputSize(STREAM_BUFFER_SIZE)];
+        long processed = 0;
+        long written = 0;
+        while (in.read(input) != -1) {
+            input.flip();
+            int length = input.remaining();
+            processed += length;
+            if (output.length < cipher.getOutputSize(length)) {
+                output = new byte[cipher.getOutputSize(length)];
+            }
+            int produced = cipher.update(input.array(), 0, length, output, 0);
+            written += FileUtils.writeFully(out, ByteBuffer.wrap(output, 0, produced));
+            input.clear();
+            if (progressCallback != null && totalSize > 0) {
+                progressCallback.accept((double) processed / totalSize);
+            }
+        }
+        if (output.length < cipher.getOutputSize(0)) {
+            output = new byte[cipher.getOutputSize(0)];
+        }
+        int produced = cipher.doFinal(output, 0);
+        written += FileUtils.writeFully(out, ByteBuffer.wrap(output, 0, produced));
+        return written;
+    }
+}
@@ -0,0 +1,181 @@
+package com.atbm.core.encryption.traditional;
+
+// Bảng thay thế đã biên dịch từ key của một thuật toán thay thế chữ cái (Caesar, Affine,
+// Monoalphabetic, Vigenere). Chỉ chữ cái ASCII A-Z/a-z được thay, giữ nguyên hoa/thường;
+// mọi ký tự khác (kể cả byte UTF-8 của chữ có dấu) giữ nguyên.
+// Key được biên dịch một lần thành bảng tra, vòng lặp xử lý chỉ còn tra bảng cho mỗi ký tự:
+//   - đơn bảng (period = 1): 256 byte cho byte[], 65536 char cho char[]
+//   - đa bảng (Vigenere, period = độ dài từ khóa): mỗi vị trí khóa một bảng 256 phần tử, kèm bảng
+//     trạng thái kế tiếp (vị trí khóa chỉ tăng sau chữ cái) nên cũng không cần if cho từng ký tự.
+//     Với char[] không thể có bảng 65536 phần tử cho mỗi vị trí khóa; ký tự >= 256 được đưa về ô 0
+//     bằng phép nhân với mặt nạ (byte 0 giữ nguyên và không đổi vị trí khóa), rồi cộng lại chính nó.
+// Bảng không đổi sau khi tạo, dùng chung được giữa các thread.
+public final class TranslationTable {
+    private final int period;
+    // [vị trí khóa << 8 | byte] -> byte kết quả
+    private final byte[] bytes;
+    // [vị trí khóa << 8 | byte] -> vị trí khóa tiếp theo (chỉ dùng khi period > 1)
+    private final short[] next;
+    // Chỉ dùng khi period = 1: char -> char cho cả dải 65536, tạo ở lần xử lý char[] đầu tiên vì bảng
+    // 128 KB này không cần cho byte[] và làm chậm việc biên dịch hàng loạt key
+    private volatile char[] chars;
+    // mappings[p][i] = chữ cái mã hóa (0..25) của chữ cái i ở vị trí khóa p
+    private final int[][] mappings;
+
+    private TranslationTable(int[][] mappings) {
+        this.period = mappings.length;
+        this.mappings = mappings;
+        this.bytes = new byte[period << 8];
+        this.next = period > 1 ? new short[period << 8] : null;
+        for (int p = 0; p < period; p++) {
+            int base = p << 8;
+            int following = (p + 1) % period;
+            for (int b = 0; b < 256; b++) {
+                bytes[base | b] = (byte) b;
+                if (next != null) {
+                    next[base | b] = (short) p;
+                }
+            }
+            for (int i = 0; i < 26; i++) {
+                bytes[base | ('A' + i)] = (byte) ('A' + mappings[p][i]);
+                bytes[base | ('a' + i)] = (byte) ('a' + mappings[p][i]);
+                if (next != null) {
+                    next[base | ('A' + i)] = (short) following;
+                    next[base | ('a' + i)] = (short) following;
+                }
+            }
+        }
+    }
+
+    // Thay thế đơn bảng: mapping[i] là chữ cái (0..25) thay cho chữ cái thứ i, phải là hoán vị
+    public static TranslationTable of(int[] mapping) {
+        return of(new int[][] { mapping });
+    }
+
+    // Thay thế đa bảng: mappings[p] dùng cho chữ cái thứ p, p + period, ... của văn bản
+    public static TranslationTable of(int[][] mappings) {
+        if (mappings.length == 0 || mappings.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Số bảng thay thế phải từ 1 đến " + Short.MAX_VALUE);
+        }
+        int[][] copy = new int[mappings.length][];
+        for (int p = 0; p < mappings.length; p++) {
+            copy[p] = checkPermutation(mappings[p]);
+        }
+        return new TranslationTable(copy);
+    }
+
+    // Bảng giải mã tương ứng
+    public TranslationTable inverse() {
+        int[][] inverse = new int[period][26];
+        for (int p = 0; p < period; p++) {
+            for (int i = 0; i < 26; i++) {
+                inverse[p][mappings[p][i]] = i;
+            }
+        }
+        return new TranslationTable(inverse);
+    }
+
+    // Số bảng thay thế (độ dài chu kỳ khóa)
+    public int getPeriod() {
+        return period;
+    }
+
+    // Xử lý in[offset..offset+length) vào out từ outOffset (có thể trùng in để xử lý tại chỗ).
+    // position là vị trí khóa của chữ cái đầu tiên, trả về vị trí khóa sau đoạn này để xử lý tiếp
+    // đoạn sau của cùng một văn bản (luôn 0 với thay thế đơn bảng).
+    public int apply(byte[] in, int offset, int length, byte[] out, int outOffset, int position) {
+        byte[] table = bytes;
+        if (next == null) {
+            for (int i = 0; i < length; i++) {
+                out[outOffset + i] = table[in[offset + i] & 0xff];
+            }
+            return 0;
+        }
+        short[] states = next;
+        int state = checkPosition(position) << 8;
+        for (int i = 0; i < length; i++) {
+            int index = state | (in[offset + i] & 0xff);
+            out[outOffset + i] = table[index];
+            state = states[index] << 8;
+        }
+        return state >>> 8;
+    }
+
+    // Như trên cho char[]. Ký tự ngoài dải 0..255 không phải chữ cái ASCII nên giữ nguyên.
+    public int apply(char[] in, int offset, int length, char[] out, int outOffset, int position) {
+        if (period == 1) {
+            char[] table = charTable();
+            for (int i = 0; i < length; i++) {
+                out[outOffset + i] = table[in[offset + i]];
+            }
+            return 0;
+        }
+        byte[] table = bytes;
+        short[] states = next;
+        int state = checkPosition(position) << 8;
+        for (int i = 0; i < length; i++) {
+            int c = in[offset + i];
+            // low = c nếu c < 256, ngược lại 0
+            int low = c * ((c - 256) >>> 31);
+            int index = state | low;
+            out[outOffset + i] = (char) ((table[index] & 0xff) + c - low);
+            state = states[index] << 8;
+        }
+        return state >>> 8;
+    }
+
+    // Hai thread cùng tạo thì kết quả giống nhau, giữ bảng nào cũng được
+    private char[] charTable() {
+        char[] table = chars;
+        if (table == null) {
+            table = new char[65536];
+            for (int c = 0; c < table.length; c++) {
+                table[c] = c < 256 ? (char) (bytes[c] & 0xff) : (char) c;
+            }
+            chars = table;
+        }
+        return table;
+    }
+
+    public byte[] apply(byte[] data) {
+        byte[] out = new byte[data.length];
+        apply(data, 0, data.length, out, 0, 0);
+        return out;
+    }
+
+    public String apply(String text) {
+        char[] buffer = text.toCharArray();
+        apply(buffer, 0, buffer.length, buffer, 0, 0);
+        return new String(buffer);
+    }
+
+    // Chuyển a*x + b (mod 26) thành bảng, dùng cho Caesar (a = 1) và Affine
+    static int[] affineMapping(int a, int b) {
+        int[] mapping = new int[26];
+        for (int i = 0; i < 26; i++) {
+            mapping[i] = Math.floorMod(a * i + b, 26);
+        }
+        return mapping;
+    }
+
+    private int checkPosition(int position) {
+        if (position < 0 || position >= period) {
+            throw new IllegalArgumentException("Vị trí khóa phải từ 0 đến " + (period - 1));
+        }
+        return position;
+    }
+
+    private static int[] checkPermutation(int[] mapping) {
+        if (mapping.length != 26) {
+            throw new IllegalArgumentException("Bảng thay thế phải có đúng 26 chữ cái");
+        }
+        boolean[] used = new boolean[26];
+        for (int value : mapping) {
+            if (value < 0 || value >= 26 || used[value]) {
+                throw new IllegalArgumentException("Bảng thay thế phải là hoán vị của 26 chữ cái");
+            }
+            used[value] = true;
+        }
+        return mapping.clone();
+    }
+}
@@ -3,7 +3,7 @@ package com.atbm.core.encryption.traditional;
 import java.security.Key;
 
 // Class này mã hóa và giải mã dữ liệu sử dụng Vigenere Cipher
-public class VigenereCipher extends TraditionalEncryption {
+public class VigenereCipher extends SubstitutionCipher {
 
     private String keyword;
 
@@ -16,7 +16,7 @@ public class VigenereCipher extends TraditionalEncryption {
         if (keyword == null || keyword.isEmpty()) {
             throw new IllegalArgumentException("Từ khóa không được để trống");
         }
-        this.keyword = keyword.toUpperCase().replaceAll("[^A-Z]", "");
+        this.keyword = cleanKeyword(keyword);
         if (this.keyword.isEmpty()) {
             throw new IllegalArgumentException("Từ khóa phải chứa ít nhất một chữ cái");
         }
@@ -27,7 +27,10 @@ public class VigenereCipher extends TraditionalEncryption {
         if (keyword == null || keyword.isEmpty()) {
             throw new IllegalStateException("Cần đặt từ khóa trước khi mã hóa");
         }
-        return process(data, true);
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        return getEncryptTable(keyword).apply(data);
     }
 
     @Override
@@ -35,44 +38,10 @@ public class VigenereCipher extends TraditionalEncryption {
         if (keyword == null || keyword.isEmpty()) {
             throw new IllegalStateException("Cần đặt từ khóa trước khi giải mã");
         }
-        return process(encryptedData, false);
-    }
-
-    private byte[] process(byte[] input, boolean encrypt) {
-        if (input == null || input.length == 0) {
-            return input;
+        if (encryptedData == null || encryptedData.length == 0) {
+            return encryptedData;
         }
-        if (keyword == null || keyword.isEmpty()) {
-            throw new IllegalStateException("Cần đặt từ khóa trước khi xử lý");
-        }
-
-        byte[] output = new byte[input.length];
-        int keywordIndex = 0;
-
-        for (int i = 0; i < input.length; i++) {
-            char inputChar = (char) input[i];
-            byte resultByte = input[i];
-
-            if (inputChar >= 'A' && inputChar <= 'Z') {
-                char keyChar = keyword.charAt(keywordIndex % keyword.length());
-                int shift = keyChar - 'A';
-                if (!encrypt) {
-                    shift = 26 - shift;
-                }
-                resultByte = (byte) ('A' + ((inputChar - 'A' + shift + 26) % 26));
-                keywordIndex++;
-            } else if (inputChar >= 'a' && inputChar <= 'z') {
-                char keyChar = keyword.charAt(keywordIndex % keyword.length());
-                int shift = keyChar - 'A';
-                if (!encrypt) {
-                    shift = 26 - shift;
-                }
-                resultByte = (byte) ('a' + ((inputChar - 'a' + shift + 26) % 26));
-                keywordIndex++;
-            }
-            output[i] = resultByte;
-        }
-        return output;
+        return getDecryptTable(keyword).apply(encryptedData);
     }
 
     @Override
@@ -85,45 +54,21 @@ public class VigenereCipher extends TraditionalEncryption {
         return new String[] { "None" };
     }
 
+    // Mỗi chữ cái của từ khóa là một bảng dịch Caesar, vị trí khóa chỉ tăng sau mỗi chữ cái của văn bản
     @Override
-    public String encrypt(String plainText, String key) {
-        String keyword = key.toUpperCase().replaceAll("[^A-Z]", "");
-        StringBuilder result = new StringBuilder();
-        int keywordIndex = 0;
-        for (char c : plainText.toCharArray()) {
-            if (Character.isLetter(c)) {
-                int base = Character.isLowerCase(c) ? 'a' : 'A';
-                char keyChar = keyword.charAt(keywordIndex % keyword.length());
-                int shift = keyChar - 'A';
-                int x = c - base;
-                int shifted = (x + shift) % 26;
-                result.append((char) (base + shifted));
-                keywordIndex++;
-            } else {
-                result.append(c);
-            }
+    protected TranslationTable compile(String key) {
+        String cleaned = cleanKeyword(key);
+        if (cleaned.isEmpty()) {
+            throw new IllegalArgumentException("Từ khóa phải chứa ít nhất một chữ cái");
         }
-        return result.toString();
+        int[][] mappings = new int[cleaned.length()][];
+        for (int i = 0; i < cleaned.length(); i++) {
+            mappings[i] = TranslationTable.affineMapping(1, cleaned.charAt(i) - 'A');
+        }
+        return TranslationTable.of(mappings);
     }
 
-    @Override
-    public String decrypt(String cipherText, String key) {
-        String keyword = key.toUpperCase().replaceAll("[^A-Z]", "");
-        StringBuilder result = new StringBuilder();
-        int keywordIndex = 0;
-        for (char c : cipherText.toCharArray()) {
-            if (Character.isLetter(c)) {
-                int base = Character.isLowerCase(c) ? 'a' : 'A';
-                char keyChar = keyword.charAt(keywordIndex % keyword.length());
-                int shift = 26 - (keyChar - 'A');
-                int x = c - base;
-                int shifted = (x + shift) % 26;
-                result.append((char) (base + shifted));
-                keywordIndex++;
-            } else {
-                result.append(c);
-            }
-        }
-        return result.toString();
+    private static String cleanKeyword(String keyword) {
+        return keyword.toUpperCase().replaceAll("[^A-Z]", "");
     }
-}
\ No newline at end of file
+}
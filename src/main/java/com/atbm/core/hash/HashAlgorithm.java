@@ -1,38 +1,192 @@
 package com.atbm.core.hash;
 
+import com.atbm.utils.FileUtils;
+import com.atbm.utils.HexUtils;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 // Class này cung cấp các phương thức để tính toán hash của văn bản và tệp
 public class HashAlgorithm {
+    // Kích thước mỗi buffer trong vòng buffer khi hash nhiều thuật toán song song
+    private static final int RING_BUFFER_SIZE = 1024 * 1024;
+    private static final int RING_SIZE = 4;
+
+    // File nhỏ hơn ngưỡng này được hash tuần tự, vì chi phí tạo thread lớn hơn lợi ích
+    private static final long PARALLEL_THRESHOLD = 4L * 1024 * 1024;
+
     public static String hashText(String text, String algorithm) throws Exception {
         MessageDigest md = MessageDigest.getInstance(algorithm);
         byte[] hashBytes = md.digest(text.getBytes("UTF-8"));
-        return bytesToHex(hashBytes);
+        return HexUtils.encode(hashBytes);
     }
 
     public static String hashFile(File file, String algorithm) throws Exception {
+        try (FileChannel channel = FileUtils.openInputChannel(file.getPath())) {
+            return hash(channel, algorithm);
+        }
+    }
+
+    // Hash dữ liệu từ channel theo từng chunk, bộ nhớ không phụ thuộc kích thước dữ liệu
+    public static String hash(ReadableByteChannel channel, String algorithm) throws Exception {
         MessageDigest md = MessageDigest.getInstance(algorithm);
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                md.update(buffer, 0, bytesRead);
+        FileUtils.readChunks(channel, md::update);
+        return HexUtils.encode(md.digest());
+    }
+
+    // Hash file bằng nhiều thuật toán với một lần đọc, trả về map thuật toán -> hash (giữ thứ tự)
+    public static Map<String, String> hashFile(File file, String... algorithms) throws Exception {
+        return hashFile(file, null, algorithms);
+    }
+
+    public static Map<String, String> hashFile(File file, Consumer<Double> progressCallback, String... algorithms)
+            throws Exception {
+        MessageDigest[] digests = createDigests(algorithms);
+
+        long total = file.length();
+        try (FileChannel channel = FileUtils.openInputChannel(file.getPath())) {
+            if (digests.length > 1 && total >= PARALLEL_THRESHOLD
+                    && Runtime.getRuntime().availableProcessors() > 1) {
+                updateParallel(channel, digests, total, progressCallback);
+            } else {
+                updateSequential(channel, digests, total, progressCallback);
             }
         }
-        return bytesToHex(md.digest());
+        return toResult(algorithms, digests);
     }
 
-    public static String[] getSupportedAlgorithms() {
-        return new String[] { "MD5", "SHA-1", "SHA-256", "SHA-384", "SHA-512" };
+    // Hash dữ liệu từ channel (ví dụ stdin) bằng nhiều thuật toán với một lần đọc
+    public static Map<String, String> hashAll(ReadableByteChannel channel, String... algorithms) throws Exception {
+        MessageDigest[] digests = createDigests(algorithms);
+        updateSequential(channel, digests, 0, null);
+        return toResult(algorithms, digests);
     }
 
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
+    private static MessageDigest[] createDigests(String[] algorithms) throws Exception {
+        if (algorithms == null || algorithms.length == 0) {
+            throw new IllegalArgumentException("Cần chọn ít nhất một thuật toán hash");
+        }
+        MessageDigest[] digests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            digests[i] = MessageDigest.getInstance(algorithms[i]);
         }
-        return sb.toString();
+        return digests;
+    }
+
+    // Đọc channel một lần, mỗi chunk được đưa qua tất cả digest trên thread hiện tại
+    private static void updateSequential(ReadableByteChannel channel, MessageDigest[] digests, long total,
+            Consumer<Double> progressCallback) throws IOException {
+        long[] processed = { 0 };
+        FileUtils.readChunks(channel, chunk -> {
+            int length = chunk.remaining();
+            for (MessageDigest md : digests) {
+                md.update(chunk.duplicate());
+            }
+            processed[0] += length;
+            if (progressCallback != null && total > 0) {
+                progressCallback.accept((double) processed[0] / total);
+            }
+        });
+    }
+
+    private static Map<String, String> toResult(String[] algorithms, MessageDigest[] digests) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < algorithms.length; i++) {
+            result.put(algorithms[i], HexUtils.encode(digests[i].digest()));
+        }
+        return result;
+    }
+
+    // Một block đã đọc, được trả về vòng buffer khi mọi digest đã xử lý xong
+    private static class Block {
+        final byte[] data;
+        final int length;
+        final AtomicInteger pending;
+
+        Block(byte[] data, int length, int consumers) {
+            this.data = data;
+            this.length = length;
+            this.pending = new AtomicInteger(consumers);
+        }
+    }
+
+    private static final Block END = new Block(new byte[0], -1, 0);
+
+    // Thread hiện tại đọc file vào vòng RING_SIZE buffer, mỗi digest chạy trên một thread riêng.
+    // Bộ nhớ luôn là RING_SIZE * RING_BUFFER_SIZE bất kể kích thước file.
+    private static void updateParallel(ReadableByteChannel channel, MessageDigest[] digests, long total,
+            Consumer<Double> progressCallback) throws IOException, InterruptedException, ExecutionException {
+        BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(RING_SIZE);
+        for (int i = 0; i < RING_SIZE; i++) {
+            freeBuffers.add(new byte[RING_BUFFER_SIZE]);
+        }
+        List<BlockingQueue<Block>> queues = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(digests.length);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (MessageDigest md : digests) {
+                BlockingQueue<Block> queue = new ArrayBlockingQueue<>(RING_SIZE + 1);
+                queues.add(queue);
+                futures.add(executor.submit(() -> {
+                    while (true) {
+                        Block block = queue.take();
+                        if (block == END) {
+                            return null;
+                        }
+                        md.update(block.data, 0, block.length);
+                        if (block.pending.decrementAndGet() == 0) {
+                            freeBuffers.put(block.data);
+                        }
+                    }
+                }));
+            }
+
+            long processed = 0;
+            try {
+                while (true) {
+                    byte[] buffer = freeBuffers.take();
+                    int length = FileUtils.readFully(channel, ByteBuffer.wrap(buffer));
+                    if (length == 0) {
+                        break;
+                    }
+                    Block block = new Block(buffer, length, digests.length);
+                    for (BlockingQueue<Block> queue : queues) {
+                        queue.put(block);
+                    }
+                    processed += length;
+                    if (progressCallback != null && total > 0) {
+                        progressCallback.accept((double) processed / total);
+                    }
+                }
+            } finally {
+                for (BlockingQueue<Block> queue : queues) {
+                    queue.put(END);
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static String[] getSupportedAlgorithms() {
+        return new String[] { "MD5", "SHA-1", "SHA-256", "SHA-384", "SHA-512" };
     }
 }
\ No newline at end of file
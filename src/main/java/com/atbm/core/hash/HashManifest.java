@@ -0,0 +1,585 @@
+package com.atbm.core.hash;
+
+import com.atbm.utils.FileUtils;
+import com.atbm.utils.HexUtils;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Class này tạo và kiểm tra manifest hash cho cả cây thư mục, cùng định dạng với sha256sum:
+//   <hash hex>  <đường dẫn tương đối, phân cách bằng '/'>
+// nên kiểm tra được bằng "sha256sum -c" khi đứng ở thư mục gốc. File được hash song song trên
+// nhiều thread nhưng kết quả được ghi ra theo thứ tự đường dẫn ngay khi có, chỉ giữ một cửa sổ
+// giới hạn các file đang xử lý trong bộ nhớ.
+// Bên cạnh manifest là file <manifest>.meta ghi kích thước + thời điểm sửa của từng file, để lần
+// tạo lại/kiểm tra sau (incremental) bỏ qua các file không đổi thay vì đọc lại.
+public class HashManifest {
+    public static final String DEFAULT_ALGORITHM = "SHA-256";
+    public static final String META_EXTENSION = ".meta";
+
+    private static final String META_HEADER = "# ATBM-MANIFEST-META v1 ";
+
+    // Mỗi thread giữ tối đa chừng này file đã hash nhưng chưa ghi ra (chờ file đứng trước)
+    private static final int WINDOW_PER_THREAD = 64;
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    // Độ dài hex của digest -> thuật toán, để đọc manifest không có file .meta
+    private static final Map<Integer, String> ALGORITHM_BY_HEX_LENGTH = Map.of(32, "MD5", 40, "SHA-1", 64,
+            "SHA-256", 96, "SHA-384", 128, "SHA-512");
+
+    // Kết quả tạo manifest
+    public static class ManifestResult {
+        private final String algorithm;
+        private final int totalFiles;
+        private final int hashedFiles;
+        private final int reusedFiles;
+        private final long totalBytes;
+        private final long hashedBytes;
+        private final long elapsedNanos;
+        private final Map<String, Exception> failures;
+
+        ManifestResult(String algorithm, int totalFiles, int hashedFiles, int reusedFiles, long totalBytes,
+                long hashedBytes, long elapsedNanos, Map<String, Exception> failures) {
+            this.algorithm = algorithm;
+            this.totalFiles = totalFiles;
+            this.hashedFiles = hashedFiles;
+            this.reusedFiles = reusedFiles;
+            this.totalBytes = totalBytes;
+            this.hashedBytes = hashedBytes;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        // Số file ghi vào manifest
+        public int getTotalFiles() {
+            return totalFiles;
+        }
+
+        // Số file thực sự được đọc và hash
+        public int getHashedFiles() {
+            return hashedFiles;
+        }
+
+        // Số file không đổi, dùng lại hash của manifest cũ
+        public int getReusedFiles() {
+            return reusedFiles;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getHashedBytes() {
+            return hashedBytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // Đường dẫn tương đối -> lỗi đọc file, các file này không có trong manifest
+        public Map<String, Exception> getFailures() {
+            return failures;
+        }
+
+        // Tốc độ hash tính bằng MB/s, chỉ tính dữ liệu thực sự được đọc
+        public double getThroughputMBps() {
+            return throughput(hashedBytes, elapsedNanos);
+        }
+
+        public double getFilesPerSecond() {
+            return elapsedNanos <= 0 ? 0 : totalFiles / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    // Kết quả kiểm tra manifest, chỉ giữ đường dẫn của các file có vấn đề
+    public static class VerifyResult {
+        private final String algorithm;
+        private final int totalFiles;
+        private final int okFiles;
+        private final int unchangedFiles;
+        private final List<String> failed;
+        private final List<String> missing;
+        private final List<String> added;
+        private final Map<String, Exception> errors;
+        private final long hashedBytes;
+        private final long elapsedNanos;
+
+        VerifyResult(String algorithm, int totalFiles, int okFiles, int unchangedFiles, List<String> failed,
+                List<String> missing, List<String> added, Map<String, Exception> errors, long hashedBytes,
+                long elapsedNanos) {
+            this.algorithm = algorithm;
+            this.totalFiles = totalFiles;
+            this.okFiles = okFiles;
+            this.unchangedFiles = unchangedFiles;
+            this.failed = failed;
+            this.missing = missing;
+            this.added = added;
+            this.errors = errors;
+            this.hashedBytes = hashedBytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        // Số file có trong manifest
+        public int getTotalFiles() {
+            return totalFiles;
+        }
+
+        // Được hash lại và khớp manifest
+        public int getOkFiles() {
+            return okFiles;
+        }
+
+        // Bỏ qua vì kích thước và thời điểm sửa không đổi (chỉ khi kiểm tra incremental)
+        public int getUnchangedFiles() {
+            return unchangedFiles;
+        }
+
+        // Hash khác manifest
+        public List<String> getFailed() {
+            return failed;
+        }
+
+        // Có trong manifest nhưng không còn trên đĩa
+        public List<String> getMissing() {
+            return missing;
+        }
+
+        // Có trên đĩa nhưng không có trong manifest
+        public List<String> getAdded() {
+            return added;
+        }
+
+        // Đọc file bị lỗi
+        public Map<String, Exception> getErrors() {
+            return errors;
+        }
+
+        // Mọi file trong manifest đều khớp hoặc không đổi (file mới thêm không tính là lỗi)
+        public boolean isAllValid() {
+            return failed.isEmpty() && missing.isEmpty() && errors.isEmpty();
+        }
+
+        public long getHashedBytes() {
+            return hashedBytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getThroughputMBps() {
+            return throughput(hashedBytes, elapsedNanos);
+        }
+
+        public double getFilesPerSecond() {
+            return elapsedNanos <= 0 ? 0 : totalFiles / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    // Một dòng của manifest cùng kích thước và thời điểm sửa lúc hash (-1 nếu không có file .meta)
+    private static class Entry {
+        final String hash;
+        long size = -1;
+        long modified = -1;
+
+        Entry(String hash) {
+            this.hash = hash;
+        }
+    }
+
+    // Kết quả xử lý một file trên thread worker
+    private static class FileHash {
+        final String path;
+        final long size;
+        final long modified;
+        final byte[] digest;
+        final boolean reused;
+        final Exception error;
+
+        FileHash(String path, long size, long modified, byte[] digest, boolean reused, Exception error) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.digest = digest;
+            this.reused = reused;
+            this.error = error;
+        }
+    }
+
+    private HashManifest() {
+    }
+
+    public static File getMetaFile(File manifest) {
+        return new File(manifest.getPath() + META_EXTENSION);
+    }
+
+    // Hash mọi file trong directory và ghi manifest theo thứ tự đường dẫn.
+    // incremental: nếu manifest cũ (cùng thuật toán) đã có, file có kích thước và thời điểm sửa không đổi
+    // được dùng lại hash cũ mà không đọc. progressCallback nhận tỉ lệ số file đã xong (0..1).
+    public static ManifestResult create(File directory, File manifest, String algorithm, boolean incremental,
+            int parallelism, Consumer<Double> progressCallback)
+            throws IOException, NoSuchAlgorithmException, InterruptedException {
+        Path root = checkDirectory(directory);
+        MessageDigest.getInstance(algorithm);
+        Map<String, Entry> previous = incremental && manifest.isFile()
+                && algorithm.equals(readAlgorithm(manifest)) ? readManifest(manifest) : null;
+        List<String> paths = listFiles(root, manifest);
+
+        File metaFile = getMetaFile(manifest);
+        Path manifestTemp = tempFile(manifest);
+        Path metaTemp = tempFile(metaFile);
+        long start = System.nanoTime();
+        int[] counts = new int[3];
+        long[] bytes = new long[2];
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        byte[] line = new byte[256];
+        try (OutputStream manifestOut = new BufferedOutputStream(Files.newOutputStream(manifestTemp), 1 << 16);
+                OutputStream metaOut = new BufferedOutputStream(Files.newOutputStream(metaTemp), 1 << 16)) {
+            metaOut.write((META_HEADER + algorithm + "\n").getBytes(StandardCharsets.UTF_8));
+            hashInOrder(root, paths, algorithm, previous, parallelism, progressCallback, result -> {
+                if (result.error != null) {
+                    failures.put(result.path, result.error);
+                    return;
+                }
+                writeManifestLine(manifestOut, line, result.digest, result.path);
+                metaOut.write((result.size + "\t" + result.modified + "\t" + escape(result.path) + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                counts[0]++;
+                bytes[0] += result.size;
+                if (result.reused) {
+                    counts[2]++;
+                } else {
+                    counts[1]++;
+                    bytes[1] += result.size;
+                }
+            });
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            Files.deleteIfExists(manifestTemp);
+            Files.deleteIfExists(metaTemp);
+            throw e;
+        }
+        // Chỉ thay manifest cũ khi đã ghi xong, lần chạy bị ngắt không làm hỏng manifest đang có
+        Files.move(manifestTemp, manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(metaTemp, metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return new ManifestResult(algorithm, counts[0], counts[1], counts[2], bytes[0], bytes[1],
+                System.nanoTime() - start, failures);
+    }
+
+    // Kiểm tra directory theo manifest. Thuật toán lấy từ file .meta, hoặc suy ra từ độ dài hash.
+    // incremental: file có kích thước và thời điểm sửa giống lúc tạo manifest được coi là không đổi, không đọc lại.
+    public static VerifyResult verify(File directory, File manifest, boolean incremental, int parallelism,
+            Consumer<Double> progressCallback) throws IOException, NoSuchAlgorithmException, InterruptedException {
+        Path root = checkDirectory(directory);
+        if (!manifest.isFile()) {
+            throw new FileNotFoundException("Không tìm thấy manifest: " + manifest.getPath());
+        }
+        String algorithm = readAlgorithm(manifest);
+        MessageDigest.getInstance(algorithm);
+        Map<String, Entry> expected = readManifest(manifest);
+
+        long start = System.nanoTime();
+        List<String> onDisk = listFiles(root, manifest);
+        Set<String> onDiskSet = new HashSet<>(onDisk);
+        List<String> added = onDisk.stream().filter(path -> !expected.containsKey(path))
+                .collect(Collectors.toList());
+        List<String> missing = new ArrayList<>();
+        List<String> toCheck = new ArrayList<>();
+        for (String path : expected.keySet()) {
+            (onDiskSet.contains(path) ? toCheck : missing).add(path);
+        }
+
+        int[] counts = new int[2];
+        long[] hashedBytes = { 0 };
+        List<String> failed = new ArrayList<>();
+        Map<String, Exception> errors = new LinkedHashMap<>();
+        hashInOrder(root, toCheck, algorithm, incremental ? expected : null, parallelism, progressCallback,
+                result -> {
+                    if (result.error != null) {
+                        errors.put(result.path, result.error);
+                    } else if (result.reused) {
+                        counts[1]++;
+                    } else {
+                        hashedBytes[0] += result.size;
+                        if (HexUtils.encode(result.digest).equalsIgnoreCase(expected.get(result.path).hash)) {
+                            counts[0]++;
+                        } else {
+                            failed.add(result.path);
+                        }
+                    }
+                });
+        return new VerifyResult(algorithm, expected.size(), counts[0], counts[1], failed, missing, added, errors,
+                hashedBytes[0], System.nanoTime() - start);
+    }
+
+    // Thuật toán của manifest: dòng đầu file .meta, nếu không có thì theo độ dài hash của dòng đầu tiên
+    public static String readAlgorithm(File manifest) throws IOException {
+        File metaFile = getMetaFile(manifest);
+        if (metaFile.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(metaFile.toPath(), StandardCharsets.UTF_8)) {
+                String header = reader.readLine();
+                if (header != null && header.startsWith(META_HEADER)) {
+                    return header.substring(META_HEADER.length()).trim();
+                }
+            }
+        }
+        try (BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    int start = line.startsWith("\\") ? 1 : 0;
+                    int end = line.indexOf(' ');
+                    // Dòng không có dấu cách không phải dòng "hash  đường dẫn"
+                    String algorithm = end < 0 ? null : ALGORITHM_BY_HEX_LENGTH.get(end - start);
+                    if (algorithm == null) {
+                        throw new IOException("Không nhận ra thuật toán của manifest: " + manifest.getPath());
+                    }
+                    return algorithm;
+                }
+            }
+        }
+        throw new IOException("Manifest rỗng: " + manifest.getPath());
+    }
+
+    // Chạy hash các file theo thứ tự paths trên thread pool, sink nhận kết quả đúng thứ tự đó trên thread
+    // gọi hàm. Chỉ tối đa parallelism * WINDOW_PER_THREAD file được xử lý trước file đang chờ ghi.
+    // previous != null: file có kích thước và thời điểm sửa khớp thì trả về hash cũ, không đọc file.
+    private static void hashInOrder(Path root, List<String> paths, String algorithm, Map<String, Entry> previous,
+            int parallelism, Consumer<Double> progressCallback, ResultSink sink)
+            throws IOException, InterruptedException {
+        int threads = Math.max(1, parallelism);
+        int window = threads * WINDOW_PER_THREAD;
+        ThreadLocal<MessageDigest> digests = new ThreadLocal<>();
+        ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(READ_BUFFER_SIZE));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<FileHash>> pending = new ArrayDeque<>(window);
+        int done = 0;
+        try {
+            for (String path : paths) {
+                if (pending.size() >= window) {
+                    sink.accept(take(pending));
+                    report(++done, paths.size(), progressCallback);
+                }
+                Entry old = previous != null ? previous.get(path) : null;
+                pending.add(executor.submit(() -> hashFile(root, path, algorithm, old, digests, buffers.get())));
+            }
+            while (!pending.isEmpty()) {
+                sink.accept(take(pending));
+                report(++done, paths.size(), progressCallback);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static FileHash take(Deque<Future<FileHash>> pending) throws IOException, InterruptedException {
+        try {
+            return pending.poll().get();
+        } catch (ExecutionException e) {
+            // hashFile đã tự ghi nhận lỗi của file, chỉ còn lỗi không mong đợi
+            throw new IOException("Lỗi khi hash thư mục: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static FileHash hashFile(Path root, String path, String algorithm, Entry previous,
+            ThreadLocal<MessageDigest> digests, ByteBuffer buffer) {
+        Path file = root.resolve(path);
+        long size = -1;
+        long modified = -1;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            size = attributes.size();
+            modified = attributes.lastModifiedTime().toMillis();
+            if (previous != null && previous.size == size && previous.modified == modified) {
+                return new FileHash(path, size, modified, HexUtils.decode(previous.hash), true, null);
+            }
+            MessageDigest md = digests.get();
+            if (md == null) {
+                md = MessageDigest.getInstance(algorithm);
+                digests.set(md);
+            }
+            md.reset();
+            MessageDigest current = md;
+            try (FileChannel channel = FileUtils.openInputChannel(file.toString())) {
+                FileUtils.readChunks(channel, buffer, current::update);
+            }
+            return new FileHash(path, size, modified, md.digest(), false, null);
+        } catch (Exception e) {
+            return new FileHash(path, size, modified, null, false, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResultSink {
+        void accept(FileHash result) throws IOException;
+    }
+
+    // Các file thường trong cây thư mục (trừ chính manifest và file .meta), đường dẫn tương đối đã sắp xếp
+    private static List<String> listFiles(Path root, File manifest) throws IOException {
+        Path manifestPath = manifest.toPath().toAbsolutePath().normalize();
+        Path metaPath = getMetaFile(manifest).toPath().toAbsolutePath().normalize();
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(path -> !path.equals(manifestPath) && !path.equals(metaPath)
+                            && !path.getFileName().toString().endsWith(".tmp-manifest"))
+                    .map(path -> toManifestPath(root.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static String toManifestPath(Path relative) {
+        StringBuilder sb = new StringBuilder();
+        for (Path part : relative) {
+            if (sb.length() > 0) {
+                sb.append('/');
+            }
+            sb.append(part);
+        }
+        return sb.toString();
+    }
+
+    // Đọc manifest (và file .meta nếu có) thành map đường dẫn -> hash, giữ thứ tự trong file
+    private static Map<String, Entry> readManifest(File manifest) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                boolean escaped = line.startsWith("\\");
+                String content = escaped ? line.substring(1) : line;
+                int separator = content.indexOf(' ');
+                // "hash  path" (text) hoặc "hash *path" (binary) như sha256sum
+                if (separator <= 0 || separator + 2 > content.length()) {
+                    throw new IOException("Dòng manifest không hợp lệ: " + line);
+                }
+                String path = content.substring(separator + 2);
+                entries.put(escaped ? unescape(path) : path, new Entry(content.substring(0, separator)));
+            }
+        }
+        File metaFile = getMetaFile(manifest);
+        if (metaFile.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(metaFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] fields = line.split("\t", 3);
+                    Entry entry = fields.length == 3 ? entries.get(unescape(fields[2])) : null;
+                    if (entry != null) {
+                        try {
+                            entry.size = Long.parseLong(fields[0]);
+                            entry.modified = Long.parseLong(fields[1]);
+                        } catch (NumberFormatException e) {
+                            // Dòng .meta hỏng thì file đó luôn được hash lại
+                        }
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Ghi "hash  path\n", dùng lại mảng line cho các file để không tạo String cho hash
+    private static void writeManifestLine(OutputStream out, byte[] line, byte[] digest, String path)
+            throws IOException {
+        String name = escape(path);
+        int position = 0;
+        if (!name.equals(path)) {
+            // Giống sha256sum: tên có '\' hoặc xuống dòng thì dòng bắt đầu bằng '\'
+            line[position++] = '\\';
+        }
+        position = HexUtils.encode(digest, 0, digest.length, line, position);
+        line[position++] = ' ';
+        line[position++] = ' ';
+        out.write(line, 0, position);
+        out.write(name.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    private static String escape(String path) {
+        if (path.indexOf('\\') < 0 && path.indexOf('\n') < 0) {
+            return path;
+        }
+        return path.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String unescape(String path) {
+        if (path.indexOf('\\') < 0) {
+            return path;
+        }
+        StringBuilder sb = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\\' && i + 1 < path.length()) {
+                char next = path.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Path checkDirectory(File directory) throws FileNotFoundException {
+        if (directory == null || !directory.isDirectory()) {
+            throw new FileNotFoundException("Thư mục không tồn tại: " + directory);
+        }
+        return directory.toPath().toAbsolutePath().normalize();
+    }
+
+    private static Path tempFile(File target) {
+        return target.toPath().resolveSibling(target.getName() + ".tmp-manifest");
+    }
+
+    private static void report(int done, int total, Consumer<Double> progressCallback) {
+        if (progressCallback != null && total > 0) {
+            progressCallback.accept((double) done / total);
+        }
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+        return (bytes / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+    }
+}
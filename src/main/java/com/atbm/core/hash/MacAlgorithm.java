@@ -0,0 +1,208 @@
+package com.atbm.core.hash;
+
+import com.atbm.utils.FileUtils;
+import com.atbm.utils.HexUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Security;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+// Class này tính MAC có khóa (HMAC-SHA256/512, Poly1305, KMAC128/256) cho dữ liệu, stream và file.
+// Mac được giữ lại theo từng thread: mỗi lần tính chỉ tốn init() với key, không getInstance() lại,
+// nên kiểm tra toàn vẹn cho rất nhiều message nhỏ không tạo Mac mới cho từng message.
+// Poly1305 là MAC dùng một lần: mỗi key (32 byte) chỉ được dùng cho MỘT message, dùng lại key
+// cho message khác thì kẻ tấn công có thể giả mạo MAC.
+public class MacAlgorithm {
+    public static final String HMAC_SHA256 = "HmacSHA256";
+    public static final String HMAC_SHA512 = "HmacSHA512";
+    public static final String POLY1305 = "Poly1305";
+    public static final String KMAC128 = "KMAC128";
+    public static final String KMAC256 = "KMAC256";
+
+    // Số Mac rảnh giữ lại cho mỗi thuật toán trong mỗi thread (đủ cho vài Session lồng nhau)
+    private static final int MAX_POOLED_PER_ALGORITHM = 4;
+
+    // Mỗi thread có một pool riêng: thuật toán -> các Mac đang rảnh
+    private static final ThreadLocal<Map<String, Deque<Mac>>> POOL = ThreadLocal.withInitial(HashMap::new);
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    private MacAlgorithm() {
+    }
+
+    public static String[] getSupportedAlgorithms() {
+        return new String[] { HMAC_SHA256, HMAC_SHA512, POLY1305, KMAC128, KMAC256 };
+    }
+
+    // Tên chuẩn của thuật toán (không phân biệt hoa thường, chấp nhận HMAC-SHA256), null nếu không hỗ trợ
+    public static String findAlgorithm(String name) {
+        String normalized = name.replace("-", "").replace("_", "");
+        for (String algorithm : getSupportedAlgorithms()) {
+            if (algorithm.equalsIgnoreCase(normalized)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    // Tạo key ngẫu nhiên: HMAC/KMAC dài bằng output, Poly1305 32 byte
+    public static SecretKey generateKey(String algorithm) throws NoSuchAlgorithmException {
+        validateAlgorithm(algorithm);
+        KeyGenerator generator = KeyGenerator.getInstance(algorithm);
+        byte[] encoded = generator.generateKey().getEncoded();
+        // KeyGenerator của KMAC trả key tên HMACSHA3-xxx, đổi lại tên để lưu/tải file key thống nhất
+        return new SecretKeySpec(encoded, algorithm);
+    }
+
+    public static int getMacLength(String algorithm) throws NoSuchAlgorithmException {
+        validateAlgorithm(algorithm);
+        return Mac.getInstance(algorithm).getMacLength();
+    }
+
+    // Một lần tính MAC tăng dần: update nhiều lần rồi doFinal. Mac lấy từ pool của thread hiện tại
+    // và được trả lại khi doFinal/verify/close, nên Session chỉ dùng trên thread đã tạo ra nó.
+    public static class Session implements AutoCloseable {
+        private final String algorithm;
+        private Mac mac;
+
+        Session(String algorithm, Mac mac) {
+            this.algorithm = algorithm;
+            this.mac = mac;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public Session update(byte[] data) {
+            return update(data, 0, data.length);
+        }
+
+        public Session update(byte[] data, int offset, int length) {
+            active().update(data, offset, length);
+            return this;
+        }
+
+        // Đọc hết phần còn lại của buffer (position được đưa tới limit)
+        public Session update(ByteBuffer data) {
+            active().update(data);
+            return this;
+        }
+
+        public byte[] doFinal() {
+            try {
+                return active().doFinal();
+            } finally {
+                close();
+            }
+        }
+
+        public String doFinalHex() {
+            return HexUtils.encode(doFinal());
+        }
+
+        // So sánh MAC với expected trong thời gian không phụ thuộc vị trí byte khác nhau
+        public boolean verify(byte[] expected) {
+            return MessageDigest.isEqual(doFinal(), expected);
+        }
+
+        // Trả Mac về pool, gọi khi bỏ dở một lần tính (doFinal/verify đã tự gọi)
+        @Override
+        public void close() {
+            if (mac != null) {
+                release(algorithm, mac);
+                mac = null;
+            }
+        }
+
+        private Mac active() {
+            if (mac == null) {
+                throw new IllegalStateException("Session MAC đã kết thúc, cần gọi start() lại");
+            }
+            return mac;
+        }
+    }
+
+    // Bắt đầu tính MAC tăng dần với key
+    public static Session start(String algorithm, SecretKey key) throws NoSuchAlgorithmException, InvalidKeyException {
+        Mac mac = acquire(algorithm);
+        // init() lỗi (key sai độ dài...) thì bỏ Mac này, không trả về pool
+        mac.init(key);
+        return new Session(algorithm, mac);
+    }
+
+    public static byte[] mac(String algorithm, SecretKey key, byte[] data)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        return start(algorithm, key).update(data).doFinal();
+    }
+
+    public static String macHex(String algorithm, SecretKey key, byte[] data)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        return HexUtils.encode(mac(algorithm, key, data));
+    }
+
+    public static boolean verify(String algorithm, SecretKey key, byte[] data, byte[] expected)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        return start(algorithm, key).update(data).verify(expected);
+    }
+
+    // MAC dữ liệu từ channel theo từng chunk, bộ nhớ không phụ thuộc kích thước dữ liệu
+    public static byte[] mac(String algorithm, SecretKey key, ReadableByteChannel channel)
+            throws IOException, NoSuchAlgorithmException, InvalidKeyException {
+        try (Session session = start(algorithm, key)) {
+            FileUtils.readChunks(channel, session::update);
+            return session.doFinal();
+        }
+    }
+
+    public static byte[] macFile(File file, String algorithm, SecretKey key)
+            throws IOException, NoSuchAlgorithmException, InvalidKeyException {
+        try (FileChannel channel = FileUtils.openInputChannel(file.getPath())) {
+            return mac(algorithm, key, channel);
+        }
+    }
+
+    // Xóa các Mac rảnh của thread hiện tại (ví dụ khi thread pool kết thúc công việc)
+    public static void clear() {
+        POOL.get().clear();
+    }
+
+    private static Mac acquire(String algorithm) throws NoSuchAlgorithmException {
+        validateAlgorithm(algorithm);
+        Deque<Mac> pooled = POOL.get().get(algorithm);
+        Mac mac = pooled != null ? pooled.poll() : null;
+        return mac != null ? mac : Mac.getInstance(algorithm);
+    }
+
+    // Chỉ nhận Mac đã init. reset() xóa dữ liệu đã update dở; key cũ vẫn nằm trong Mac tới lần init() sau
+    private static void release(String algorithm, Mac mac) {
+        mac.reset();
+        Deque<Mac> pooled = POOL.get().computeIfAbsent(algorithm, name -> new ArrayDeque<>());
+        if (pooled.size() < MAX_POOLED_PER_ALGORITHM) {
+            pooled.push(mac);
+        }
+    }
+
+    private static void validateAlgorithm(String algorithm) {
+        if (!algorithm.equals(findAlgorithm(algorithm))) {
+            throw new IllegalArgumentException("Không hỗ trợ thuật toán MAC: " + algorithm
+                    + ". Hỗ trợ: HmacSHA256, HmacSHA512, Poly1305, KMAC128, KMAC256.");
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.atbm.core.hash;
+
+import com.atbm.utils.HexUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Class này tính tree hash (Merkle) của file, các leaf được hash song song trên nhiều thread.
+// Kết quả KHÁC với hash tuần tự của HashAlgorithm.hashFile, dùng khi cần tốc độ trên file rất lớn.
+//
+// Định dạng (cố định, không phụ thuộc số thread):
+//   File được chia thành các leaf dài leafSize byte (leaf cuối có thể ngắn hơn, file rỗng có một leaf rỗng).
+//   leaf hash = H(0x00 | dữ liệu leaf)
+//   node hash = H(0x01 | hash con trái | hash con phải)
+//   Với n leaf, cây con trái chứa k leaf đầu, k là lũy thừa của 2 lớn nhất nhỏ hơn n (như RFC 6962).
+// Chuỗi kết quả: "<thuật toán>-TREE-<leafSize>:<root hash hex>", ví dụ "SHA-256-TREE-1048576:ab12...".
+public class TreeHash {
+    public static final String SHA_256 = "SHA-256";
+    public static final String SHA_512 = "SHA-512";
+    public static final String BLAKE3 = "BLAKE3-256";
+
+    // Kích thước leaf mặc định là 1MB
+    public static final int DEFAULT_LEAF_SIZE = 1024 * 1024;
+
+    private static final int MIN_LEAF_SIZE = 4096;
+    private static final int MAX_LEAF_SIZE = 64 * 1024 * 1024;
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    // Kết quả tree hash kèm thông tin hiệu năng
+    public static class Result {
+        private final String algorithm;
+        private final int leafSize;
+        private final String rootHash;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Result(String algorithm, int leafSize, String rootHash, long bytes, long elapsedNanos) {
+            this.algorithm = algorithm;
+            this.leafSize = leafSize;
+            this.rootHash = rootHash;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public int getLeafSize() {
+            return leafSize;
+        }
+
+        public String getRootHash() {
+            return rootHash;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // Tốc độ hash tính bằng MB/s
+        public double getThroughputMBps() {
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return (bytes / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return algorithm + "-TREE-" + leafSize + ":" + rootHash;
+        }
+    }
+
+    public static String[] getSupportedAlgorithms() {
+        return new String[] { SHA_256, SHA_512, BLAKE3 };
+    }
+
+    public static Result hashFile(File file, String algorithm, Consumer<Double> progressCallback)
+            throws GeneralSecurityException, IOException {
+        return hashFile(file, algorithm, DEFAULT_LEAF_SIZE, Runtime.getRuntime().availableProcessors(),
+                progressCallback);
+    }
+
+    // Tính tree hash với parallelism thread, leafSize phải là lũy thừa của 2
+    public static Result hashFile(File file, String algorithm, int leafSize, int parallelism,
+            Consumer<Double> progressCallback) throws GeneralSecurityException, IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File không được null");
+        }
+        if (!file.exists()) {
+            throw new FileNotFoundException("File không tồn tại: " + file.getPath());
+        }
+        if (leafSize < MIN_LEAF_SIZE || leafSize > MAX_LEAF_SIZE || Integer.bitCount(leafSize) != 1) {
+            throw new IllegalArgumentException("Kích thước leaf phải là lũy thừa của 2 từ " + MIN_LEAF_SIZE
+                    + " đến " + MAX_LEAF_SIZE + " byte");
+        }
+        // Kiểm tra thuật toán trước khi tạo thread, tên thuật toán trong kết quả luôn viết hoa
+        newDigest(algorithm);
+        algorithm = algorithm.toUpperCase();
+
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long leafCount = Math.max(1, (size + leafSize - 1) / leafSize);
+            TreeJob job = new TreeJob(channel, algorithm, leafSize, size, progressCallback);
+
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            byte[] root;
+            try {
+                root = pool.invoke(new NodeTask(job, 0, leafCount));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (TreeHashException e) {
+                throw (GeneralSecurityException) e.getCause();
+            } finally {
+                pool.shutdownNow();
+                try {
+                    pool.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new Result(algorithm, leafSize, HexUtils.encode(root), size, System.nanoTime() - start);
+        }
+    }
+
+    // Tham số dùng chung cho mọi leaf của một lần hash
+    private static class TreeJob {
+        final FileChannel channel;
+        final String algorithm;
+        final int leafSize;
+        final long size;
+        final Consumer<Double> progressCallback;
+        final AtomicLong processed = new AtomicLong();
+        // Mỗi worker thread dùng lại digest và buffer của mình cho mọi leaf
+        final ThreadLocal<MessageDigest> digests;
+        final ThreadLocal<byte[]> buffers;
+
+        TreeJob(FileChannel channel, String algorithm, int leafSize, long size, Consumer<Double> progressCallback) {
+            this.channel = channel;
+            this.algorithm = algorithm;
+            this.leafSize = leafSize;
+            this.size = size;
+            this.progressCallback = progressCallback;
+            this.digests = ThreadLocal.withInitial(() -> {
+                try {
+                    return newDigest(algorithm);
+                } catch (GeneralSecurityException e) {
+                    throw new TreeHashException(e);
+                }
+            });
+            this.buffers = ThreadLocal.withInitial(() -> new byte[leafSize]);
+        }
+
+        byte[] hashLeaf(long index) throws IOException {
+            long offset = index * leafSize;
+            int length = (int) Math.min(leafSize, size - offset);
+            byte[] buffer = buffers.get();
+            ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+            while (target.hasRemaining()) {
+                if (channel.read(target, offset + target.position()) < 0) {
+                    throw new IOException("Không đọc đủ dữ liệu của leaf " + index);
+                }
+            }
+
+            MessageDigest md = digests.get();
+            md.update(LEAF_PREFIX);
+            md.update(buffer, 0, length);
+            byte[] hash = md.digest();
+
+            long done = processed.addAndGet(length);
+            if (progressCallback != null && size > 0) {
+                progressCallback.accept((double) done / size);
+            }
+            return hash;
+        }
+
+        byte[] hashNode(byte[] left, byte[] right) {
+            MessageDigest md = digests.get();
+            md.update(NODE_PREFIX);
+            md.update(left);
+            md.update(right);
+            return md.digest();
+        }
+    }
+
+    // Tính hash của cây con chứa các leaf [from, to)
+    private static class NodeTask extends RecursiveTask<byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final TreeJob job;
+        private final long from;
+        private final long to;
+
+        NodeTask(TreeJob job, long from, long to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected byte[] compute() {
+            long count = to - from;
+            if (count == 1) {
+                try {
+                    return job.hashLeaf(from);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            long split = from + Long.highestOneBit(count - 1);
+            NodeTask left = new NodeTask(job, from, split);
+            NodeTask right = new NodeTask(job, split, to);
+            left.fork();
+            byte[] rightHash = right.compute();
+            return job.hashNode(left.join(), rightHash);
+        }
+    }
+
+    private static class TreeHashException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TreeHashException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) throws GeneralSecurityException {
+        if (SHA_256.equalsIgnoreCase(algorithm) || SHA_512.equalsIgnoreCase(algorithm)) {
+            return MessageDigest.getInstance(algorithm);
+        } else if (BLAKE3.equalsIgnoreCase(algorithm)) {
+            return MessageDigest.getInstance(BLAKE3, "BC");
+        }
+        throw new IllegalArgumentException("Tree hash chỉ hỗ trợ SHA-256, SHA-512 và BLAKE3-256: " + algorithm);
+    }
+}
@@ -0,0 +1,257 @@
+package com.atbm.core.key;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.SecretKey;
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
+
+// Class này cache các key đã tải từ file, theo đường dẫn + thời điểm sửa + kích thước file.
+// File key thay đổi trên đĩa thì lần tải sau đọc lại file. Số key giới hạn theo LRU;
+// key bị loại hoặc bị xóa khỏi cache được hủy (destroy) nếu hỗ trợ, secret key do cache tạo luôn hỗ trợ.
+// Việc hủy này chỉ ghi đè bản của cache: người gọi nhận bản sao riêng của secret key, bản sao đó vẫn dùng
+// được sau khi entry bị loại và chỉ được ghi đè khi người gọi tự gọi destroy() trên nó.
+public class KeyCache {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // Tạo key từ byte đã giải mã Base64, mảng byte bị ghi đè bằng 0 sau khi gọi
+    @FunctionalInterface
+    public interface KeyLoader<K extends Key> {
+        K load(byte[] encoded) throws NoSuchAlgorithmException, InvalidKeySpecException;
+    }
+
+    private static class Entry {
+        final FileTime modified;
+        final long size;
+        final Key key;
+
+        Entry(FileTime modified, long size, Key key) {
+            this.modified = modified;
+            this.size = size;
+            this.key = key;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    // Khóa riêng cho từng file đang được tải, để hai thread không cùng đọc một file
+    private final ConcurrentHashMap<String, Object> loadLocks = new ConcurrentHashMap<>();
+    private long hits;
+    private long misses;
+
+    public KeyCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Dung lượng cache phải lớn hơn 0");
+        }
+        // accessOrder = true: mỗi lần get đưa entry về cuối, entry đầu là entry ít dùng nhất
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > capacity) {
+                    destroy(eldest.getValue().key);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Trả key đã cache nếu file chưa đổi, nếu không thì đọc file và tạo key bằng loader.
+    // type phân biệt các cách đọc cùng một file (ví dụ "secret|AES", "private|RSA").
+    // Đọc file và tạo key chạy ngoài khóa của cache, chỉ các lần tải cùng một file chờ nhau.
+    public <K extends Key> K get(String filePath, String type, KeyLoader<K> loader)
+            throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        String cacheKey = type + "|" + path;
+
+        K cached = lookup(cacheKey, attributes);
+        if (cached != null) {
+            return cached;
+        }
+        Object loadLock = loadLocks.computeIfAbsent(cacheKey, k -> new Object());
+        try {
+            synchronized (loadLock) {
+                // Thread khác có thể vừa tải xong file này trong lúc chờ
+                cached = lookup(cacheKey, attributes);
+                if (cached != null) {
+                    return cached;
+                }
+                byte[] encoded = KeyManager.readKeyBytes(path);
+                K key;
+                try {
+                    key = loader.load(encoded);
+                } finally {
+                    Arrays.fill(encoded, (byte) 0);
+                }
+                // Sao trước khi đưa vào cache: sau store() thread khác có thể loại và hủy entry ngay
+                K result = handOut(key);
+                store(cacheKey, new Entry(attributes.lastModifiedTime(), attributes.size(), key));
+                return result;
+            }
+        } finally {
+            loadLocks.remove(cacheKey, loadLock);
+        }
+    }
+
+    // Key đã cache (bản giao cho người gọi) nếu file chưa đổi, null nếu cần tải lại
+    private synchronized <K extends Key> K lookup(String cacheKey, BasicFileAttributes attributes) {
+        Entry entry = entries.get(cacheKey);
+        if (entry != null && entry.modified.equals(attributes.lastModifiedTime())
+                && entry.size == attributes.size()) {
+            hits++;
+            return handOut(entry.key);
+        }
+        if (entry != null) {
+            // File đã bị sửa, key cũ không còn dùng từ cache
+            entries.remove(cacheKey);
+            destroy(entry.key);
+        }
+        return null;
+    }
+
+    private synchronized void store(String cacheKey, Entry entry) {
+        misses++;
+        Entry previous = entries.put(cacheKey, entry);
+        if (previous != null) {
+            destroy(previous.key);
+        }
+    }
+
+    // Secret key do cache tạo được giao dưới dạng bản sao: cache hủy bản của mình khi loại entry mà không
+    // làm hỏng key người gọi vẫn đang dùng (ví dụ Cipher.init cho từng segment). Key khác không hủy được
+    // (destroy() bỏ qua) nên dùng chung một đối tượng.
+    @SuppressWarnings("unchecked")
+    private static <K extends Key> K handOut(Key key) {
+        if (key instanceof CachedSecretKey) {
+            return (K) ((CachedSecretKey) key).copy();
+        }
+        return (K) key;
+    }
+
+    // Hủy các key đã cache từ một file, gọi khi file key được ghi lại
+    public synchronized void invalidate(String filePath) {
+        String suffix = "|" + Paths.get(filePath).toAbsolutePath().normalize();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().endsWith(suffix)) {
+                destroy(entry.getValue().key);
+                iterator.remove();
+            }
+        }
+    }
+
+    // Hủy và xóa toàn bộ key đang cache
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            destroy(entry.key);
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Key của JDK (ví dụ RSA) không hỗ trợ destroy, khi đó chỉ bỏ tham chiếu
+    private static void destroy(Key key) {
+        if (key instanceof Destroyable && !((Destroyable) key).isDestroyed()) {
+            try {
+                ((Destroyable) key).destroy();
+            } catch (DestroyFailedException ignored) {
+                // Provider không cho hủy key
+            }
+        }
+    }
+
+    // SecretKey giữ bản sao byte key của cache, destroy() ghi đè bằng 0.
+    // Dùng key đã bị hủy sẽ ném IllegalStateException thay vì âm thầm mã hóa bằng key toàn 0.
+    static final class CachedSecretKey implements SecretKey {
+        private static final long serialVersionUID = 1L;
+
+        private final String algorithm;
+        private final byte[] encoded;
+        private volatile boolean destroyed;
+
+        CachedSecretKey(byte[] encoded, String algorithm) {
+            this.encoded = encoded.clone();
+            this.algorithm = algorithm;
+        }
+
+        // Bản sao độc lập, hủy bản này không ảnh hưởng bản kia
+        CachedSecretKey copy() {
+            if (destroyed) {
+                throw new IllegalStateException("Key đã bị hủy khỏi cache, cần tải lại từ file");
+            }
+            return new CachedSecretKey(encoded, algorithm);
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        @Override
+        public String getFormat() {
+            return "RAW";
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            if (destroyed) {
+                throw new IllegalStateException("Key đã bị hủy khỏi cache, cần tải lại từ file");
+            }
+            return encoded.clone();
+        }
+
+        @Override
+        public void destroy() {
+            Arrays.fill(encoded, (byte) 0);
+            destroyed = true;
+        }
+
+        @Override
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SecretKey) || destroyed) {
+                return false;
+            }
+            SecretKey that = (SecretKey) other;
+            return algorithm.equalsIgnoreCase(that.getAlgorithm())
+                    && MessageDigest.isEqual(encoded, that.getEncoded());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(encoded) ^ algorithm.toLowerCase().hashCode();
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.atbm.core.key;
 
 import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.*;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
 
 // Class này chứa các phương thức lưu và tải key
 public class KeyManager {
+    // Key tải từ file được cache theo đường dẫn + thời điểm sửa, tránh đọc file và parse lại mỗi lần dùng
+    private static final KeyCache KEY_CACHE = new KeyCache(KeyCache.DEFAULT_CAPACITY);
+
+    // Các public exponent phổ biến, dùng để khôi phục tham số CRT khi file private key không có
+    private static final int[] COMMON_PUBLIC_EXPONENTS = { 65537, 3, 5, 17, 257 };
 
     // Lưu key vào file
     public static void saveKey(Key key, String filePath) throws IOException {
@@ -19,6 +30,8 @@ public class KeyManager {
             String encodedKey = Base64.getEncoder().encodeToString(keyBytes);
             fos.write(encodedKey.getBytes());
         }
+        // Key cũ của file này (nếu đã cache) không còn đúng
+        KEY_CACHE.invalidate(filePath);
     }
 
     public static void saveKeyPair(KeyPair keyPair, String publicKeyPath, String privateKeyPath) throws IOException {
@@ -26,40 +39,129 @@ public class KeyManager {
         saveKey(keyPair.getPrivate(), privateKeyPath);
     }
 
-    // Tải key từ file
-    private static byte[] loadRawKeyBytes(String filePath) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line);
-            }
-        }
-        return Base64.getDecoder().decode(content.toString());
+    // Tải byte key từ file (Base64, có thể xuống dòng), dùng bởi KeyCache khi chưa có trong cache
+    static byte[] readKeyBytes(Path path) throws IOException {
+        String content = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII);
+        return Base64.getDecoder().decode(content.replace("\r", "").replace("\n", ""));
     }
 
-    // Tải key bí mật từ file
+    // Tải key bí mật từ file (có cache). Key trả về là bản sao riêng của người gọi, không bị hủy khi
+    // cache loại entry; gọi destroy() trên key khi dùng xong để ghi đè byte key bằng 0.
     public static SecretKey loadSecretKey(String filePath, String algorithm) throws IOException {
-        byte[] decodedKey = loadRawKeyBytes(filePath);
-        return new SecretKeySpec(decodedKey, 0, decodedKey.length, algorithm);
+        try {
+            return KEY_CACHE.get(filePath, "secret|" + algorithm,
+                    encoded -> new KeyCache.CachedSecretKey(encoded, algorithm));
+        } catch (GeneralSecurityException e) {
+            // Tạo secret key không cần provider nên không thể xảy ra
+            throw new IllegalStateException(e);
+        }
     }
 
-    // Tải public key
+    // Tải public key (có cache)
     public static PublicKey loadPublicKey(String filePath, String algorithm)
             throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
-        byte[] keyBytes = loadRawKeyBytes(filePath);
-        X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance(algorithm);
-        return keyFactory.generatePublic(spec);
+        return KEY_CACHE.get(filePath, "public|" + algorithm, encoded -> {
+            X509EncodedKeySpec spec = new X509EncodedKeySpec(encoded);
+            if (!isECIES(algorithm)) {
+                return KeyFactory.getInstance(algorithm).generatePublic(spec);
+            }
+            // Khóa ECIES có thể là X25519 hoặc P-256, X.509 đã ghi OID nên thử từng loại
+            try {
+                return KeyFactory.getInstance("XDH").generatePublic(spec);
+            } catch (InvalidKeySpecException e) {
+                return KeyFactory.getInstance("EC").generatePublic(spec);
+            }
+        });
     }
 
-    // tải private key
+    // tải private key (có cache), private key RSA luôn có tham số CRT để giải mã nhanh
     public static PrivateKey loadPrivateKey(String filePath, String algorithm)
             throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
-        byte[] keyBytes = loadRawKeyBytes(filePath);
-        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(keyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance(algorithm);
-        return keyFactory.generatePrivate(spec);
+        return KEY_CACHE.get(filePath, "private|" + algorithm, encoded -> {
+            PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(encoded);
+            if (isECIES(algorithm)) {
+                try {
+                    return KeyFactory.getInstance("XDH").generatePrivate(spec);
+                } catch (InvalidKeySpecException e) {
+                    return KeyFactory.getInstance("EC").generatePrivate(spec);
+                }
+            }
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm);
+            PrivateKey key = keyFactory.generatePrivate(spec);
+            if (key instanceof RSAPrivateKey && !(key instanceof RSAPrivateCrtKey)) {
+                return toCrtKey((RSAPrivateKey) key, keyFactory);
+            }
+            return key;
+        });
+    }
+
+    // ECIES, ECIES-X25519, ECIES-P256
+    private static boolean isECIES(String algorithm) {
+        return algorithm.toUpperCase().startsWith("ECIES");
+    }
+
+    // Hủy và xóa các key đang cache, ví dụ khi người dùng đóng ứng dụng hoặc đổi bộ key
+    public static void clearKeyCache() {
+        KEY_CACHE.clear();
+    }
+
+    // Private key RSA chỉ có (n, d) thì giải mã phải lũy thừa theo n đầy đủ, chậm khoảng 3-4 lần so với CRT.
+    // Thử các public exponent phổ biến: với e đúng, phân tích được n = p * q từ e * d - 1
+    // và dựng lại key có đủ p, q, dP, dQ, qInv. Không phân tích được thì giữ nguyên key.
+    private static PrivateKey toCrtKey(RSAPrivateKey key, KeyFactory keyFactory) throws InvalidKeySpecException {
+        BigInteger n = key.getModulus();
+        BigInteger d = key.getPrivateExponent();
+        for (int exponent : COMMON_PUBLIC_EXPONENTS) {
+            BigInteger e = BigInteger.valueOf(exponent);
+            BigInteger p = factorModulus(n, e, d);
+            if (p == null) {
+                continue;
+            }
+            BigInteger q = n.divide(p);
+            BigInteger one = BigInteger.ONE;
+            RSAPrivateCrtKeySpec spec = new RSAPrivateCrtKeySpec(n, e, d, p, q,
+                    d.mod(p.subtract(one)), d.mod(q.subtract(one)), q.modInverse(p));
+            return keyFactory.generatePrivate(spec);
+        }
+        return key;
+    }
+
+    // Với k = e * d - 1 = 2^s * t (t lẻ), chọn g ngẫu nhiên: dãy g^t, g^2t, ... mod n
+    // thường gặp căn bậc hai không tầm thường của 1, và gcd(căn - 1, n) là một thừa số của n
+    private static BigInteger factorModulus(BigInteger n, BigInteger e, BigInteger d) {
+        BigInteger one = BigInteger.ONE;
+        BigInteger nMinusOne = n.subtract(one);
+        BigInteger k = e.multiply(d).subtract(one);
+        if (k.signum() <= 0 || k.testBit(0)) {
+            return null;
+        }
+        // e sai thì g^k mod n khác 1, bỏ qua sớm thay vì thử hết các g
+        if (!BigInteger.TWO.modPow(k, n).equals(one)) {
+            return null;
+        }
+        int s = k.getLowestSetBit();
+        BigInteger t = k.shiftRight(s);
+        for (int g = 2; g < 100; g++) {
+            BigInteger x = BigInteger.valueOf(g).modPow(t, n);
+            if (x.equals(one) || x.equals(nMinusOne)) {
+                continue;
+            }
+            for (int i = 0; i < s; i++) {
+                BigInteger y = x.multiply(x).mod(n);
+                if (y.equals(one)) {
+                    BigInteger p = x.subtract(one).gcd(n);
+                    if (!p.equals(one) && !p.equals(n)) {
+                        return p;
+                    }
+                    break;
+                }
+                if (y.equals(nMinusOne)) {
+                    break;
+                }
+                x = y;
+            }
+        }
+        return null;
     }
 
     // load key cho từng loại
@@ -87,6 +189,19 @@ public class KeyManager {
                 }
                 return loadPrivateKey(filePath, algorithm);
             }
+        } else if (isECIES(upperAlgo)) {
+            // Khóa ECIES dùng chung đuôi .pub/.pri với RSA, loại khóa nằm trong encoding X.509/PKCS#8
+            if (isEncrypting) {
+                if (!lowerPath.endsWith(".pub")) {
+                    throw new IllegalArgumentException("Cần file .pub để mã hóa ECIES");
+                }
+                return loadPublicKey(filePath, algorithm);
+            } else {
+                if (!lowerPath.endsWith(".pri")) {
+                    throw new IllegalArgumentException("Cần file .pri để giải mã ECIES");
+                }
+                return loadPrivateKey(filePath, algorithm);
+            }
         } else if (upperAlgo.equals("CAESAR") || upperAlgo.equals("VIGENERE")
                 || upperAlgo.equals("MONOALPHABETIC") || upperAlgo.equals("AFFINE") || upperAlgo.equals("HILL")) {
             return null;
@@ -0,0 +1,197 @@
+package com.atbm.core.key;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Class này tạo sẵn cặp key RSA trên thread nền để lấy ra ngay khi cần.
+// Tạo key RSA 4096 bit có thể mất vài giây (tìm số nguyên tố ngẫu nhiên), nên với các kích thước đã
+// prewarm, take() trả cặp key có sẵn và bổ sung lại trong nền. Kích thước chưa prewarm thì tạo trực tiếp,
+// không chạy gì trong nền (ví dụ CLI chỉ tạo một cặp key rồi thoát).
+public class KeyPairPool {
+    public static final int DEFAULT_POOL_SIZE = 2;
+    public static final int MAX_POOL_SIZE = 32;
+
+    private static final String ALGORITHM = "RSA";
+
+    // Cặp key có sẵn và số cặp đang được tạo, theo kích thước key
+    private static final Map<Integer, BlockingQueue<KeyPair>> POOLS = new ConcurrentHashMap<>();
+    private static final Map<Integer, AtomicInteger> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static volatile int poolSize = DEFAULT_POOL_SIZE;
+
+    // Thread nền ưu tiên thấp, daemon để không giữ ứng dụng khi đóng
+    private static final ExecutorService REFILLER = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+                Thread thread = new Thread(runnable, "rsa-keypair-pool");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+
+    private KeyPairPool() {
+    }
+
+    // Số cặp key giữ sẵn cho mỗi kích thước đã prewarm
+    public static void setPoolSize(int size) {
+        if (size < 0 || size > MAX_POOL_SIZE) {
+            throw new IllegalArgumentException("Số cặp key tạo sẵn phải từ 0 đến " + MAX_POOL_SIZE);
+        }
+        poolSize = size;
+        for (int keySize : POOLS.keySet()) {
+            refill(keySize);
+        }
+    }
+
+    public static int getPoolSize() {
+        return poolSize;
+    }
+
+    // Bật pool cho các kích thước key và bắt đầu tạo sẵn trong nền
+    public static void prewarm(int... keySizes) {
+        for (int keySize : keySizes) {
+            validateKeySize(keySize);
+            POOLS.computeIfAbsent(keySize, size -> new LinkedBlockingQueue<>());
+            IN_FLIGHT.computeIfAbsent(keySize, size -> new AtomicInteger());
+            refill(keySize);
+        }
+    }
+
+    // Số cặp key đang có sẵn cho một kích thước
+    public static int available(int keySize) {
+        BlockingQueue<KeyPair> pool = POOLS.get(keySize);
+        return pool == null ? 0 : pool.size();
+    }
+
+    // Lấy một cặp key: có sẵn thì trả ngay, không thì tạo trên thread hiện tại.
+    // Mỗi cặp key chỉ được trả ra một lần.
+    public static KeyPair take(int keySize) throws NoSuchAlgorithmException {
+        validateKeySize(keySize);
+        BlockingQueue<KeyPair> pool = POOLS.get(keySize);
+        if (pool == null) {
+            return generate(keySize);
+        }
+        KeyPair keyPair = pool.poll();
+        refill(keySize);
+        return keyPair != null ? keyPair : generate(keySize);
+    }
+
+    // Xóa các cặp key đang giữ sẵn và tắt pool cho mọi kích thước
+    public static void clear() {
+        for (BlockingQueue<KeyPair> pool : POOLS.values()) {
+            pool.clear();
+        }
+        POOLS.clear();
+    }
+
+    // Tạo count cặp key vào thư mục trên tất cả CPU core, file <baseName>_<i>.pub / .pri (i từ 1).
+    // Dùng trước các cặp key có sẵn trong pool. progressCallback nhận số cặp đã lưu.
+    public static List<File> generateToDirectory(File outputDir, String baseName, int keySize, int count,
+            Consumer<Integer> progressCallback) throws IOException, NoSuchAlgorithmException, InterruptedException {
+        validateKeySize(keySize);
+        if (count <= 0) {
+            throw new IllegalArgumentException("Số cặp key phải lớn hơn 0");
+        }
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Không thể tạo thư mục: " + outputDir.getPath());
+        }
+        // Kiểm tra thuật toán một lần trước khi chạy song song
+        KeyPairGenerator.getInstance(ALGORITHM);
+
+        int digits = String.valueOf(count).length();
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(count, Runtime.getRuntime().availableProcessors()));
+        List<Future<File>> futures = new ArrayList<>();
+        try {
+            for (int i = 1; i <= count; i++) {
+                String name = baseName + "_" + String.format("%0" + digits + "d", i);
+                futures.add(executor.submit(() -> {
+                    BlockingQueue<KeyPair> pool = POOLS.get(keySize);
+                    KeyPair keyPair = pool != null ? pool.poll() : null;
+                    if (keyPair == null) {
+                        keyPair = generate(keySize);
+                    }
+                    File publicFile = new File(outputDir, name + ".pub");
+                    KeyManager.saveKeyPair(keyPair, publicFile.getPath(),
+                            new File(outputDir, name + ".pri").getPath());
+                    if (progressCallback != null) {
+                        progressCallback.accept(done.incrementAndGet());
+                    }
+                    return publicFile;
+                }));
+            }
+            List<File> publicFiles = new ArrayList<>();
+            for (Future<File> future : futures) {
+                try {
+                    publicFiles.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IOException("Lỗi khi tạo cặp key: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return publicFiles;
+        } finally {
+            executor.shutdownNow();
+            refill(keySize);
+        }
+    }
+
+    // Bổ sung pool trong nền cho đủ poolSize, tính cả các cặp đang được tạo
+    private static void refill(int keySize) {
+        BlockingQueue<KeyPair> pool = POOLS.get(keySize);
+        AtomicInteger inFlight = IN_FLIGHT.get(keySize);
+        if (pool == null || inFlight == null) {
+            return;
+        }
+        while (true) {
+            int pending = inFlight.get();
+            if (pool.size() + pending >= poolSize) {
+                return;
+            }
+            if (!inFlight.compareAndSet(pending, pending + 1)) {
+                continue;
+            }
+            REFILLER.execute(() -> {
+                try {
+                    KeyPair keyPair = generate(keySize);
+                    // Pool có thể đã bị clear() trong lúc tạo
+                    BlockingQueue<KeyPair> current = POOLS.get(keySize);
+                    if (current != null && current.size() < poolSize) {
+                        current.offer(keyPair);
+                    }
+                } catch (NoSuchAlgorithmException ignored) {
+                    // RSA luôn có trong JDK, take() sẽ báo lỗi nếu thiếu
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static KeyPair generate(int keySize) throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(ALGORITHM);
+        generator.initialize(keySize);
+        return generator.generateKeyPair();
+    }
+
+    private static void validateKeySize(int keySize) {
+        if (keySize != 1024 && keySize != 2048 && keySize != 4096) {
+            throw new IllegalArgumentException(
+                    "Kích thước key RSA không hợp lệ: " + keySize + ". Hỗ trợ: 1024, 2048, 4096.");
+        }
+    }
+}
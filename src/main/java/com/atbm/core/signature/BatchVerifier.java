@@ -0,0 +1,257 @@
+package com.atbm.core.signature;
+
+import com.atbm.utils.FileUtils;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Class này xác minh chữ ký tách rời của nhiều file song song trên tất cả CPU core.
+// Mỗi file dữ liệu chỉ được đọc một lần, thẳng vào Signature.update; mỗi thread giữ một buffer đọc
+// và một đối tượng Signature dùng lại cho mọi file của nó, nên hàng nghìn file nhỏ không phải cấp phát lại.
+public class BatchVerifier {
+    // Buffer đọc của mỗi thread, đủ lớn để file nhỏ chỉ cần một lần read
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    // Kết quả xác minh một file
+    public static class FileVerification {
+        private final File file;
+        private final boolean valid;
+        private final Exception error;
+        private final long bytes;
+        private final long nanos;
+
+        FileVerification(File file, boolean valid, Exception error, long bytes, long nanos) {
+            this.file = file;
+            this.valid = valid;
+            this.error = error;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        // true nếu chữ ký hợp lệ
+        public boolean isValid() {
+            return valid;
+        }
+
+        // Lỗi khi đọc file hoặc file chữ ký (thiếu, sai định dạng, khác khóa), null nếu không có lỗi
+        public Exception getError() {
+            return error;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        // Thời gian xác minh file này, gồm đọc file chữ ký và file dữ liệu
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    // Kết quả của cả batch, results theo thứ tự đường dẫn
+    public static class BatchVerification {
+        private final List<FileVerification> results;
+        private final long elapsedNanos;
+        private final long[] sortedNanos;
+
+        BatchVerification(List<FileVerification> results, long elapsedNanos) {
+            this.results = results;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedNanos = results.stream().mapToLong(FileVerification::getNanos).sorted().toArray();
+        }
+
+        public List<FileVerification> getResults() {
+            return results;
+        }
+
+        public int getTotalFiles() {
+            return results.size();
+        }
+
+        public int getValidFiles() {
+            return (int) results.stream().filter(FileVerification::isValid).count();
+        }
+
+        // Chữ ký không khớp với nội dung file
+        public int getInvalidFiles() {
+            return (int) results.stream().filter(result -> !result.isValid() && result.getError() == null).count();
+        }
+
+        public int getErrorFiles() {
+            return (int) results.stream().filter(result -> result.getError() != null).count();
+        }
+
+        public boolean isAllValid() {
+            return getValidFiles() == results.size();
+        }
+
+        public long getTotalBytes() {
+            return results.stream().mapToLong(FileVerification::getBytes).sum();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // Tốc độ đọc + xác minh tính bằng MB/s trên toàn batch
+        public double getThroughputMBps() {
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return (getTotalBytes() / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        public double getFilesPerSecond() {
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return results.size() / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        // Độ trễ xác minh một file ở phân vị percentile (0..100), tính bằng nano giây
+        public long getLatencyPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Phân vị phải từ 0 đến 100");
+            }
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))];
+        }
+
+        public long getMaxLatency() {
+            return sortedNanos.length == 0 ? 0 : sortedNanos[sortedNanos.length - 1];
+        }
+    }
+
+    private BatchVerifier() {
+    }
+
+    // Xác minh mọi file trong thư mục (kể cả thư mục con) có file chữ ký <tên file>.sig đi kèm
+    public static BatchVerification verifyDirectory(File directory, PublicKey publicKey,
+            Consumer<Integer> progressCallback) throws IOException, InterruptedException, GeneralSecurityException {
+        return verifyFiles(findSignedFiles(directory), publicKey, Runtime.getRuntime().availableProcessors(),
+                progressCallback);
+    }
+
+    // Các file trong thư mục (kể cả thư mục con) có file chữ ký đi kèm, theo thứ tự đường dẫn
+    public static List<File> findSignedFiles(File directory) throws IOException {
+        if (directory == null || !directory.isDirectory()) {
+            throw new FileNotFoundException("Thư mục không tồn tại: " + directory);
+        }
+        try (Stream<Path> walk = Files.walk(directory.toPath())) {
+            return walk.filter(Files::isRegularFile)
+                    .sorted()
+                    .map(Path::toFile)
+                    .filter(file -> !file.getName().endsWith(DigitalSignature.SIGNATURE_EXTENSION))
+                    .filter(file -> DigitalSignature.getSignatureFile(file).isFile())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static BatchVerification verifyFiles(List<File> files, PublicKey publicKey,
+            Consumer<Integer> progressCallback) throws IOException, InterruptedException, GeneralSecurityException {
+        return verifyFiles(files, publicKey, Runtime.getRuntime().availableProcessors(), progressCallback);
+    }
+
+    // Xác minh từng file với <file>.sig của nó bằng publicKey, tối đa parallelism file cùng lúc.
+    // Lỗi của một file không dừng cả batch mà được ghi vào kết quả của file đó.
+    // progressCallback nhận số file đã xác minh xong.
+    public static BatchVerification verifyFiles(List<File> files, PublicKey publicKey, int parallelism,
+            Consumer<Integer> progressCallback) throws IOException, InterruptedException, GeneralSecurityException {
+        if (files == null || publicKey == null) {
+            throw new IllegalArgumentException("Danh sách file và khóa công khai không được null");
+        }
+        String scheme = DigitalSignature.getScheme(publicKey);
+        byte[] keyId = DigitalSignature.keyId(publicKey);
+        // Kiểm tra scheme và khóa một lần trước khi chạy song song
+        DigitalSignature.newSignature(scheme).initVerify(publicKey);
+
+        // File lớn chạy trước để các thread kết thúc gần cùng lúc
+        List<File> order = new ArrayList<>(files);
+        order.sort(Comparator.comparingLong(File::length).reversed());
+
+        ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(READ_BUFFER_SIZE));
+        ThreadLocal<Signature> signatures = new ThreadLocal<>();
+        AtomicInteger done = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, order.size())));
+        List<Future<FileVerification>> futures = new ArrayList<>();
+        try {
+            for (File file : order) {
+                futures.add(executor.submit(() -> {
+                    FileVerification result = verifyOne(file, publicKey, scheme, keyId, buffers.get(), signatures);
+                    if (progressCallback != null) {
+                        progressCallback.accept(done.incrementAndGet());
+                    }
+                    return result;
+                }));
+            }
+            List<FileVerification> results = new ArrayList<>(futures.size());
+            for (Future<FileVerification> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // verifyOne đã tự ghi nhận lỗi của file, chỉ còn lỗi không mong đợi
+                    throw new IOException("Lỗi khi xác minh batch: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            results.sort(Comparator.comparing(FileVerification::getFile));
+            return new BatchVerification(Collections.unmodifiableList(results), elapsed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static FileVerification verifyOne(File file, PublicKey publicKey, String scheme, byte[] keyId,
+            ByteBuffer buffer, ThreadLocal<Signature> signatures) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        try {
+            DigitalSignature.DetachedSignature detached =
+                    DigitalSignature.readSignatureFile(DigitalSignature.getSignatureFile(file));
+            DigitalSignature.checkSignatureMatchesKey(detached, scheme, keyId);
+            Signature signature = signatures.get();
+            if (signature == null) {
+                signature = DigitalSignature.newSignature(scheme);
+                signatures.set(signature);
+            }
+            // initVerify đặt lại trạng thái, kể cả khi file trước đó bị lỗi giữa chừng
+            signature.initVerify(publicKey);
+            Signature current = signature;
+            try (FileChannel channel = FileUtils.openInputChannel(file.getPath())) {
+                bytes = FileUtils.readChunks(channel, buffer, current::update);
+            }
+            boolean valid = DigitalSignature.verifySignature(signature, detached.getSignature());
+            return new FileVerification(file, valid, null, bytes, System.nanoTime() - start);
+        } catch (Exception e) {
+            return new FileVerification(file, false, e, bytes, System.nanoTime() - start);
+        }
+    }
+}
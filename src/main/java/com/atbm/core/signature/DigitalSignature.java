@@ -0,0 +1,274 @@
+package com.atbm.core.signature;
+
+import com.atbm.core.key.KeyPairPool;
+import com.atbm.utils.FileUtils;
+import com.atbm.utils.HexUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.EdDSAParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Class này ký và xác minh chữ ký số cho dữ liệu và file, chữ ký tách rời lưu ở file <tên file>.sig.
+// Dữ liệu được đọc theo chunk nên bộ nhớ không phụ thuộc kích thước file:
+//   RSA-PSS: SHA-256, MGF1-SHA-256, salt 32 byte
+//   ECDSA:   P-256 với SHA-256
+//   Ed25519: Ed25519ph (RFC 8032, băm trước bằng SHA-512), vì Ed25519 thuần phải giữ cả thông điệp trong bộ nhớ
+public class DigitalSignature {
+    public static final String RSA_PSS = "RSA-PSS";
+    public static final String ECDSA = "ECDSA";
+    public static final String ED25519 = "Ed25519";
+
+    public static final String SIGNATURE_EXTENSION = ".sig";
+
+    // Định dạng file .sig (văn bản, mỗi dòng "tên: giá trị"):
+    //   ATBM-SIGNATURE v1
+    //   scheme: Ed25519
+    //   key-id: <SHA-256 hex của khóa công khai>
+    //   signature: <Base64>
+    private static final String SIGNATURE_FILE_HEADER = "ATBM-SIGNATURE v1";
+    private static final int RSA_KEY_SIZE = 2048;
+
+    private DigitalSignature() {
+    }
+
+    public static String[] getSupportedSchemes() {
+        return new String[] { RSA_PSS, ECDSA, ED25519 };
+    }
+
+    // Chữ ký tách rời đọc từ file .sig
+    public static class DetachedSignature {
+        private final String scheme;
+        private final byte[] keyId;
+        private final byte[] signature;
+
+        public DetachedSignature(String scheme, byte[] keyId, byte[] signature) {
+            this.scheme = scheme;
+            this.keyId = keyId;
+            this.signature = signature;
+        }
+
+        public String getScheme() {
+            return scheme;
+        }
+
+        public byte[] getKeyId() {
+            return keyId;
+        }
+
+        public byte[] getSignature() {
+            return signature;
+        }
+    }
+
+    public static KeyPair generateKeyPair(String scheme) throws GeneralSecurityException {
+        switch (validateScheme(scheme)) {
+            case RSA_PSS:
+                // Khóa RSA thường, dùng chung pool tạo sẵn với mã hóa RSA
+                return KeyPairPool.take(RSA_KEY_SIZE);
+            case ECDSA:
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                return generator.generateKeyPair();
+            default:
+                return KeyPairGenerator.getInstance(ED25519).generateKeyPair();
+        }
+    }
+
+    // Thuật toán KeyFactory để đọc file khóa của scheme
+    public static String getKeyAlgorithm(String scheme) {
+        switch (validateScheme(scheme)) {
+            case RSA_PSS:
+                return "RSA";
+            case ECDSA:
+                return "EC";
+            default:
+                return ED25519;
+        }
+    }
+
+    // Scheme tương ứng với loại khóa
+    public static String getScheme(Key key) {
+        if (key instanceof RSAKey) {
+            return RSA_PSS;
+        }
+        if (key instanceof ECKey) {
+            return ECDSA;
+        }
+        if (key instanceof EdECKey) {
+            return ED25519;
+        }
+        throw new IllegalArgumentException("Không hỗ trợ ký bằng khóa " + key.getAlgorithm());
+    }
+
+    // Tạo Signature đã cấu hình tham số cho scheme, chưa init
+    static Signature newSignature(String scheme) throws GeneralSecurityException {
+        switch (validateScheme(scheme)) {
+            case RSA_PSS:
+                Signature pss = Signature.getInstance("RSASSA-PSS");
+                pss.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+                return pss;
+            case ECDSA:
+                return Signature.getInstance("SHA256withECDSA");
+            default:
+                Signature ed = Signature.getInstance(ED25519);
+                ed.setParameter(new EdDSAParameterSpec(true));
+                return ed;
+        }
+    }
+
+    public static byte[] sign(byte[] data, PrivateKey privateKey) throws GeneralSecurityException {
+        Signature signature = newSignature(getScheme(privateKey));
+        signature.initSign(privateKey);
+        signature.update(data);
+        return signature.sign();
+    }
+
+    public static boolean verify(byte[] data, byte[] signatureBytes, PublicKey publicKey)
+            throws GeneralSecurityException {
+        Signature signature = newSignature(getScheme(publicKey));
+        signature.initVerify(publicKey);
+        signature.update(data);
+        return verifySignature(signature, signatureBytes);
+    }
+
+    // Ký dữ liệu từ channel theo từng chunk
+    public static byte[] sign(ReadableByteChannel channel, PrivateKey privateKey)
+            throws IOException, GeneralSecurityException {
+        Signature signature = newSignature(getScheme(privateKey));
+        signature.initSign(privateKey);
+        FileUtils.readChunks(channel, signature::update);
+        return signature.sign();
+    }
+
+    public static boolean verify(ReadableByteChannel channel, byte[] signatureBytes, PublicKey publicKey)
+            throws IOException, GeneralSecurityException {
+        Signature signature = newSignature(getScheme(publicKey));
+        signature.initVerify(publicKey);
+        FileUtils.readChunks(channel, signature::update);
+        return verifySignature(signature, signatureBytes);
+    }
+
+    // Ký file và ghi chữ ký tách rời vào signatureFile (thường là <file>.sig)
+    public static void signFile(File file, File signatureFile, PrivateKey privateKey, PublicKey publicKey)
+            throws IOException, GeneralSecurityException {
+        byte[] signature;
+        try (FileChannel channel = FileUtils.openInputChannel(file.getPath())) {
+            signature = sign(channel, privateKey);
+        }
+        writeSignatureFile(signatureFile, new DetachedSignature(getScheme(privateKey),
+                publicKey != null ? keyId(publicKey) : null, signature));
+    }
+
+    // Xác minh file với file chữ ký tách rời, false nếu chữ ký không khớp
+    public static boolean verifyFile(File file, File signatureFile, PublicKey publicKey)
+            throws IOException, GeneralSecurityException {
+        DetachedSignature detached = readSignatureFile(signatureFile);
+        checkSignatureMatchesKey(detached, publicKey);
+        try (FileChannel channel = FileUtils.openInputChannel(file.getPath())) {
+            return verify(channel, detached.getSignature(), publicKey);
+        }
+    }
+
+    public static File getSignatureFile(File file) {
+        return new File(file.getPath() + SIGNATURE_EXTENSION);
+    }
+
+    public static void writeSignatureFile(File signatureFile, DetachedSignature detached) throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append(SIGNATURE_FILE_HEADER).append('\n');
+        content.append("scheme: ").append(detached.getScheme()).append('\n');
+        if (detached.getKeyId() != null) {
+            content.append("key-id: ").append(HexUtils.encode(detached.getKeyId())).append('\n');
+        }
+        content.append("signature: ").append(Base64.getEncoder().encodeToString(detached.getSignature()))
+                .append('\n');
+        Files.write(signatureFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static DetachedSignature readSignatureFile(File signatureFile) throws IOException {
+        List<String> lines = Files.readAllLines(signatureFile.toPath(), StandardCharsets.US_ASCII);
+        if (lines.isEmpty() || !lines.get(0).trim().equals(SIGNATURE_FILE_HEADER)) {
+            throw new IOException("File chữ ký không đúng định dạng: " + signatureFile.getPath());
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            int separator = line.indexOf(':');
+            if (separator > 0) {
+                fields.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+            }
+        }
+        String scheme = fields.get("scheme");
+        String signature = fields.get("signature");
+        if (scheme == null || signature == null) {
+            throw new IOException("File chữ ký thiếu scheme hoặc signature: " + signatureFile.getPath());
+        }
+        try {
+            validateScheme(scheme);
+            String keyId = fields.get("key-id");
+            return new DetachedSignature(scheme, keyId != null ? HexUtils.decode(keyId) : null,
+                    Base64.getDecoder().decode(signature));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("File chữ ký không hợp lệ: " + signatureFile.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Key id = SHA-256 của khóa công khai (X.509), để báo lỗi rõ ràng khi chọn nhầm khóa
+    public static byte[] keyId(PublicKey publicKey) throws GeneralSecurityException {
+        return MessageDigest.getInstance("SHA-256").digest(publicKey.getEncoded());
+    }
+
+    // Chữ ký phải cùng scheme với khóa, và nếu có key id thì phải đúng khóa này
+    static void checkSignatureMatchesKey(DetachedSignature detached, PublicKey publicKey)
+            throws GeneralSecurityException {
+        checkSignatureMatchesKey(detached, getScheme(publicKey), keyId(publicKey));
+    }
+
+    static void checkSignatureMatchesKey(DetachedSignature detached, String keyScheme, byte[] keyId)
+            throws GeneralSecurityException {
+        if (!detached.getScheme().equals(keyScheme)) {
+            throw new GeneralSecurityException("Chữ ký dùng " + detached.getScheme() + " nhưng khóa là " + keyScheme);
+        }
+        if (detached.getKeyId() != null && !MessageDigest.isEqual(detached.getKeyId(), keyId)) {
+            throw new GeneralSecurityException("Chữ ký được tạo bằng khóa khác");
+        }
+    }
+
+    // Chữ ký sai định dạng (ví dụ DER của ECDSA hỏng) coi như không hợp lệ thay vì ném lỗi
+    static boolean verifySignature(Signature signature, byte[] signatureBytes) {
+        try {
+            return signature.verify(signatureBytes);
+        } catch (SignatureException e) {
+            return false;
+        }
+    }
+
+    private static String validateScheme(String scheme) {
+        if (RSA_PSS.equals(scheme) || ECDSA.equals(scheme) || ED25519.equals(scheme)) {
+            return scheme;
+        }
+        throw new IllegalArgumentException("Không hỗ trợ thuật toán chữ ký: " + scheme
+                + ". Hỗ trợ: RSA-PSS, ECDSA, Ed25519.");
+    }
+}
@@ -1,6 +1,10 @@
 package com.atbm.ui.panels;
 
+import com.atbm.utils.BatchFileProcessor;
 import com.atbm.utils.FileUtils;
+import com.atbm.utils.KeyUtils;
+import com.atbm.core.encryption.EncryptionAlgorithmFactory;
+import com.atbm.core.encryption.traditional.TraditionalEncryption;
 
 import javax.swing.*;
 import java.awt.*;
@@ -8,18 +12,25 @@ import java.awt.dnd.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.awt.datatransfer.DataFlavor;
 import java.security.Key;
 import com.atbm.core.key.KeyManager;
 import java.security.SecureRandom;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
+import java.security.spec.AlgorithmParameterSpec;
 import java.io.FileInputStream;
 import javax.swing.SwingWorker;
 import javax.swing.SwingUtilities;
 import java.util.function.Consumer;
 import java.security.PublicKey;
 import java.security.PrivateKey;
+import com.atbm.core.encryption.asymmetric.ECIESHybridEncryption;
 import com.atbm.core.encryption.asymmetric.RSAHybridEncryption;
+import com.atbm.core.encryption.symmetric.SegmentedFileEncryption;
+import com.atbm.core.encryption.symmetric.SymmetricEncryption;
+import javax.crypto.SecretKey;
 
 // Class mã hóa/giải mã file
 public class FileEncryptionPanel extends JPanel implements DropTargetListener {
@@ -38,12 +49,18 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
     private JFileChooser fileChooser;
     private JLabel dragDropLabel;
     private JProgressBar progressBar;
+    private JCheckBox segmentedCheckBox;
 
     private Key loadedKey = null;
+    // Key dạng văn bản của thuật toán cổ điển (Caesar, Vigenere, ...), mã hóa file theo luồng
+    private String loadedTraditionalKey = null;
     private File selectedInputFile = null;
 
     private String currentAlgorithmType = "Symmetric";
 
+    // Số file lỗi tối đa hiển thị trong thông báo kết quả batch
+    private static final int MAX_FAILURES_SHOWN = 10;
+
     public FileEncryptionPanel() {
         setLayout(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
@@ -174,6 +191,7 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
                 "CAST5",
                 "RC5",
                 "RSA",
+                "ECIES",
                 "Caesar",
                 "Vigenere",
                 "Monoalphabetic",
@@ -219,6 +237,13 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
         browseOutputButton = new JButton("Lưu File...");
         panel.add(browseOutputButton, gbc);
 
+        // Mã hóa song song theo segment GCM/ChaCha20-Poly1305, mode GCM và ChaCha20-Poly1305 luôn dùng segment
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.gridwidth = 2;
+        segmentedCheckBox = new JCheckBox("Mã hóa song song theo segment (GCM / ChaCha20-Poly1305)");
+        panel.add(segmentedCheckBox, gbc);
+
         return panel;
     }
 
@@ -236,7 +261,7 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
 
     // Chọn file đầu vào
     private void browseInputFile() {
-        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
         int returnValue = fileChooser.showOpenDialog(this);
         if (returnValue == JFileChooser.APPROVE_OPTION) {
             handleSelectedFile(fileChooser.getSelectedFile());
@@ -253,6 +278,9 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
 
         if (inputName.toLowerCase().endsWith("_encrypted")) {
             outputName = inputName.replace("_encrypted", "_decrypted");
+        } else if (file.isDirectory()) {
+            // Thư mục: kết quả nằm trong thư mục mới cùng cấp, giữ nguyên cấu trúc bên trong
+            outputName = inputName + "_encrypted";
         } else {
             if (inputName.contains(".")) {
                 int lastDot = inputName.lastIndexOf(".");
@@ -263,8 +291,9 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
         }
 
         outputFilePathField.setText(file.getParent() + File.separator + outputName);
-        dragDropLabel.setText(
-                "<html><div style='text-align: center;'>File đã chọn:<br/>" + file.getName() + "</div></html>");
+        dragDropLabel.setText("<html><div style='text-align: center;'>"
+                + (file.isDirectory() ? "Thư mục đã chọn:" : "File đã chọn:") + "<br/>" + file.getName()
+                + "</div></html>");
         dragDropLabel.setBorder(BorderFactory.createLineBorder(Color.GREEN, 2)); // Indicate success
     }
 
@@ -288,20 +317,28 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
             String keyFilePath = keyFile.getAbsolutePath();
             keyFilePathField.setText(keyFilePath);
             loadedKey = null;
+            loadedTraditionalKey = null;
 
             try {
+                if (isTraditionalAlgorithm(selectedAlgorithm)) {
+                    loadedTraditionalKey = KeyUtils.readTraditionalKey(keyFile);
+                    JOptionPane.showMessageDialog(this, "Load khóa truyền thống thành công!", "Thông báo",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+
                 boolean forEncryption = true;
                 String lowerPath = keyFilePath.toLowerCase();
                 String upperAlgo = selectedAlgorithm.toUpperCase();
 
-                if (upperAlgo.equals("RSA")) {
+                if (upperAlgo.equals("RSA") || upperAlgo.equals("ECIES")) {
                     if (lowerPath.endsWith(".pri")) {
                         forEncryption = false;
                     } else if (lowerPath.endsWith(".pub")) {
                         forEncryption = true;
                     } else {
                         throw new IllegalArgumentException(
-                                "Tệp khóa RSA phải có đuôi .pub (mã hóa) hoặc .pri (giải mã).");
+                                "Tệp khóa " + selectedAlgorithm + " phải có đuôi .pub (mã hóa) hoặc .pri (giải mã).");
                     }
                 } else if (upperAlgo.equals("AES") || upperAlgo.equals("DESEDE")
                         || upperAlgo.equals("CHACHA20-POLY1305")) {
@@ -323,8 +360,11 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
                 loadedKey = KeyManager.loadKeyForOperation(keyFilePath, selectedAlgorithm, forEncryption);
 
                 if (loadedKey != null) {
-                    String keyAlgorithm = loadedKey.getAlgorithm();
-                    if (!keyAlgorithm.equalsIgnoreCase(selectedAlgorithm)) {
+                    // Khóa ECIES có thuật toán XDH/X25519 hoặc EC, hiển thị theo tên đường cong
+                    String keyAlgorithm = upperAlgo.equals("ECIES")
+                            ? "ECIES (" + ECIESHybridEncryption.getCurve(loadedKey) + ")"
+                            : loadedKey.getAlgorithm();
+                    if (!upperAlgo.equals("ECIES") && !keyAlgorithm.equalsIgnoreCase(selectedAlgorithm)) {
                         loadedKey = null;
                         keyFilePathField.setText("");
                         JOptionPane.showMessageDialog(this,
@@ -335,7 +375,7 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
                         return;
                     } else {
                         JOptionPane.showMessageDialog(this,
-                                "Load khóa thành công!\nThuật toán: " + loadedKey.getAlgorithm()
+                                "Load khóa thành công!\nThuật toán: " + keyAlgorithm
                                         + "\nĐịnh dạng: " + loadedKey.getFormat(),
                                 "Thông báo", JOptionPane.INFORMATION_MESSAGE);
                     }
@@ -353,7 +393,8 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
 
     // Xuất kết quả
     private void browseOutputFile() {
-        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        boolean directory = selectedInputFile != null && selectedInputFile.isDirectory();
+        fileChooser.setFileSelectionMode(directory ? JFileChooser.DIRECTORIES_ONLY : JFileChooser.FILES_ONLY);
         if (selectedInputFile != null) {
             String outputName = outputFilePathField.getText();
             if (!outputName.isEmpty()) {
@@ -377,9 +418,20 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
         String selectedAlgorithm = (String) algorithmComboBox.getSelectedItem();
         DefaultComboBoxModel<String> modeModel = new DefaultComboBoxModel<>();
 
-        if (selectedAlgorithm != null && selectedAlgorithm.equals("Twofish")) {
+        if (selectedAlgorithm != null && (selectedAlgorithm.equals("AES") || selectedAlgorithm.equals("Camellia")
+                || selectedAlgorithm.equals("Twofish"))) {
+            // Block 128 bit: thêm CTR và GCM (GCM có tag xác thực)
             modeModel.addElement("ECB");
             modeModel.addElement("CBC");
+            modeModel.addElement("CTR");
+            modeModel.addElement("GCM");
+        } else if (selectedAlgorithm != null && selectedAlgorithm.equals("ECIES")) {
+            // Thuật toán mã hóa payload sau khi thỏa thuận khóa
+            modeModel.addElement(ECIESHybridEncryption.PAYLOAD_AES_GCM);
+            modeModel.addElement(ECIESHybridEncryption.PAYLOAD_CHACHA20_POLY1305);
+        } else if (isTraditionalAlgorithm(selectedAlgorithm)) {
+            // Thuật toán cổ điển không có mode/padding
+            modeModel.addElement("N/A");
         } else if (selectedAlgorithm != null && !selectedAlgorithm.equals("ChaCha20-Poly1305")
                 && !selectedAlgorithm.equals("RSA")) {
             modeModel.addElement("ECB");
@@ -387,15 +439,23 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
         } else if (selectedAlgorithm != null && selectedAlgorithm.equals("ChaCha20-Poly1305")) {
             modeModel.addElement("N/A");
         } else if (selectedAlgorithm != null && selectedAlgorithm.equals("RSA")) {
-            modeModel.addElement("N/A");
+            // Mode của payload AES: CBC (định dạng cũ) hoặc GCM (có xác thực)
+            modeModel.addElement("CBC");
+            modeModel.addElement("GCM");
         }
 
         modeComboBox.setModel(modeModel);
         updatePaddingForMode();
+        boolean hybrid = "RSA".equals(selectedAlgorithm) || "ECIES".equals(selectedAlgorithm);
         boolean enableSelection = selectedAlgorithm != null && !selectedAlgorithm.equals("ChaCha20-Poly1305") &&
-                !selectedAlgorithm.equals("RSA");
-        modeComboBox.setEnabled(enableSelection);
+                !hybrid && !isTraditionalAlgorithm(selectedAlgorithm);
+        modeComboBox.setEnabled(enableSelection || hybrid);
         paddingComboBox.setEnabled(enableSelection);
+        boolean segmentedSupported = SegmentedFileEncryption.isSupported(selectedAlgorithm);
+        segmentedCheckBox.setEnabled(segmentedSupported);
+        if (!segmentedSupported) {
+            segmentedCheckBox.setSelected(false);
+        }
         modeComboBox.addActionListener(e -> updatePaddingForMode());
     }
 
@@ -404,7 +464,11 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
         String selectedAlgorithm = (String) algorithmComboBox.getSelectedItem();
         String selectedMode = (String) modeComboBox.getSelectedItem();
         DefaultComboBoxModel<String> paddingModel = new DefaultComboBoxModel<>();
-        if (selectedAlgorithm != null && selectedAlgorithm.equals("Twofish")) {
+        if (selectedMode != null && (selectedMode.equals("CTR") || selectedMode.equals("GCM"))
+                && !"RSA".equals(selectedAlgorithm)) {
+            // Stream mode không cần padding
+            paddingModel.addElement("NoPadding");
+        } else if (selectedAlgorithm != null && selectedAlgorithm.equals("Twofish")) {
             if (selectedMode == null) {
                 paddingComboBox.setModel(paddingModel);
                 return;
@@ -421,12 +485,14 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
                     break;
             }
         } else if (selectedAlgorithm != null && !selectedAlgorithm.equals("ChaCha20-Poly1305")
-                && !selectedAlgorithm.equals("RSA")) {
+                && !selectedAlgorithm.equals("RSA") && !selectedAlgorithm.equals("ECIES")
+                && !isTraditionalAlgorithm(selectedAlgorithm)) {
             paddingModel.addElement("PKCS5Padding");
             paddingModel.addElement("NoPadding");
         } else if (selectedAlgorithm != null && selectedAlgorithm.equals("ChaCha20-Poly1305")) {
             paddingModel.addElement("N/A");
-        } else if (selectedAlgorithm != null && selectedAlgorithm.equals("RSA")) {
+        } else if (selectedAlgorithm != null && (selectedAlgorithm.equals("RSA")
+                || selectedAlgorithm.equals("ECIES") || isTraditionalAlgorithm(selectedAlgorithm))) {
             paddingModel.addElement("N/A");
         }
         paddingComboBox.setModel(paddingModel);
@@ -445,7 +511,7 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
                     JOptionPane.ERROR_MESSAGE);
             return;
         }
-        if (loadedKey == null) {
+        if (loadedKey == null && (loadedTraditionalKey == null || !isTraditionalAlgorithm(algorithm))) {
             JOptionPane.showMessageDialog(this, "Vui lòng load file key.", "Lỗi " + operation,
                     JOptionPane.ERROR_MESSAGE);
             return;
@@ -464,6 +530,14 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
             return;
         }
 
+        if ((algorithm.equals("RSA") || algorithm.equals("ECIES")) && !encrypt && !(loadedKey instanceof PrivateKey)) {
+            JOptionPane.showMessageDialog(this,
+                    "Giải mã " + algorithm + " yêu cầu khóa bí mật (.pri). Vui lòng chọn đúng file khóa bí mật!",
+                    "Lỗi Key",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
         encryptButton.setEnabled(false);
         decryptButton.setEnabled(false);
         progressBar.setVisible(true);
@@ -500,87 +574,16 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
                         }
                     }
 
-                    long startTime = System.currentTimeMillis();
-
-                    if (algorithm.equals("RSA")) {
-                        if (encrypt) {
-                            RSAHybridEncryption.encryptFile(selectedInputFile, new File(outputFilePath),
-                                    (PublicKey) loadedKey);
-                        } else {
-                            if (!(loadedKey instanceof PrivateKey)) {
-                                SwingUtilities.invokeLater(() -> {
-                                    JOptionPane.showMessageDialog(FileEncryptionPanel.this,
-                                            "Giải mã RSA yêu cầu khóa bí mật (.pri). Vui lòng chọn đúng file khóa bí mật!",
-                                            "Lỗi Key",
-                                            JOptionPane.ERROR_MESSAGE);
-                                });
-                                return null;
-                            }
-                            RSAHybridEncryption.decryptFile(selectedInputFile, new File(outputFilePath),
-                                    (PrivateKey) loadedKey);
-                        }
-                    } else {
-                        String transformation;
-                        boolean isChaCha = algorithm.equals("ChaCha20-Poly1305");
-                        if (isChaCha) {
-                            transformation = "ChaCha20-Poly1305";
-                        } else {
-                            transformation = algorithm + "/" + mode + "/" + padding;
-                        }
-
-                        javax.crypto.Cipher cipher = javax.crypto.Cipher.getInstance(transformation);
-                        if (encrypt) {
-                            if (isChaCha) {
-                                byte[] nonce = new byte[12];
-                                new SecureRandom().nextBytes(nonce);
-                                cipher.init(javax.crypto.Cipher.ENCRYPT_MODE, loadedKey, new IvParameterSpec(nonce));
-                            } else if (mode.equals("CBC")) {
-                                int ivLength = 16;
-                                if (algorithm.equals("Blowfish") || algorithm.equals("DES")
-                                        || algorithm.equals("DESede")) {
-                                    ivLength = 8;
-                                }
-                                byte[] iv = new byte[ivLength];
-                                new SecureRandom().nextBytes(iv);
-                                cipher.init(javax.crypto.Cipher.ENCRYPT_MODE, loadedKey, new IvParameterSpec(iv));
-                            } else {
-                                cipher.init(javax.crypto.Cipher.ENCRYPT_MODE, loadedKey);
-                            }
+                    if (selectedInputFile.isDirectory()) {
+                        processDirectory(encrypt, algorithm, mode, padding, outputFilePath,
+                                progress -> publish((int) (progress * 100)));
+                        return null;
+                    }
 
-                            Consumer<Double> progressCallback = progress -> publish((int) (progress * 100));
-                            FileUtils.encryptFile(selectedInputFile.getAbsolutePath(), outputFilePath, cipher, isChaCha,
-                                    progressCallback, mode);
-                        } else {
-                            if (isChaCha) {
-                                byte[] nonce = new byte[12];
-                                try (FileInputStream fis = new FileInputStream(selectedInputFile)) {
-                                    if (fis.read(nonce) != 12) {
-                                        throw new IOException("File không hợp lệ: không thể đọc nonce");
-                                    }
-                                }
-                                cipher.init(javax.crypto.Cipher.DECRYPT_MODE, loadedKey, new IvParameterSpec(nonce));
-                            } else if (mode.equals("CBC")) {
-                                int ivLength = 16;
-                                if (algorithm.equals("Blowfish") || algorithm.equals("DES")
-                                        || algorithm.equals("DESede")) {
-                                    ivLength = 8;
-                                }
-                                byte[] iv = new byte[ivLength];
-                                try (FileInputStream fis = new FileInputStream(selectedInputFile)) {
-                                    if (fis.read(iv) != ivLength) {
-                                        throw new IOException("File không hợp lệ: không thể đọc IV");
-                                    }
-                                }
-                                cipher.init(javax.crypto.Cipher.DECRYPT_MODE, loadedKey, new IvParameterSpec(iv));
-                            } else {
-                                cipher.init(javax.crypto.Cipher.DECRYPT_MODE, loadedKey);
-                            }
+                    long startTime = System.currentTimeMillis();
 
-                            Consumer<Double> progressCallback = progress -> publish((int) (progress * 100));
-                            FileUtils.decryptFile(selectedInputFile.getAbsolutePath(), outputFilePath, cipher, isChaCha,
-                                    progressCallback, mode);
-                        }
-                    }
+                    processFile(selectedInputFile, new File(outputFilePath), encrypt, algorithm, mode, padding,
+                            progress -> publish((int) (progress * 100)));
 
                     long endTime = System.currentTimeMillis();
                     long duration = endTime - startTime;
@@ -639,6 +642,159 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
         worker.execute();
     }
 
+    // Mã hóa/giải mã cả thư mục trên thread pool, hiển thị tổng kết và danh sách file lỗi
+    private void processDirectory(boolean encrypt, String algorithm, String mode, String padding,
+            String outputDirPath, Consumer<Double> progressCallback) throws Exception {
+        String operation = encrypt ? "Mã hóa" : "Giải mã";
+        BatchFileProcessor.BatchResult result = BatchFileProcessor.processDirectory(selectedInputFile,
+                new File(outputDirPath),
+                (input, output, fileProgress) -> processFile(input, output, encrypt, algorithm, mode, padding,
+                        fileProgress),
+                progressCallback);
+
+        StringBuilder message = new StringBuilder();
+        message.append(String.format("%s thư mục xong!\nThành công: %d/%d file (%s)\nThời gian: %d ms (%.1f MB/s)",
+                operation, result.getSucceededFiles(), result.getTotalFiles(),
+                FileUtils.formatFileSize(result.getProcessedBytes()), result.getElapsedNanos() / 1_000_000,
+                result.getThroughputMBps()));
+        if (!result.getFailures().isEmpty()) {
+            message.append("\n\nFile lỗi:");
+            int shown = 0;
+            for (Map.Entry<File, Exception> failure : result.getFailures().entrySet()) {
+                if (shown == MAX_FAILURES_SHOWN) {
+                    message.append("\n... và ").append(result.getFailures().size() - shown).append(" file khác");
+                    break;
+                }
+                message.append("\n").append(failure.getKey().getName()).append(": ")
+                        .append(failure.getValue().getMessage());
+                shown++;
+            }
+        }
+        int messageType = result.getFailures().isEmpty() ? JOptionPane.INFORMATION_MESSAGE
+                : JOptionPane.WARNING_MESSAGE;
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(FileEncryptionPanel.this,
+                message.toString(), "Hoàn thành", messageType));
+    }
+
+    // Mã hóa/giải mã một file với thuật toán đang chọn, dùng chung cho file đơn và batch thư mục
+    private void processFile(File inputFile, File outputFile, boolean encrypt, String algorithm, String mode,
+            String padding, Consumer<Double> progressCallback) throws Exception {
+        if (isTraditionalAlgorithm(algorithm)) {
+            // Mã hóa theo luồng chỉ thay chữ cái ASCII, file văn bản lớn không phải đọc hết vào bộ nhớ
+            TraditionalEncryption traditional = (TraditionalEncryption) EncryptionAlgorithmFactory
+                    .createAlgorithm(algorithm);
+            if (encrypt) {
+                traditional.encryptFile(inputFile, outputFile, loadedTraditionalKey, progressCallback);
+            } else {
+                traditional.decryptFile(inputFile, outputFile, loadedTraditionalKey, progressCallback);
+            }
+        } else if (algorithm.equals("RSA")) {
+            if (encrypt) {
+                RSAHybridEncryption.encryptFile(inputFile, outputFile, (PublicKey) loadedKey, "GCM".equals(mode),
+                        RSAHybridEncryption.DEFAULT_BUFFER_SIZE);
+            } else {
+                RSAHybridEncryption.decryptFile(inputFile, outputFile, (PrivateKey) loadedKey);
+            }
+        } else if (algorithm.equals("ECIES")) {
+            if (encrypt) {
+                ECIESHybridEncryption.encryptFile(inputFile, outputFile, (PublicKey) loadedKey, mode);
+            } else {
+                ECIESHybridEncryption.decryptFile(inputFile, outputFile, (PrivateKey) loadedKey);
+            }
+        } else if (usesSegments(algorithm, mode)
+                && (encrypt || SegmentedFileEncryption.isSegmented(inputFile))) {
+            // Mã hóa song song, mode/padding do định dạng segment quyết định.
+            // File AEAD một lượt cũ (không có header segment) vẫn giải mã theo nhánh bên dưới.
+            if (encrypt) {
+                SegmentedFileEncryption.encryptFile(inputFile, outputFile, (SecretKey) loadedKey, algorithm,
+                        progressCallback);
+            } else {
+                SegmentedFileEncryption.decryptFile(inputFile, outputFile, (SecretKey) loadedKey, progressCallback);
+            }
+        } else {
+            String transformation;
+            boolean isChaCha = algorithm.equals("ChaCha20-Poly1305");
+            boolean usesIv = mode.equals("CBC") || mode.equals("CTR") || mode.equals("GCM");
+            if (isChaCha) {
+                transformation = "ChaCha20-Poly1305";
+            } else if (mode.equals("CTR") || mode.equals("GCM")) {
+                transformation = algorithm + "/" + mode + "/NoPadding";
+            } else {
+                transformation = algorithm + "/" + mode + "/" + padding;
+            }
+
+            javax.crypto.Cipher cipher = javax.crypto.Cipher.getInstance(transformation);
+            if (encrypt) {
+                if (isChaCha) {
+                    byte[] nonce = new byte[12];
+                    new SecureRandom().nextBytes(nonce);
+                    cipher.init(javax.crypto.Cipher.ENCRYPT_MODE, loadedKey, new IvParameterSpec(nonce));
+                } else if (usesIv) {
+                    byte[] iv = new byte[getIvLength(cipher, mode)];
+                    new SecureRandom().nextBytes(iv);
+                    cipher.init(javax.crypto.Cipher.ENCRYPT_MODE, loadedKey, getIvSpec(mode, iv));
+                } else {
+                    cipher.init(javax.crypto.Cipher.ENCRYPT_MODE, loadedKey);
+                }
+
+                FileUtils.encryptFileMapped(inputFile.getAbsolutePath(), outputFile.getAbsolutePath(), cipher,
+                        isChaCha, progressCallback, mode);
+            } else {
+                if (isChaCha) {
+                    byte[] nonce = new byte[12];
+                    try (FileInputStream fis = new FileInputStream(inputFile)) {
+                        if (fis.read(nonce) != 12) {
+                            throw new IOException("File không hợp lệ: không thể đọc nonce");
+                        }
+                    }
+                    cipher.init(javax.crypto.Cipher.DECRYPT_MODE, loadedKey, new IvParameterSpec(nonce));
+                } else if (usesIv) {
+                    int ivLength = getIvLength(cipher, mode);
+                    byte[] iv = new byte[ivLength];
+                    try (FileInputStream fis = new FileInputStream(inputFile)) {
+                        if (fis.read(iv) != ivLength) {
+                            throw new IOException("File không hợp lệ: không thể đọc IV");
+                        }
+                    }
+                    cipher.init(javax.crypto.Cipher.DECRYPT_MODE, loadedKey, getIvSpec(mode, iv));
+                } else {
+                    cipher.init(javax.crypto.Cipher.DECRYPT_MODE, loadedKey);
+                }
+
+                FileUtils.decryptFileMapped(inputFile.getAbsolutePath(), outputFile.getAbsolutePath(), cipher,
+                        isChaCha, progressCallback, mode);
+            }
+        }
+    }
+
+    // GCM và ChaCha20-Poly1305 luôn mã hóa theo segment để bộ nhớ không tăng theo kích thước file
+    private boolean usesSegments(String algorithm, String mode) {
+        if (!SegmentedFileEncryption.isSupported(algorithm)) {
+            return false;
+        }
+        return segmentedCheckBox.isSelected() || algorithm.equals("ChaCha20-Poly1305") || mode.equals("GCM");
+    }
+
+    private boolean isTraditionalAlgorithm(String algorithm) {
+        if (algorithm == null)
+            return false;
+        String upper = algorithm.toUpperCase();
+        return upper.equals("CAESAR") || upper.equals("VIGENERE")
+                || upper.equals("MONOALPHABETIC") || upper.equals("AFFINE") || upper.equals("HILL");
+    }
+
+    // IV dài bằng block của thuật toán, riêng GCM dùng nonce 12 byte
+    private static int getIvLength(javax.crypto.Cipher cipher, String mode) {
+        return mode.equals("GCM") ? SymmetricEncryption.GCM_IV_LENGTH : cipher.getBlockSize();
+    }
+
+    private static AlgorithmParameterSpec getIvSpec(String mode, byte[] iv) {
+        if (mode.equals("GCM")) {
+            return new GCMParameterSpec(SymmetricEncryption.GCM_TAG_BITS, iv);
+        }
+        return new IvParameterSpec(iv);
+    }
+
     @Override
     public void dragEnter(DropTargetDragEvent dtde) {
         dragDropLabel.setBorder(BorderFactory.createLineBorder(Color.BLUE, 2));
@@ -669,14 +825,8 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
             List<File> droppedFiles = (List<File>) dtde.getTransferable()
                     .getTransferData(DataFlavor.javaFileListFlavor);
             if (droppedFiles != null && !droppedFiles.isEmpty()) {
-                File droppedFile = droppedFiles.get(0);
-                if (!droppedFile.isDirectory()) {
-                    handleSelectedFile(droppedFile);
-                    success = true;
-                } else {
-                    JOptionPane.showMessageDialog(this, "Chỉ chấp nhận file, không chấp nhận thư mục.", "Lỗi",
-                            JOptionPane.ERROR_MESSAGE);
-                }
+                handleSelectedFile(droppedFiles.get(0));
+                success = true;
             }
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, "Lỗi khi kéo thả file: " + ex.getMessage(), "Lỗi",
@@ -722,9 +872,14 @@ public class FileEncryptionPanel extends JPanel implements DropTargetListener {
                 break;
             case "Asymmetric":
                 model.addElement("RSA");
+                model.addElement("ECIES");
                 break;
             case "Traditional":
-                // Không thêm thuật toán truyền thống
+                model.addElement("Caesar");
+                model.addElement("Vigenere");
+                model.addElement("Monoalphabetic");
+                model.addElement("Affine");
+                model.addElement("Hill");
                 break;
         }
         algorithmComboBox.setModel(model);
@@ -1,12 +1,17 @@
 package com.atbm.ui.panels;
 
 import com.atbm.core.hash.HashAlgorithm;
+import com.atbm.core.hash.HashManifest;
+import com.atbm.core.hash.TreeHash;
+import com.atbm.utils.FileUtils;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.dnd.*;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 // Class hash text và file
 public class HashPanel extends JPanel implements DropTargetListener {
@@ -21,17 +26,29 @@ public class HashPanel extends JPanel implements DropTargetListener {
     private JPanel fileDropPanel;
     private JLabel fileDropLabel;
     private File selectedFile;
-    private JComboBox<String> algoFileComboBox;
+    private JCheckBox[] algoFileCheckBoxes;
+    private JCheckBox treeHashCheckBox;
+    private JComboBox<String> treeAlgoComboBox;
+    private JLabel throughputLabel;
     private JButton hashFileButton;
     private JTextArea resultFileArea;
     private JButton copyFileButton;
     private JProgressBar fileProgressBar;
+    // Manifest thư mục
+    private JTextField manifestDirField;
+    private JComboBox<String> manifestAlgoComboBox;
+    private JCheckBox incrementalCheckBox;
+    private JButton createManifestButton;
+    private JButton checkManifestButton;
+    private JProgressBar manifestProgressBar;
+    private JTextArea manifestResultArea;
 
     public HashPanel() {
         setLayout(new BorderLayout());
         tabbedPane = new JTabbedPane();
         tabbedPane.addTab("Hash text", createTextTab());
         tabbedPane.addTab("Hash file", createFileTab());
+        tabbedPane.addTab("Manifest thư mục", createManifestTab());
         add(tabbedPane, BorderLayout.CENTER);
     }
 
@@ -125,9 +142,33 @@ public class HashPanel extends JPanel implements DropTargetListener {
         algoLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         algoPanel.add(algoLabel);
         algoPanel.add(Box.createVerticalStrut(5));
-        algoFileComboBox = new JComboBox<>(HashAlgorithm.getSupportedAlgorithms());
-        algoFileComboBox.setMaximumSize(new Dimension(300, 30));
-        algoPanel.add(algoFileComboBox);
+        // Có thể chọn nhiều thuật toán, file chỉ được đọc một lần
+        JPanel checkBoxPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        String[] algorithms = HashAlgorithm.getSupportedAlgorithms();
+        algoFileCheckBoxes = new JCheckBox[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            algoFileCheckBoxes[i] = new JCheckBox(algorithms[i], algorithms[i].equals("SHA-256"));
+            checkBoxPanel.add(algoFileCheckBoxes[i]);
+        }
+        checkBoxPanel.setMaximumSize(new Dimension(600, 40));
+        algoPanel.add(checkBoxPanel);
+
+        // Tree hash: hash các leaf song song, kết quả khác hash tuần tự
+        JPanel treePanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        treeHashCheckBox = new JCheckBox("Tree hash song song (file lớn)");
+        treeAlgoComboBox = new JComboBox<>(TreeHash.getSupportedAlgorithms());
+        treeAlgoComboBox.setEnabled(false);
+        treeHashCheckBox.addActionListener(e -> {
+            boolean tree = treeHashCheckBox.isSelected();
+            treeAlgoComboBox.setEnabled(tree);
+            for (JCheckBox checkBox : algoFileCheckBoxes) {
+                checkBox.setEnabled(!tree);
+            }
+        });
+        treePanel.add(treeHashCheckBox);
+        treePanel.add(treeAlgoComboBox);
+        treePanel.setMaximumSize(new Dimension(600, 40));
+        algoPanel.add(treePanel);
         panel.add(algoPanel);
         panel.add(Box.createVerticalStrut(20));
 
@@ -141,13 +182,18 @@ public class HashPanel extends JPanel implements DropTargetListener {
         panel.add(resultLabel);
         panel.add(Box.createVerticalStrut(10));
 
-        resultFileArea = new JTextArea(3, 40);
+        resultFileArea = new JTextArea(5, 40);
         resultFileArea.setEditable(false);
         resultFileArea.setLineWrap(true);
         resultFileArea.setWrapStyleWord(true);
         resultFileArea.setFont(new Font(Font.MONOSPACED, Font.BOLD, 16));
         JScrollPane resultScroll = new JScrollPane(resultFileArea);
         panel.add(resultScroll);
+        panel.add(Box.createVerticalStrut(5));
+
+        throughputLabel = new JLabel(" ");
+        throughputLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        panel.add(throughputLabel);
         panel.add(Box.createVerticalStrut(10));
 
         copyFileButton = new JButton("Copy");
@@ -161,6 +207,68 @@ public class HashPanel extends JPanel implements DropTargetListener {
         return panel;
     }
 
+    // Tạo/kiểm tra manifest kiểu sha256sum cho cả thư mục
+    private JPanel createManifestTab() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(BorderFactory.createEmptyBorder(30, 60, 30, 60));
+
+        JPanel dirPanel = new JPanel(new BorderLayout(5, 5));
+        dirPanel.add(new JLabel("Thư mục:"), BorderLayout.WEST);
+        manifestDirField = new JTextField();
+        dirPanel.add(manifestDirField, BorderLayout.CENTER);
+        JButton browseButton = new JButton("Chọn...");
+        dirPanel.add(browseButton, BorderLayout.EAST);
+        dirPanel.setMaximumSize(new Dimension(700, 30));
+        panel.add(dirPanel);
+        panel.add(Box.createVerticalStrut(15));
+
+        JPanel optionPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        optionPanel.add(new JLabel("Thuật toán:"));
+        manifestAlgoComboBox = new JComboBox<>(HashAlgorithm.getSupportedAlgorithms());
+        manifestAlgoComboBox.setSelectedItem(HashManifest.DEFAULT_ALGORITHM);
+        optionPanel.add(manifestAlgoComboBox);
+        // Bỏ qua file có kích thước và thời điểm sửa không đổi so với manifest trước
+        incrementalCheckBox = new JCheckBox("Chỉ hash file đã thay đổi", true);
+        optionPanel.add(incrementalCheckBox);
+        optionPanel.setMaximumSize(new Dimension(700, 40));
+        panel.add(optionPanel);
+        panel.add(Box.createVerticalStrut(15));
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        createManifestButton = new JButton("Tạo manifest");
+        checkManifestButton = new JButton("Kiểm tra manifest");
+        buttonPanel.add(createManifestButton);
+        buttonPanel.add(checkManifestButton);
+        buttonPanel.setMaximumSize(new Dimension(700, 40));
+        panel.add(buttonPanel);
+        panel.add(Box.createVerticalStrut(10));
+
+        manifestProgressBar = new JProgressBar(0, 100);
+        manifestProgressBar.setStringPainted(true);
+        manifestProgressBar.setVisible(false);
+        panel.add(manifestProgressBar);
+        panel.add(Box.createVerticalStrut(10));
+
+        manifestResultArea = new JTextArea(10, 40);
+        manifestResultArea.setEditable(false);
+        manifestResultArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
+        panel.add(new JScrollPane(manifestResultArea));
+
+        // Action listeners
+        browseButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                manifestDirField.setText(chooser.getSelectedFile().getAbsolutePath());
+            }
+        });
+        createManifestButton.addActionListener(e -> runManifest(true));
+        checkManifestButton.addActionListener(e -> runManifest(false));
+
+        return panel;
+    }
+
     // Hash logic
     private void hashText() {
         String text = inputTextArea.getText();
@@ -235,34 +343,43 @@ public class HashPanel extends JPanel implements DropTargetListener {
                     JOptionPane.ERROR_MESSAGE);
             return;
         }
-        String algo = (String) algoFileComboBox.getSelectedItem();
+        if (treeHashCheckBox.isSelected()) {
+            treeHashFileWithProgress();
+            return;
+        }
+        List<String> selectedAlgorithms = new ArrayList<>();
+        for (JCheckBox checkBox : algoFileCheckBoxes) {
+            if (checkBox.isSelected()) {
+                selectedAlgorithms.add(checkBox.getText());
+            }
+        }
+        if (selectedAlgorithms.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Vui lòng chọn ít nhất một thuật toán hash.", "Lỗi",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String[] algos = selectedAlgorithms.toArray(new String[0]);
         fileProgressBar.setValue(0);
         fileProgressBar.setVisible(true);
         resultFileArea.setText("");
+        throughputLabel.setText(" ");
         hashFileButton.setEnabled(false);
         copyFileButton.setEnabled(false);
 
         SwingWorker<String, Integer> worker = new SwingWorker<>() {
             @Override
             protected String doInBackground() throws Exception {
-                long total = selectedFile.length();
-                long processed = 0;
-                int bufferSize = 8192;
-                java.security.MessageDigest md = java.security.MessageDigest.getInstance(algo);
-                try (java.io.FileInputStream fis = new java.io.FileInputStream(selectedFile)) {
-                    byte[] buffer = new byte[bufferSize];
-                    int bytesRead;
-                    while ((bytesRead = fis.read(buffer)) != -1) {
-                        md.update(buffer, 0, bytesRead);
-                        processed += bytesRead;
-                        int percent = (int) ((processed * 100) / total);
-                        setProgress(percent);
-                    }
+                Map<String, String> hashes = HashAlgorithm.hashFile(selectedFile,
+                        progress -> setProgress((int) (progress * 100)), algos);
+                if (hashes.size() == 1) {
+                    return hashes.values().iterator().next();
                 }
-                byte[] hashBytes = md.digest();
                 StringBuilder sb = new StringBuilder();
-                for (byte b : hashBytes) {
-                    sb.append(String.format("%02x", b));
+                for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                    if (sb.length() > 0) {
+                        sb.append('\n');
+                    }
+                    sb.append(entry.getKey()).append(": ").append(entry.getValue());
                 }
                 return sb.toString();
             }
@@ -296,4 +413,138 @@ public class HashPanel extends JPanel implements DropTargetListener {
         });
         worker.execute();
     }
+
+    // Tree hash file với progress bar, hiển thị tốc độ hash sau khi xong
+    private void treeHashFileWithProgress() {
+        String algo = (String) treeAlgoComboBox.getSelectedItem();
+        fileProgressBar.setValue(0);
+        fileProgressBar.setVisible(true);
+        resultFileArea.setText("");
+        throughputLabel.setText(" ");
+        hashFileButton.setEnabled(false);
+        copyFileButton.setEnabled(false);
+
+        SwingWorker<TreeHash.Result, Integer> worker = new SwingWorker<>() {
+            @Override
+            protected TreeHash.Result doInBackground() throws Exception {
+                return TreeHash.hashFile(selectedFile, algo, progress -> setProgress((int) (progress * 100)));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    TreeHash.Result result = get();
+                    resultFileArea.setText(result.toString());
+                    throughputLabel.setText(String.format("%.1f MB/s (%d ms)", result.getThroughputMBps(),
+                            result.getElapsedNanos() / 1_000_000));
+                } catch (Exception ex) {
+                    resultFileArea.setText("");
+                    JOptionPane.showMessageDialog(HashPanel.this, "Lỗi khi hash file: " + ex.getMessage(), "Lỗi",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+                fileProgressBar.setVisible(false);
+                hashFileButton.setEnabled(true);
+                copyFileButton.setEnabled(true);
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                fileProgressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        worker.execute();
+    }
+
+    // Tạo manifest (create = true) hoặc kiểm tra thư mục theo manifest trên thread nền
+    private void runManifest(boolean create) {
+        File directory = new File(manifestDirField.getText().trim());
+        if (!directory.isDirectory()) {
+            JOptionPane.showMessageDialog(this, "Vui lòng chọn thư mục.", "Lỗi", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String algo = (String) manifestAlgoComboBox.getSelectedItem();
+        // Mặc định manifest nằm cạnh thư mục: <tên thư mục>.<thuật toán>, ví dụ photos.sha256
+        File defaultManifest = new File(directory.getAbsoluteFile().getParentFile(),
+                directory.getName() + "." + algo.replace("-", "").toLowerCase());
+        JFileChooser chooser = new JFileChooser(defaultManifest.getParentFile());
+        chooser.setSelectedFile(defaultManifest);
+        int option = create ? chooser.showSaveDialog(this) : chooser.showOpenDialog(this);
+        if (option != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File manifest = chooser.getSelectedFile();
+        boolean incremental = incrementalCheckBox.isSelected();
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        manifestProgressBar.setValue(0);
+        manifestProgressBar.setVisible(true);
+        manifestResultArea.setText("");
+        createManifestButton.setEnabled(false);
+        checkManifestButton.setEnabled(false);
+
+        SwingWorker<String, Integer> worker = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                StringBuilder sb = new StringBuilder();
+                if (create) {
+                    HashManifest.ManifestResult result = HashManifest.create(directory, manifest, algo,
+                            incremental, threads, progress -> setProgress((int) (progress * 100)));
+                    sb.append(String.format("Đã ghi %s%n%d file (%d hash, %d không đổi), %s%n",
+                            manifest.getPath(), result.getTotalFiles(), result.getHashedFiles(),
+                            result.getReusedFiles(), FileUtils.formatFileSize(result.getTotalBytes())));
+                    sb.append(String.format("%.1f MB/s, %.0f file/s (%d ms)%n", result.getThroughputMBps(),
+                            result.getFilesPerSecond(), result.getElapsedNanos() / 1_000_000));
+                    for (Map.Entry<String, Exception> failure : result.getFailures().entrySet()) {
+                        sb.append("Lỗi: ").append(failure.getKey()).append(": ")
+                                .append(failure.getValue().getMessage()).append('\n');
+                    }
+                } else {
+                    HashManifest.VerifyResult result = HashManifest.verify(directory, manifest, incremental,
+                            threads, progress -> setProgress((int) (progress * 100)));
+                    sb.append(result.isAllValid() ? "Thư mục khớp với manifest\n" : "Thư mục KHÔNG khớp với manifest\n");
+                    sb.append(String.format("%d file: %d khớp, %d không đổi, %d sai, %d thiếu, %d lỗi, %d file mới%n",
+                            result.getTotalFiles(), result.getOkFiles(), result.getUnchangedFiles(),
+                            result.getFailed().size(), result.getMissing().size(), result.getErrors().size(),
+                            result.getAdded().size()));
+                    sb.append(String.format("%.1f MB/s, %.0f file/s (%d ms)%n", result.getThroughputMBps(),
+                            result.getFilesPerSecond(), result.getElapsedNanos() / 1_000_000));
+                    for (String path : result.getFailed()) {
+                        sb.append("SAI: ").append(path).append('\n');
+                    }
+                    for (String path : result.getMissing()) {
+                        sb.append("THIẾU: ").append(path).append('\n');
+                    }
+                    for (Map.Entry<String, Exception> error : result.getErrors().entrySet()) {
+                        sb.append("LỖI: ").append(error.getKey()).append(": ")
+                                .append(error.getValue().getMessage()).append('\n');
+                    }
+                    for (String path : result.getAdded()) {
+                        sb.append("MỚI: ").append(path).append('\n');
+                    }
+                }
+                return sb.toString();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    manifestResultArea.setText(get());
+                    manifestResultArea.setCaretPosition(0);
+                } catch (Exception ex) {
+                    manifestResultArea.setText("");
+                    JOptionPane.showMessageDialog(HashPanel.this, "Lỗi khi xử lý manifest: " + ex.getMessage(),
+                            "Lỗi", JOptionPane.ERROR_MESSAGE);
+                }
+                manifestProgressBar.setVisible(false);
+                createManifestButton.setEnabled(true);
+                checkManifestButton.setEnabled(true);
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                manifestProgressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        worker.execute();
+    }
 }
\ No newline at end of file
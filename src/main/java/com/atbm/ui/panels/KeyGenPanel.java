@@ -7,11 +7,13 @@ import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.security.KeyPair;
+import java.util.concurrent.ExecutionException;
 import com.atbm.core.encryption.EncryptionAlgorithm;
 import com.atbm.core.encryption.EncryptionAlgorithmFactory;
 import com.atbm.core.encryption.symmetric.SymmetricEncryption;
 import com.atbm.core.encryption.asymmetric.AsymmetricEncryption;
 import com.atbm.core.key.KeyManager;
+import com.atbm.core.key.KeyPairPool;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import com.atbm.utils.KeyUtils;
@@ -89,6 +91,9 @@ public class KeyGenPanel extends JPanel {
         // Add Action Listeners
         setupActionListeners();
         updateKeySizeOptions();
+
+        // Tạo sẵn cặp key RSA 2048 (kích thước mặc định) trong nền
+        KeyPairPool.prewarm(2048);
     }
 
     public void setKeyListPanel(KeyListPanel panel) {
@@ -147,6 +152,8 @@ public class KeyGenPanel extends JPanel {
                 "CAST5",
                 "RC5",
                 "RSA",
+                "ECIES-X25519",
+                "ECIES-P256",
                 "Caesar",
                 "Vigenere",
                 "Monoalphabetic",
@@ -217,6 +224,13 @@ public class KeyGenPanel extends JPanel {
                 }
                 keySizeComboBox.setEnabled(true);
                 break;
+            // Kích thước cố định theo đường cong
+            case "ECIES-X25519":
+                model.addElement(255);
+                break;
+            case "ECIES-P256":
+                model.addElement(256);
+                break;
             // Ẩn key size cho thuật toán truyền thống
             case "Caesar":
             case "Vigenere":
@@ -308,6 +322,11 @@ public class KeyGenPanel extends JPanel {
             updateBaseFileName();
             generatedKeyObject = null;
             generatedKeyField.setText("");
+            // Bắt đầu tạo sẵn cặp key ngay khi người dùng chọn kích thước RSA
+            Integer keySize = (Integer) keySizeComboBox.getSelectedItem();
+            if ("RSA".equals(algorithmComboBox.getSelectedItem()) && keySize != null) {
+                KeyPairPool.prewarm(keySize);
+            }
         });
 
         generateButton.addActionListener(e -> generateKeyAction());
@@ -350,6 +369,14 @@ public class KeyGenPanel extends JPanel {
                     keySizeComboBox.setSelectedItem(2048);
                     keySizeComboBox.setEnabled(true);
                     break;
+                case "ECIES-X25519":
+                    keySizeComboBox.addItem(255);
+                    keySizeComboBox.setEnabled(false);
+                    break;
+                case "ECIES-P256":
+                    keySizeComboBox.addItem(256);
+                    keySizeComboBox.setEnabled(false);
+                    break;
                 case "Caesar":
                 case "Vigenere":
                     keySizeComboBox.setEnabled(false);
@@ -395,6 +422,11 @@ public class KeyGenPanel extends JPanel {
             return;
         }
 
+        if (isAsymmetric(algorithm)) {
+            generateKeyPairInBackground(algorithm, keySize);
+            return;
+        }
+
         try {
             EncryptionAlgorithm algoInstance = EncryptionAlgorithmFactory.createAlgorithm(algorithm);
 
@@ -407,15 +439,6 @@ public class KeyGenPanel extends JPanel {
                         key.getAlgorithm(), keySize));
                 JOptionPane.showMessageDialog(this, "Khóa đối xứng đã được tạo thành công (trong bộ nhớ)!",
                         "Thành công", JOptionPane.INFORMATION_MESSAGE);
-            } else if (algoInstance instanceof AsymmetricEncryption) {
-                AsymmetricEncryption asymAlgo = (AsymmetricEncryption) algoInstance;
-                KeyPair keyPair = asymAlgo.generateKeyPair();
-                generatedKeyObject = keyPair;
-                // Hiển thị thông tin khóa
-                generatedKeyField.setText(String.format("%s KeyPair [%d bits] generated (in memory)",
-                        keyPair.getPublic().getAlgorithm(), keySize));
-                JOptionPane.showMessageDialog(this, "Cặp khóa bất đối xứng đã được tạo thành công (trong bộ nhớ)!",
-                        "Thành công", JOptionPane.INFORMATION_MESSAGE);
             } else {
 
                 generatedKeyField.setText(algorithm + " selected. No key generation needed.");
@@ -438,6 +461,47 @@ public class KeyGenPanel extends JPanel {
         }
     }
 
+    // Tạo cặp key bất đối xứng ngoài EDT: lấy ngay từ pool nếu có sẵn, nếu không
+    // thì tạo trên thread của SwingWorker (RSA 4096 có thể mất vài giây) mà giao diện không bị treo
+    private void generateKeyPairInBackground(String algorithm, int keySize) {
+        generateButton.setEnabled(false);
+        generatedKeyField.setText(String.format("Đang tạo cặp khóa %s [%d bits]...", algorithm, keySize));
+        SwingWorker<KeyPair, Void> worker = new SwingWorker<>() {
+            @Override
+            protected KeyPair doInBackground() throws Exception {
+                AsymmetricEncryption asymAlgo = (AsymmetricEncryption) EncryptionAlgorithmFactory
+                        .createAlgorithmForKeyGen(algorithm, keySize);
+                return asymAlgo.generateKeyPair();
+            }
+
+            @Override
+            protected void done() {
+                generateButton.setEnabled(true);
+                try {
+                    KeyPair keyPair = get();
+                    generatedKeyObject = keyPair;
+                    // Hiển thị thông tin khóa
+                    generatedKeyField.setText(String.format("%s KeyPair [%d bits] generated (in memory)",
+                            keyPair.getPublic().getAlgorithm(), keySize));
+                    JOptionPane.showMessageDialog(KeyGenPanel.this,
+                            "Cặp khóa bất đối xứng đã được tạo thành công (trong bộ nhớ)!",
+                            "Thành công", JOptionPane.INFORMATION_MESSAGE);
+                    if (keyListPanel != null) {
+                        keyListPanel.refreshKeyList();
+                    }
+                } catch (Exception ex) {
+                    Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+                    generatedKeyField.setText("Lỗi tạo khóa");
+                    JOptionPane.showMessageDialog(KeyGenPanel.this, "Lỗi khi tạo khóa: " + cause.getMessage(),
+                            "Lỗi", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                    generatedKeyObject = null;
+                }
+            }
+        };
+        worker.execute();
+    }
+
     // Xuất khóa
     private void exportKeyAction() {
         String algorithm = (String) algorithmComboBox.getSelectedItem();
@@ -589,7 +653,7 @@ public class KeyGenPanel extends JPanel {
     private boolean isAsymmetric(String algorithm) {
         if (algorithm == null)
             return false;
-        return algorithm.equals("RSA");
+        return algorithm.equals("RSA") || algorithm.startsWith("ECIES");
     }
 
     // Main method để test độc lâp
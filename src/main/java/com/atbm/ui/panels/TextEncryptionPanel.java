@@ -3,6 +3,7 @@ package com.atbm.ui.panels;
 import com.atbm.core.encryption.EncryptionAlgorithm;
 import com.atbm.core.encryption.EncryptionAlgorithmFactory;
 import com.atbm.core.key.KeyManager;
+import com.atbm.utils.KeyUtils;
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
@@ -224,12 +225,7 @@ public class TextEncryptionPanel extends JPanel {
                         || upperAlgo.equals("MONOALPHABETIC") || upperAlgo.equals("AFFINE")
                         || upperAlgo.equals("HILL")) {
 
-                    String keyText = new String(java.nio.file.Files.readAllBytes(keyFile.toPath()),
-                            java.nio.charset.StandardCharsets.UTF_8);
-                    if (keyText.startsWith("Khóa")) {
-                        keyText = keyText.substring(keyText.indexOf(":") + 1).trim();
-                    }
-                    loadedTraditionalKey = keyText;
+                    loadedTraditionalKey = KeyUtils.readTraditionalKey(keyFile);
                     JOptionPane.showMessageDialog(this, "Load khóa truyền thống thành công!", "Thông báo",
                             JOptionPane.INFORMATION_MESSAGE);
                     return;
@@ -302,6 +298,12 @@ public class TextEncryptionPanel extends JPanel {
                 // Các thuật toán đối xứng (bao gồm Twofish)
                 modeModel.addElement("ECB");
                 modeModel.addElement("CBC");
+                if (selectedAlgorithm.equals("AES") || selectedAlgorithm.equals("Camellia")
+                        || selectedAlgorithm.equals("Twofish")) {
+                    // CTR/GCM bỏ qua padding đã chọn
+                    modeModel.addElement("CTR");
+                    modeModel.addElement("GCM");
+                }
                 paddingModel.addElement("PKCS5Padding");
                 paddingModel.addElement("NoPadding");
             }
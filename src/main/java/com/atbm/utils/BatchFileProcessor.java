@@ -0,0 +1,193 @@
+package com.atbm.utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Class này xử lý (mã hóa/giải mã) toàn bộ file trong một thư mục trên thread pool có giới hạn.
+// Cấu trúc thư mục con được giữ nguyên ở thư mục đầu ra, tên file không đổi.
+// Mỗi thread chỉ mở file của job đang chạy, nên số file handle mở cùng lúc không vượt quá 2 * parallelism.
+public class BatchFileProcessor {
+
+    // Công việc xử lý một file, progressCallback nhận tỉ lệ 0..1 của file đó
+    @FunctionalInterface
+    public interface FileJob {
+        void process(File input, File output, Consumer<Double> progressCallback) throws Exception;
+    }
+
+    // Kết quả của một lần xử lý thư mục
+    public static class BatchResult {
+        private final int totalFiles;
+        private final int succeededFiles;
+        private final long processedBytes;
+        private final long elapsedNanos;
+        private final Map<File, Exception> failures;
+
+        BatchResult(int totalFiles, int succeededFiles, long processedBytes, long elapsedNanos,
+                Map<File, Exception> failures) {
+            this.totalFiles = totalFiles;
+            this.succeededFiles = succeededFiles;
+            this.processedBytes = processedBytes;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        public int getTotalFiles() {
+            return totalFiles;
+        }
+
+        public int getSucceededFiles() {
+            return succeededFiles;
+        }
+
+        // Tổng kích thước các file đầu vào xử lý thành công
+        public long getProcessedBytes() {
+            return processedBytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // File đầu vào -> lỗi, theo thứ tự đường dẫn
+        public Map<File, Exception> getFailures() {
+            return failures;
+        }
+
+        // Tốc độ xử lý tính bằng MB/s
+        public double getThroughputMBps() {
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return (processedBytes / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    private BatchFileProcessor() {
+    }
+
+    public static BatchResult processDirectory(File inputDir, File outputDir, FileJob job,
+            Consumer<Double> progressCallback) throws IOException, InterruptedException {
+        return processDirectory(inputDir, outputDir, job, Runtime.getRuntime().availableProcessors(),
+                progressCallback);
+    }
+
+    // Duyệt inputDir, chạy job cho từng file thường với tối đa parallelism file cùng lúc.
+    // Lỗi của một file không dừng cả batch, file đầu ra dở dang của file lỗi bị xóa.
+    public static BatchResult processDirectory(File inputDir, File outputDir, FileJob job, int parallelism,
+            Consumer<Double> progressCallback) throws IOException, InterruptedException {
+        if (inputDir == null || outputDir == null || job == null) {
+            throw new IllegalArgumentException("Thư mục đầu vào, đầu ra và job không được null");
+        }
+        if (!inputDir.isDirectory()) {
+            throw new FileNotFoundException("Thư mục đầu vào không tồn tại: " + inputDir.getPath());
+        }
+        Path inputRoot = inputDir.toPath().toAbsolutePath().normalize();
+        Path outputRoot = outputDir.toPath().toAbsolutePath().normalize();
+        if (inputRoot.equals(outputRoot)) {
+            throw new IllegalArgumentException("Thư mục đầu ra phải khác thư mục đầu vào");
+        }
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(inputRoot)) {
+            // Bỏ qua thư mục đầu ra nếu nó nằm trong thư mục đầu vào
+            files = walk.filter(path -> !path.startsWith(outputRoot))
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toList());
+        }
+        long[] sizes = new long[files.size()];
+        long totalBytes = 0;
+        for (int i = 0; i < files.size(); i++) {
+            sizes[i] = Files.size(files.get(i));
+            totalBytes += sizes[i];
+        }
+        // File lớn chạy trước để các thread kết thúc gần cùng lúc
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong((Integer i) -> sizes[i]).reversed());
+
+        long start = System.nanoTime();
+        AtomicLong doneBytes = new AtomicLong();
+        AtomicLong succeededBytes = new AtomicLong();
+        long total = totalBytes;
+        Map<Path, Exception> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int index : order) {
+                Path input = files.get(index);
+                long size = sizes[index];
+                Path output = outputRoot.resolve(inputRoot.relativize(input));
+                futures.add(executor.submit(() -> {
+                    // Cộng phần tăng thêm của file này vào tiến độ chung
+                    long[] reported = { 0 };
+                    Consumer<Double> fileProgress = progress -> {
+                        long current = (long) (progress * size);
+                        long delta = current - reported[0];
+                        if (delta > 0) {
+                            reported[0] = current;
+                            report(doneBytes.addAndGet(delta), total, progressCallback);
+                        }
+                    };
+                    try {
+                        Files.createDirectories(output.getParent());
+                        job.process(input.toFile(), output.toFile(), fileProgress);
+                        succeededBytes.addAndGet(size);
+                    } catch (Exception e) {
+                        failures.put(input, e);
+                        try {
+                            Files.deleteIfExists(output);
+                        } catch (IOException ignored) {
+                            // Giữ lỗi gốc của file
+                        }
+                    } finally {
+                        report(doneBytes.addAndGet(size - reported[0]), total, progressCallback);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Job đã tự ghi nhận lỗi của nó, chỉ còn lỗi không mong đợi
+                    throw new IOException("Lỗi khi xử lý batch: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Sắp xếp lỗi theo đường dẫn để kết quả ổn định giữa các lần chạy
+        Map<File, Exception> sortedFailures = new LinkedHashMap<>();
+        failures.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> sortedFailures.put(entry.getKey().toFile(), entry.getValue()));
+        return new BatchResult(files.size(), files.size() - sortedFailures.size(), succeededBytes.get(),
+                System.nanoTime() - start, sortedFailures);
+    }
+
+    private static void report(long done, long total, Consumer<Double> progressCallback) {
+        if (progressCallback != null) {
+            progressCallback.accept(total > 0 ? (double) done / total : 1.0);
+        }
+    }
+}
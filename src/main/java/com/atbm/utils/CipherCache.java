@@ -0,0 +1,57 @@
+package com.atbm.utils;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+// Class này cache các đối tượng Cipher và SecureRandom theo từng thread,
+// để các lần mã hóa/giải mã liên tiếp chỉ tốn chi phí init() thay vì getInstance()
+public class CipherCache {
+
+    // Mỗi thread có một map riêng: "transformation|provider" -> Cipher
+    private static final ThreadLocal<Map<String, Cipher>> CIPHERS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private CipherCache() {
+    }
+
+    // Lấy Cipher với provider mặc định
+    public static Cipher getCipher(String transformation) throws NoSuchAlgorithmException, NoSuchPaddingException {
+        try {
+            return getCipher(transformation, null);
+        } catch (NoSuchProviderException e) {
+            // Không xảy ra khi provider là null
+            throw new NoSuchAlgorithmException(e.getMessage(), e);
+        }
+    }
+
+    // Lấy Cipher theo transformation và provider (null = provider mặc định).
+    // Cipher trả về chỉ được dùng trong thread hiện tại và phải được init() lại trước khi dùng.
+    public static Cipher getCipher(String transformation, String provider)
+            throws NoSuchAlgorithmException, NoSuchPaddingException, NoSuchProviderException {
+        Map<String, Cipher> ciphers = CIPHERS.get();
+        String cacheKey = provider == null ? transformation : transformation + "|" + provider;
+        Cipher cipher = ciphers.get(cacheKey);
+        if (cipher == null) {
+            cipher = provider == null ? Cipher.getInstance(transformation)
+                    : Cipher.getInstance(transformation, provider);
+            ciphers.put(cacheKey, cipher);
+        }
+        return cipher;
+    }
+
+    // SecureRandom dùng chung trong thread hiện tại để sinh IV/nonce
+    public static SecureRandom secureRandom() {
+        return RANDOM.get();
+    }
+
+    // Xóa cache của thread hiện tại (ví dụ khi thread pool kết thúc công việc)
+    public static void clear() {
+        CIPHERS.get().clear();
+    }
+}
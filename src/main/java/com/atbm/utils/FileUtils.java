@@ -1,12 +1,18 @@
 package com.atbm.utils;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
-import javax.crypto.CipherOutputStream;
 import java.util.function.Consumer;
 
 // Class này chứa các phương thức để đảm bảo tồn tại thư mục keys và đọc/ghi file
@@ -14,8 +20,31 @@ public class FileUtils {
     // Kích thước buffer mặc định là 8MB cho streaming
     private static final int DEFAULT_BUFFER_SIZE = 8 * 1024 * 1024; // 8MB
 
-    // Giới hạn kích thước file mặc định là 1GB
-    private static final long DEFAULT_MAX_FILE_SIZE = 1024L * 1024 * 1024; // 1GB
+    // Buffer nhỏ nhất của readChunks khi đọc file nhỏ
+    private static final int MIN_CHUNK_BUFFER_SIZE = 8 * 1024;
+
+    // Kích thước mỗi cửa sổ map file là 64MB
+    private static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    // Mỗi lần Cipher.update xử lý tối đa 1MB để vừa với buffer dự phòng
+    private static final int MAPPED_SLICE_SIZE = 1024 * 1024;
+
+    // Giới hạn của một byte array trong Java, file lớn hơn phải dùng các API channel bên dưới
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    // Giải mã GCM/ChaCha20-Poly1305 một lượt, JDK giữ toàn bộ bản mã trong một byte array tới doFinal
+    // (kiểm tra tag trước khi trả bản rõ), nên dữ liệu lớn hơn giới hạn này không giải mã được.
+    // Chừa 1 KB cho tag và phần đầu file.
+    private static final long MAX_SINGLE_SHOT_AEAD_SIZE = MAX_ARRAY_SIZE - 1024;
+
+    // Độ dài nonce của ChaCha20-Poly1305 được ghi ở đầu file mã hóa
+    private static final int CHACHA20_NONCE_LENGTH = 12;
+
+    // Xử lý một chunk dữ liệu đọc được từ channel, buffer chỉ hợp lệ trong lúc gọi
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        void accept(ByteBuffer chunk) throws Exception;
+    }
 
     // Đảm bảo tồn tại thư mục keys, nếu không tồn tại thì tạo mới
     public static File ensureKeyDirectory() {
@@ -26,78 +55,171 @@ public class FileUtils {
         return dir;
     }
 
-    // Đọc file và trả về byte array, với kiểm tra kích thước
+    // Đọc toàn bộ file vào byte array (chỉ dùng cho file vừa bộ nhớ).
+    // File lớn nên đọc qua openInputChannel/readChunks để bộ nhớ không phụ thuộc kích thước file.
     public static byte[] readFileBytes(String filePath) throws IOException {
-        File file = new File(filePath);
-        long fileSize = file.length();
-
-        if (fileSize > DEFAULT_MAX_FILE_SIZE) {
-            throw new IOException("File quá lớn: " + formatFileSize(fileSize) +
-                    ". Giới hạn tối đa: " + formatFileSize(DEFAULT_MAX_FILE_SIZE));
-        }
-
-        if (fileSize <= DEFAULT_BUFFER_SIZE) {
-            // Đọc file nhỏ một lần
-            return Files.readAllBytes(Paths.get(filePath));
-        } else {
-            // Đọc file lớn theo chunks
-            try (FileInputStream fis = new FileInputStream(file)) {
-                byte[] data = new byte[(int) fileSize];
-                int bytesRead;
-                int offset = 0;
-                byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    System.arraycopy(buffer, 0, data, offset, bytesRead);
-                    offset += bytesRead;
-                }
-                return data;
-            }
+        long fileSize = Files.size(Paths.get(filePath));
+        if (fileSize > MAX_ARRAY_SIZE) {
+            throw new IOException("File quá lớn để đọc vào bộ nhớ: " + formatFileSize(fileSize)
+                    + ". Hãy dùng API streaming (readChunks/transform)");
         }
+        return Files.readAllBytes(Paths.get(filePath));
     }
 
-    // Ghi byte array vào file, với kiểm tra kích thước
+    // Ghi byte array vào file
     public static void writeFileBytes(String filePath, byte[] data) throws IOException {
-        if (data.length > DEFAULT_MAX_FILE_SIZE) {
-            throw new IOException("Dữ liệu quá lớn: " + formatFileSize(data.length) +
-                    ". Giới hạn tối đa: " + formatFileSize(DEFAULT_MAX_FILE_SIZE));
-        }
-
-        if (data.length <= DEFAULT_BUFFER_SIZE) {
-            // Ghi file nhỏ một lần
-            Files.write(Paths.get(filePath), data, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        } else {
-            // Ghi file lớn theo chunks
-            try (FileOutputStream fos = new FileOutputStream(filePath)) {
-                int offset = 0;
-                while (offset < data.length) {
-                    int length = Math.min(DEFAULT_BUFFER_SIZE, data.length - offset);
-                    fos.write(data, offset, length);
-                    offset += length;
-                }
-            }
-        }
+        Files.write(Paths.get(filePath), data, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
     }
 
     // Ghi byte array vào file, thêm vào cuối
     public static void appendFileBytes(String filePath, byte[] data) throws IOException {
-        if (data.length > DEFAULT_MAX_FILE_SIZE) {
-            throw new IOException("Dữ liệu quá lớn: " + formatFileSize(data.length) +
-                    ". Giới hạn tối đa: " + formatFileSize(DEFAULT_MAX_FILE_SIZE));
-        }
-
-        if (data.length <= DEFAULT_BUFFER_SIZE) {
-            Files.write(Paths.get(filePath), data, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-        } else {
-            try (FileOutputStream fos = new FileOutputStream(filePath, true)) {
-                int offset = 0;
-                while (offset < data.length) {
-                    int length = Math.min(DEFAULT_BUFFER_SIZE, data.length - offset);
-                    fos.write(data, offset, length);
-                    offset += length;
+        Files.write(Paths.get(filePath), data, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // Mở channel đọc file, dùng cho các thao tác streaming không giới hạn kích thước
+    public static FileChannel openInputChannel(String filePath) throws IOException {
+        return FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+    }
+
+    // Mở channel ghi file (tạo mới hoặc ghi đè)
+    public static FileChannel openOutputChannel(String filePath) throws IOException {
+        return FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // Đọc channel theo từng chunk với một buffer dùng lại, trả về tổng số byte đã đọc
+    public static long readChunks(ReadableByteChannel channel, ChunkConsumer consumer) throws IOException {
+        return readChunks(channel, ByteBuffer.allocate(chunkBufferSize(channel)), consumer);
+    }
+
+    // Như trên nhưng dùng buffer của người gọi, để xử lý nhiều file liên tiếp không phải cấp phát lại buffer
+    public static long readChunks(ReadableByteChannel channel, ByteBuffer buffer, ChunkConsumer consumer)
+            throws IOException {
+        buffer.clear();
+        long total = 0;
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            if (buffer.hasRemaining()) {
+                total += buffer.remaining();
+                try {
+                    consumer.accept(buffer);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Lỗi khi xử lý dữ liệu: " + e.getMessage(), e);
                 }
             }
+            buffer.clear();
+        }
+        return total;
+    }
+
+    // File nhỏ không cần buffer 8MB: với FileChannel chỉ cấp phát theo phần còn lại của file (+1 byte
+    // để lần read đầu tiên đọc hết), nên hash hàng nghìn file nhỏ không tạo hàng nghìn buffer 8MB
+    private static int chunkBufferSize(ReadableByteChannel channel) {
+        if (channel instanceof FileChannel) {
+            FileChannel fileChannel = (FileChannel) channel;
+            try {
+                long remaining = fileChannel.size() - fileChannel.position();
+                return (int) Math.max(MIN_CHUNK_BUFFER_SIZE, Math.min(DEFAULT_BUFFER_SIZE, remaining + 1));
+            } catch (IOException e) {
+                // stdin là pipe cũng là FileChannel nhưng không có kích thước
+            }
+        }
+        return DEFAULT_BUFFER_SIZE;
+    }
+
+    // Chạy cipher từ in sang out theo từng chunk với hai buffer dùng lại.
+    // Cipher thường (ECB/CBC) dùng bộ nhớ cố định; AEAD (GCM/ChaCha20-Poly1305) thì JDK giữ toàn bộ dữ liệu
+    // tới doFinal nên bộ nhớ tăng theo kích thước dữ liệu và bị giới hạn bởi MAX_SINGLE_SHOT_AEAD_SIZE
+    // (CLI và giao diện mã hóa AEAD qua SegmentedFileEncryption, đường này chỉ còn cho file một lượt cũ).
+    // totalSize chỉ dùng để tính tiến trình (<= 0 nếu không biết).
+    public static long transform(ReadableByteChannel in, WritableByteChannel out, Cipher cipher, long totalSize,
+            Consumer<Double> progressCallback) throws IOException, GeneralSecurityException {
+        ByteBuffer input = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        ByteBuffer output = ByteBuffer.allocate(cipher.getOutputSize(DEFAULT_BUFFER_SIZE));
+        boolean aead = isAead(cipher);
+        long processed = 0;
+        long written = 0;
+        while (in.read(input) != -1) {
+            input.flip();
+            processed += input.remaining();
+            if (aead) {
+                // Stream không biết trước kích thước (stdin, pipe) nên kiểm tra trong lúc đọc
+                checkSingleShotAead(cipher, false, processed);
+            }
+            int needed = cipher.getOutputSize(input.remaining());
+            if (output.capacity() < needed) {
+                // AEAD giữ dữ liệu lại tới doFinal nên kích thước cần tăng dần theo từng chunk; tăng gấp đôi
+                // để không cấp phát lại buffer ở mỗi chunk
+                output = ByteBuffer.allocate(grow(output.capacity(), needed));
+            }
+            output.clear();
+            cipher.update(input, output);
+            output.flip();
+            written += writeFully(out, output);
+            input.clear();
+            if (progressCallback != null && totalSize > 0) {
+                progressCallback.accept((double) processed / totalSize);
+            }
+        }
+        int finalSize = cipher.getOutputSize(0);
+        if (output.capacity() < finalSize) {
+            output = ByteBuffer.allocate(grow(output.capacity(), finalSize));
+        }
+        output.clear();
+        cipher.doFinal(ByteBuffer.allocate(0), output);
+        output.flip();
+        written += writeFully(out, output);
+        return written;
+    }
+
+    // Gấp đôi capacity cho tới khi đủ needed, không vượt giới hạn byte array
+    private static int grow(int capacity, int needed) {
+        long size = Math.max(capacity, 1);
+        while (size < needed) {
+            size *= 2;
+        }
+        return (int) Math.min(size, MAX_ARRAY_SIZE);
+    }
+
+    // Dữ liệu mã hóa AEAD một lượt chỉ giải mã được khi vừa một byte array (xem MAX_SINGLE_SHOT_AEAD_SIZE);
+    // chặn cả khi mã hóa để không tạo ra file không giải mã lại được
+    private static void checkSingleShotAead(Cipher cipher, boolean isChaCha20Poly1305, long dataSize)
+            throws IOException {
+        if ((isChaCha20Poly1305 || isAead(cipher)) && dataSize > MAX_SINGLE_SHOT_AEAD_SIZE) {
+            throw new IOException("Dữ liệu " + formatFileSize(dataSize) + " quá lớn để mã hóa/giải mã AEAD một lượt "
+                    + "(tối đa " + formatFileSize(MAX_SINGLE_SHOT_AEAD_SIZE) + "). Hãy dùng mã hóa phân đoạn "
+                    + "(SegmentedFileEncryption)");
+        }
+    }
+
+    private static boolean isAead(Cipher cipher) {
+        String transformation = cipher.getAlgorithm().toUpperCase();
+        return transformation.contains("GCM") || transformation.contains("POLY1305");
+    }
+
+    // Đọc tới khi đầy buffer hoặc hết dữ liệu, trả về số byte đã đọc
+    public static int readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
         }
+        return total;
+    }
+
+    // Ghi hết buffer vào channel, trả về số byte đã ghi
+    public static int writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
     }
 
     // Định dạng kích thước file để hiển thị
@@ -118,28 +240,19 @@ public class FileUtils {
     public static void encryptFile(String inputFile, String outputFile, Cipher cipher, boolean isChaCha20Poly1305,
             Consumer<Double> progressCallback, String mode) throws IOException {
         byte[] iv = cipher.getIV();
+        // Kiểm tra trước khi tạo file đầu ra
+        checkSingleShotAead(cipher, isChaCha20Poly1305, Files.size(Paths.get(inputFile)));
 
-        try (FileInputStream fis = new FileInputStream(inputFile);
-                FileOutputStream fos = new FileOutputStream(outputFile)) {
+        try (FileChannel in = openInputChannel(inputFile);
+                FileChannel out = openOutputChannel(outputFile)) {
 
-            if (iv != null && mode != null && mode.equalsIgnoreCase("CBC")) {
-                fos.write(iv);
-            }
-
-            try (CipherOutputStream cos = new CipherOutputStream(fos, cipher)) {
-                byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-                int bytesRead;
-                long totalBytesRead = 0;
-                long fileSize = new File(inputFile).length();
-
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    cos.write(buffer, 0, bytesRead);
-                    totalBytesRead += bytesRead;
-                    if (progressCallback != null) {
-                        progressCallback.accept((double) totalBytesRead / fileSize);
-                    }
-                }
+            // Ghi IV (CBC/CTR/GCM) hoặc nonce (ChaCha20-Poly1305) ở đầu file để giải mã đọc lại
+            if (iv != null && (isChaCha20Poly1305 || usesIv(mode))) {
+                writeFully(out, ByteBuffer.wrap(iv));
             }
+            transform(in, out, cipher, in.size(), progressCallback);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Lỗi khi mã hóa file: " + e.getMessage(), e);
         }
     }
 
@@ -152,31 +265,29 @@ public class FileUtils {
     // Phương thức giải mã file lớn theo stream
     public static void decryptFile(String inputFile, String outputFile, Cipher cipher, boolean isChaCha20Poly1305,
             Consumer<Double> progressCallback, String mode) throws IOException {
-        try (FileInputStream fis = new FileInputStream(inputFile)) {
-            if (!isChaCha20Poly1305 && mode != null && mode.equalsIgnoreCase("CBC")) {
-                byte[] iv = new byte[cipher.getBlockSize()];
-                int bytesRead = fis.read(iv);
-                if (bytesRead != iv.length) {
+        try (FileChannel in = openInputChannel(inputFile)) {
+            if (isChaCha20Poly1305) {
+                // Bỏ qua nonce ở đầu file, cipher đã được init với nonce này
+                ByteBuffer nonce = ByteBuffer.allocate(CHACHA20_NONCE_LENGTH);
+                if (readFully(in, nonce) != nonce.capacity()) {
+                    throw new IOException("File không hợp lệ: không thể đọc nonce");
+                }
+            } else if (usesIv(mode)) {
+                // Bỏ qua IV ở đầu file, cipher đã được init với IV này (GCM dùng nonce 12 byte)
+                ByteBuffer iv = ByteBuffer.allocate(cipher.getIV().length);
+                if (readFully(in, iv) != iv.capacity()) {
                     throw new IOException("File không hợp lệ: không thể đọc IV");
                 }
             }
 
-            try (FileOutputStream fos = new FileOutputStream(outputFile);
-                    CipherInputStream cis = new CipherInputStream(fis, cipher)) {
-
-                byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-                int bytesRead;
-                long totalBytesRead = 0;
-                long fileSize = new File(inputFile).length();
-
-                while ((bytesRead = cis.read(buffer)) != -1) {
-                    fos.write(buffer, 0, bytesRead);
-                    totalBytesRead += bytesRead;
-                    if (progressCallback != null) {
-                        progressCallback.accept((double) totalBytesRead / fileSize);
-                    }
-                }
+            checkSingleShotAead(cipher, isChaCha20Poly1305, in.size() - in.position());
+            try (FileChannel out = openOutputChannel(outputFile)) {
+                transform(in, out, cipher, in.size() - in.position(), progressCallback);
             }
+        } catch (AEADBadTagException e) {
+            throw new IOException("File đã bị thay đổi hoặc sai khóa: tag xác thực không khớp", e);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Lỗi khi giải mã file: " + e.getMessage(), e);
         }
     }
 
@@ -186,6 +297,138 @@ public class FileUtils {
         decryptFile(inputFile, outputFile, cipher, isChaCha20Poly1305, progressCallback, null);
     }
 
+    // Mã hóa file bằng memory-mapped I/O (Cipher.update thẳng giữa các cửa sổ map),
+    // tự quay về streaming khi file không map được hoặc cipher là AEAD
+    public static void encryptFileMapped(String inputFile, String outputFile, Cipher cipher,
+            boolean isChaCha20Poly1305, Consumer<Double> progressCallback, String mode) throws IOException {
+        if (!canMap(inputFile, cipher, isChaCha20Poly1305)) {
+            encryptFile(inputFile, outputFile, cipher, isChaCha20Poly1305, progressCallback, mode);
+            return;
+        }
+        byte[] iv = cipher.getIV();
+        boolean writeIv = iv != null && usesIv(mode);
+
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long outPosition = 0;
+            if (writeIv) {
+                outPosition = writeFully(out, ByteBuffer.wrap(iv), 0);
+            }
+            // Kích thước đầu ra chắc chắn không nhỏ hơn giá trị này, nên phần được map không bao giờ vượt cuối file
+            int blockSize = Math.max(1, cipher.getBlockSize());
+            long minimumOutput = outPosition + (in.size() / blockSize) * blockSize;
+            transformMapped(in, 0, out, outPosition, minimumOutput, cipher, progressCallback);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Lỗi khi mã hóa file: " + e.getMessage(), e);
+        }
+    }
+
+    // Giải mã file bằng memory-mapped I/O, tự quay về streaming khi không map được
+    public static void decryptFileMapped(String inputFile, String outputFile, Cipher cipher,
+            boolean isChaCha20Poly1305, Consumer<Double> progressCallback, String mode) throws IOException {
+        if (!canMap(inputFile, cipher, isChaCha20Poly1305)) {
+            decryptFile(inputFile, outputFile, cipher, isChaCha20Poly1305, progressCallback, mode);
+            return;
+        }
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long inPosition = 0;
+            if (usesIv(mode)) {
+                // Bỏ qua IV ở đầu file, cipher đã được init với IV này
+                inPosition = cipher.getIV().length;
+                if (in.size() < inPosition) {
+                    throw new IOException("File không hợp lệ: không thể đọc IV");
+                }
+            }
+            // Padding bỏ đi tối đa một block, nên bản rõ luôn dài ít nhất (ciphertext - 1 block)
+            long minimumOutput = Math.max(0, in.size() - inPosition - cipher.getBlockSize());
+            transformMapped(in, inPosition, out, 0, minimumOutput, cipher, progressCallback);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Lỗi khi giải mã file: " + e.getMessage(), e);
+        }
+    }
+
+    // Các mode ghi IV ở đầu file mã hóa
+    private static boolean usesIv(String mode) {
+        return mode != null && (mode.equalsIgnoreCase("CBC") || mode.equalsIgnoreCase("CTR")
+                || mode.equalsIgnoreCase("GCM"));
+    }
+
+    // Chỉ map file thường, không rỗng; AEAD giữ toàn bộ dữ liệu tới doFinal nên đi đường streaming
+    private static boolean canMap(String inputFile, Cipher cipher, boolean isChaCha20Poly1305) {
+        Path path = Paths.get(inputFile);
+        if (isChaCha20Poly1305 || isAead(cipher) || !Files.isRegularFile(path)) {
+            return false;
+        }
+        try {
+            return Files.size(path) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Chạy cipher từ các cửa sổ map của in sang các cửa sổ map của out.
+    // Chỉ map đầu ra trong khoảng [0, minimumOutput) nên không cần truncate file sau cùng;
+    // phần vượt quá được ghi qua một direct buffer dùng lại.
+    private static void transformMapped(FileChannel in, long inPosition, FileChannel out, long outPosition,
+            long minimumOutput, Cipher cipher, Consumer<Double> progressCallback)
+            throws IOException, GeneralSecurityException {
+        long inputSize = in.size();
+        long total = inputSize - inPosition;
+        long processed = 0;
+        ByteBuffer spill = ByteBuffer.allocateDirect(MAPPED_SLICE_SIZE + 2 * Math.max(16, cipher.getBlockSize()));
+        MappedByteBuffer outWindow = null;
+
+        while (inPosition < inputSize) {
+            long windowLength = Math.min(MAPPED_WINDOW_SIZE, inputSize - inPosition);
+            MappedByteBuffer inWindow = in.map(FileChannel.MapMode.READ_ONLY, inPosition, windowLength);
+
+            while (inWindow.hasRemaining()) {
+                ByteBuffer slice = inWindow.slice();
+                int sliceLength = Math.min(MAPPED_SLICE_SIZE, slice.remaining());
+                slice.limit(sliceLength);
+                int needed = cipher.getOutputSize(sliceLength);
+
+                if ((outWindow == null || outWindow.remaining() < needed) && outPosition + needed <= minimumOutput) {
+                    long outLength = Math.min(MAPPED_WINDOW_SIZE, minimumOutput - outPosition);
+                    outWindow = out.map(FileChannel.MapMode.READ_WRITE, outPosition, outLength);
+                }
+
+                if (outWindow != null && outWindow.remaining() >= needed) {
+                    outPosition += cipher.update(slice, outWindow);
+                } else {
+                    spill.clear();
+                    cipher.update(slice, spill);
+                    spill.flip();
+                    outPosition = writeFully(out, spill, outPosition);
+                    outWindow = null;
+                }
+                inWindow.position(inWindow.position() + sliceLength);
+            }
+
+            inPosition += windowLength;
+            processed += windowLength;
+            if (progressCallback != null) {
+                progressCallback.accept((double) processed / total);
+            }
+        }
+
+        spill.clear();
+        cipher.doFinal(ByteBuffer.allocate(0), spill);
+        spill.flip();
+        writeFully(out, spill, outPosition);
+    }
+
+    // Ghi hết buffer tại vị trí position, trả về vị trí sau khi ghi
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position;
+    }
+
     // Đọc toàn bộ file nhỏ
     public static byte[] readAllBytes(String filePath) throws IOException {
         return Files.readAllBytes(Paths.get(filePath));
@@ -0,0 +1,95 @@
+package com.atbm.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Class này chuyển byte <-> chuỗi hex chữ thường bằng bảng tra, dùng chung cho hash, tree hash và chữ ký.
+// String.format("%02x") cho mỗi byte phải phân tích chuỗi định dạng và tạo Formatter mỗi lần gọi,
+// nên với hàng triệu digest nhỏ thì chậm hơn cả phép băm. Các hàm encode vào buffer của người gọi
+// không cấp phát gì, để ghi thẳng ra dòng manifest.
+public class HexUtils {
+    private static final byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    // Byte b -> hai ký tự hex ở vị trí 2 * (b & 0xff) và 2 * (b & 0xff) + 1
+    private static final byte[] PAIRS = new byte[512];
+
+    // Ký tự ASCII -> giá trị 0..15, -1 nếu không phải chữ số hex
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            PAIRS[2 * i] = DIGITS[i >>> 4];
+            PAIRS[2 * i + 1] = DIGITS[i & 0x0f];
+        }
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexUtils() {
+    }
+
+    public static String encode(byte[] bytes) {
+        return encode(bytes, 0, bytes.length);
+    }
+
+    public static String encode(byte[] bytes, int offset, int length) {
+        byte[] ascii = new byte[length * 2];
+        encode(bytes, offset, length, ascii, 0);
+        // Chuỗi chỉ có ký tự ASCII, JDK giữ nguyên mảng byte dạng Latin-1 (compact string)
+        return new String(ascii, StandardCharsets.ISO_8859_1);
+    }
+
+    // Ghi hex ASCII của bytes[offset..offset+length) vào out từ outOffset, trả về vị trí sau ký tự cuối
+    public static int encode(byte[] bytes, int offset, int length, byte[] out, int outOffset) {
+        if (out.length - outOffset < length * 2) {
+            throw new IllegalArgumentException("Buffer đầu ra không đủ chỗ cho " + length * 2 + " ký tự hex");
+        }
+        int position = outOffset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int pair = (bytes[i] & 0xff) << 1;
+            out[position++] = PAIRS[pair];
+            out[position++] = PAIRS[pair + 1];
+        }
+        return position;
+    }
+
+    // Như trên nhưng ghi vào mảng char, ví dụ để nối vào StringBuilder mà không tạo String trung gian
+    public static int encode(byte[] bytes, int offset, int length, char[] out, int outOffset) {
+        if (out.length - outOffset < length * 2) {
+            throw new IllegalArgumentException("Buffer đầu ra không đủ chỗ cho " + length * 2 + " ký tự hex");
+        }
+        int position = outOffset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int pair = (bytes[i] & 0xff) << 1;
+            out[position++] = (char) PAIRS[pair];
+            out[position++] = (char) PAIRS[pair + 1];
+        }
+        return position;
+    }
+
+    // Nhận cả chữ hoa và chữ thường
+    public static byte[] decode(CharSequence hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Chuỗi hex có độ dài lẻ");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (digit(hex.charAt(2 * i)) << 4 | digit(hex.charAt(2 * i + 1)));
+        }
+        return bytes;
+    }
+
+    private static int digit(char c) {
+        int value = c < VALUES.length ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Ký tự không phải hex: '" + c + "'");
+        }
+        return value;
+    }
+}
@@ -1,7 +1,13 @@
 package com.atbm.utils;
 
+import com.atbm.core.encryption.traditional.HillKey;
+import com.atbm.core.key.KeyPairPool;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.*;
 import java.util.Base64;
 
@@ -33,9 +39,14 @@ public class KeyUtils {
     // Phương thức tạo key cho các thuật toán bất đối xứng
     public static String generateAsymmetricKeyPair(String algorithm, int keySize) {
         try {
-            KeyPairGenerator keyPairGen = KeyPairGenerator.getInstance(algorithm);
-            keyPairGen.initialize(keySize);
-            KeyPair keyPair = keyPairGen.generateKeyPair();
+            KeyPair keyPair;
+            if (algorithm.equalsIgnoreCase("RSA")) {
+                keyPair = KeyPairPool.take(keySize);
+            } else {
+                KeyPairGenerator keyPairGen = KeyPairGenerator.getInstance(algorithm);
+                keyPairGen.initialize(keySize);
+                keyPair = keyPairGen.generateKeyPair();
+            }
 
             String publicKey = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
             String privateKey = Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
@@ -79,20 +90,23 @@ public class KeyUtils {
                 int b = rand.nextInt(26);
                 return "Khóa Affine: " + a + "," + b;
             case "Hill":
-                while (true) {
-                    int[] m = { rand.nextInt(26), rand.nextInt(26), rand.nextInt(26), rand.nextInt(26) };
-                    int det = m[0] * m[3] - m[1] * m[2];
-                    det = ((det % 26) + 26) % 26;
-                    int[] coprimesHill = { 1, 3, 5, 7, 9, 11, 15, 17, 19, 21, 23, 25 };
-                    boolean valid = false;
-                    for (int x : coprimesHill)
-                        if (det == x)
-                            valid = true;
-                    if (valid)
-                        return "Khóa Hill: " + m[0] + "," + m[1] + "," + m[2] + "," + m[3];
-                }
+                return generateHillKey(2);
             default:
                 return "Không hỗ trợ thuật toán truyền thống này.";
         }
     }
+
+    // Key Hill ngẫu nhiên cho ma trận size×size, luôn khả nghịch mod 26
+    public static String generateHillKey(int size) {
+        return "Khóa Hill: " + HillKey.generate(size, new SecureRandom());
+    }
+
+    // Đọc file key truyền thống (dạng văn bản), bỏ tiền tố "Khóa <thuật toán>:" do generateTraditionalKey ghi
+    public static String readTraditionalKey(File keyFile) throws IOException {
+        String keyText = new String(Files.readAllBytes(keyFile.toPath()), StandardCharsets.UTF_8);
+        if (keyText.startsWith("Khóa")) {
+            keyText = keyText.substring(keyText.indexOf(":") + 1);
+        }
+        return keyText.trim();
+    }
 }